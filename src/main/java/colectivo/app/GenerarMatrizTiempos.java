@@ -0,0 +1,59 @@
+package colectivo.app;
+
+import java.nio.file.Path;
+import java.time.LocalTime;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.MatrizTiempos;
+import colectivo.negocio.RedCompilada;
+import colectivo.negocio.SistemaColectivo;
+import colectivo.servicio.LineaServiceImpl;
+import colectivo.servicio.ParadaServiceImpl;
+import colectivo.servicio.TramoServiceImpl;
+
+/**
+ * Proceso por lotes que calcula la matriz de tiempos de viaje entre todas las paradas
+ * y la guarda en un archivo, para los análisis de accesibilidad.
+ *
+ * Uso: {@code GenerarMatrizTiempos <día 1-7> <hora HH:mm> <archivo>}. Si el archivo
+ * termina en {@code .csv} se guarda como CSV; si no, en formato binario.
+ */
+public class GenerarMatrizTiempos {
+
+    private static final Logger LOGGER = LogManager.getLogger(GenerarMatrizTiempos.class.getName());
+
+    /**
+     * Método principal del proceso.
+     * @param args día de la semana, hora de salida y archivo de salida
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Uso: GenerarMatrizTiempos <día 1-7> <hora HH:mm> <archivo>");
+            System.exit(2);
+        }
+        try {
+            int dia = Integer.parseInt(args[0]);
+            LocalTime hora = LocalTime.parse(args[1]);
+            Path archivo = Path.of(args[2]);
+
+            SistemaColectivo sistema = new SistemaColectivo(new LineaServiceImpl().buscarTodos(),
+                    new ParadaServiceImpl().buscarTodos(), new TramoServiceImpl().buscarTodos());
+            RedCompilada red = sistema.getRed();
+            MatrizTiempos matriz = MatrizTiempos.calcular(red, new CalculoCSA(red), dia, hora);
+
+            if (archivo.toString().endsWith(".csv")) {
+                matriz.escribirCsv(archivo);
+            } else {
+                matriz.escribirBinario(archivo);
+            }
+            LOGGER.info("Matriz de tiempos guardada en " + archivo.toAbsolutePath());
+
+        } catch (Exception e) {
+            LOGGER.error("main: Error al generar la matriz de tiempos: " + e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package colectivo.app;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.configuracion.ConfiguracionGlobal;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.GeneradorCaminatas;
+import colectivo.negocio.PatronesTrasbordo;
+import colectivo.negocio.SistemaColectivo;
+import colectivo.servicio.LineaServiceImpl;
+import colectivo.servicio.ParadaServiceImpl;
+import colectivo.servicio.TramoServiceImpl;
+
+/**
+ * Proceso por lotes que calcula los patrones de trasbordo de la ciudad actual y los guarda
+ * junto a sus datos, para que el motor PATRONES no tenga que calcularlos al iniciar.
+ *
+ * Uso: {@code GenerarPatrones [archivo]}. Sin archivo se usa el de la clave
+ * {@code patrones.<ciudad>} de secuencial.properties. Si el archivo ya existe, solo se
+ * recalculan los días cuyos horarios cambiaron, y se conservan los horarios guardados que
+ * no son de los datos actuales. Es el único proceso que escribe el archivo: la aplicación
+ * solo lo lee.
+ */
+public class GenerarPatrones {
+
+    private static final Logger LOGGER = LogManager.getLogger(GenerarPatrones.class.getName());
+
+    /**
+     * Método principal del proceso.
+     * @param args archivo de salida (opcional)
+     */
+    public static void main(String[] args) {
+        if (args.length > 1) {
+            System.err.println("Uso: GenerarPatrones [archivo]");
+            System.exit(2);
+        }
+        try {
+            ConfiguracionGlobal config = ConfiguracionGlobal.getConfiguracionGlobal();
+            Path archivo = args.length == 1
+                    ? Path.of(args[0])
+                    : Path.of("src/main/resources", ResourceBundle.getBundle(Constantes.PATH_DATA_TXT)
+                            .getString("patrones." + config.getCiudadActual()));
+
+            // Mismas caminatas que arma la aplicación, para que las huellas coincidan
+            Map<String, Tramo> tramos = new TramoServiceImpl().buscarTodos();
+            ParadaServiceImpl paradas = new ParadaServiceImpl();
+            if (config.getCaminataRadio() > 0) {
+                GeneradorCaminatas generador = new GeneradorCaminatas(config.getCaminataRadio(),
+                        config.getCaminataVelocidad());
+                tramos.putAll(generador.generar(paradas.buscarTodos().values(), tramos));
+            }
+            SistemaColectivo sistema = new SistemaColectivo(new LineaServiceImpl().buscarTodos(),
+                    paradas.buscarTodos(), tramos);
+            PatronesTrasbordo patrones = PatronesTrasbordo.generar(sistema.getRed(), archivo);
+
+            LOGGER.info("Patrones de trasbordo de " + config.getCiudadActual() + ": " + patrones.cantidadPatrones()
+                    + " patrones, " + patrones.getHorariosCalculados() + " horarios calculados y "
+                    + patrones.getHorariosReutilizados() + " reutilizados, en " + archivo.toAbsolutePath());
+
+        } catch (Exception e) {
+            LOGGER.error("main: Error al generar los patrones de trasbordo: " + e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+}
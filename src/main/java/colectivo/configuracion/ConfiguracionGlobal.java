@@ -10,6 +10,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import colectivo.conexion.ConexionBD;
+import colectivo.constantes.Constantes;
 import colectivo.excepciones.ConfiguracionException;
 
 public class ConfiguracionGlobal {
@@ -93,4 +94,36 @@ public class ConfiguracionGlobal {
     public String getCiudadActual() {
         return propiedades.getProperty("ciudad.actual");
     }
+
+    public String getMotorCalculo() {
+        return propiedades.getProperty("calculo.motor", Constantes.MOTOR_LEGADO);
+    }
+
+    public int getCacheCapacidad() {
+        return Integer.parseInt(propiedades.getProperty("cache.capacidad", "0"));
+    }
+
+    public int getCacheIntervalo() {
+        return Integer.parseInt(propiedades.getProperty("cache.intervalo", "60"));
+    }
+
+    public int getCacheVida() {
+        return Integer.parseInt(propiedades.getProperty("cache.vida", "0"));
+    }
+
+    public double getCaminataRadio() {
+        return Double.parseDouble(propiedades.getProperty("caminata.radio", "0"));
+    }
+
+    public double getCaminataVelocidad() {
+        return Double.parseDouble(propiedades.getProperty("caminata.velocidad", "1.2"));
+    }
+
+    public int getRankingCantidad() {
+        return Integer.parseInt(propiedades.getProperty("ranking.cantidad", "0"));
+    }
+
+    public String getRankingCriterio() {
+        return propiedades.getProperty("ranking.criterio", Constantes.RANKING_LLEGADA);
+    }
 }
@@ -24,4 +24,16 @@ public class Constantes {
     public static final Locale IDIOMA_EN = new Locale("en", "US");
 
 	public static final String PATH_DATA_TXT = "secuencial";
+
+	public static final String MOTOR_LEGADO = "LEGADO";
+	public static final String MOTOR_RAPTOR = "RAPTOR";
+	public static final String MOTOR_CSA = "CSA";
+	public static final String MOTOR_MULTICRITERIO = "MULTICRITERIO";
+	public static final String MOTOR_AESTRELLA = "AESTRELLA";
+	public static final String MOTOR_TRIPBASED = "TRIPBASED";
+	public static final String MOTOR_PATRONES = "PATRONES";
+
+	public static final String RANKING_LLEGADA = "LLEGADA";
+	public static final String RANKING_DURACION = "DURACION";
+	public static final String RANKING_TRASBORDOS = "TRASBORDOS";
 }
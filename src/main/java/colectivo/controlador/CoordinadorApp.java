@@ -1,11 +1,13 @@
 package colectivo.controlador;
 
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,11 +17,27 @@ import colectivo.constantes.Constantes;
 import colectivo.excepciones.AppException;
 import colectivo.excepciones.ConfiguracionException;
 import colectivo.excepciones.FactoryException;
+import colectivo.modelo.Consulta;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Recorrido;
+import colectivo.modelo.ResultadoConsulta;
 import colectivo.modelo.Tramo;
+import colectivo.negocio.CacheRecorridos;
 import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoAEstrella;
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.CalculoMultiCriterio;
+import colectivo.negocio.CalculoPatrones;
+import colectivo.negocio.CalculoPerfil;
+import colectivo.negocio.CalculoRaptor;
+import colectivo.negocio.CalculoRaptorInverso;
+import colectivo.negocio.CalculoTripBased;
+import colectivo.negocio.GeneradorCaminatas;
+import colectivo.negocio.Isocrona;
+import colectivo.negocio.MotorRecorridos;
+import colectivo.negocio.PatronesTrasbordo;
+import colectivo.negocio.RedCompilada;
 import colectivo.negocio.SistemaColectivo;
 import colectivo.servicio.InterfazService;
 import colectivo.servicio.InterfazServiceImpl;
@@ -44,6 +62,9 @@ public class CoordinadorApp implements ICoordinador{
     /** Instancia para realizar cálculos sobre el sistema (tiempos, recorridos, etc.). */
     private Calculo calculo;
 
+    /** Cache de resultados de {@link #calcularRecorrido}; {@code null} si está desactivada. */
+    private CacheRecorridos cache;
+
     /** Interfaz de usuario asociada al coordinador. */
     private InterfazService interfaz;
 
@@ -79,6 +100,11 @@ public class CoordinadorApp implements ICoordinador{
         }
         this.sistema = sistema;
         this.sistema.setCoordinador(this);
+        cargarDatos();
+        // Los motores y la tabla de trasbordos se arman sobre los datos: se rehacen antes de
+        // vaciar la cache, para que no vuelva a llenarse con resultados de la red anterior
+        if(calculo != null) reconstruirCalculo(nombreMotor(calculo.getMotor()));
+        if(cache != null) cache.invalidar();
     }
 
     /**
@@ -99,6 +125,19 @@ public class CoordinadorApp implements ICoordinador{
             throw new AppException("El objeto de cálculo no puede ser nulo");
         }
         this.calculo = calculo;
+        if(cache != null) cache.invalidar();
+    }
+
+    public CacheRecorridos getCache() {
+        return cache;
+    }
+
+    /**
+     * Asocia una cache de recorridos al coordinador.
+     * @param cache la cache a utilizar, o {@code null} para desactivarla
+     */
+    public void setCache(CacheRecorridos cache) {
+        this.cache = cache;
     }
 
     /**
@@ -146,22 +185,196 @@ public class CoordinadorApp implements ICoordinador{
         return sistema.getParadas();
     }
     
+    /**
+     * Busca las paradas más cercanas a un punto, usando el índice espacial del sistema.
+     * @param latitud latitud del punto
+     * @param longitud longitud del punto
+     * @param cantidad cantidad máxima de paradas
+     * @param radio distancia máxima en metros
+     * @return paradas dentro del radio, de la más cercana a la más lejana
+     */
+    public List<Parada> buscarParadasCercanas(double latitud, double longitud, int cantidad, double radio) {
+        if(Double.isNaN(latitud) || Double.isNaN(longitud) || Math.abs(latitud) > 90 || Math.abs(longitud) > 180) {
+            LOGGER.error("buscarParadasCercanas: Coordenadas inválidas: " + latitud + ", " + longitud);
+            throw new AppException("Las coordenadas deben ser una latitud y una longitud válidas");
+        }
+        if(cantidad < 1 || !(radio >= 0)) {
+            LOGGER.error("buscarParadasCercanas: Cantidad o radio inválidos: " + cantidad + ", " + radio);
+            throw new AppException("La cantidad debe ser al menos 1 y el radio no puede ser negativo");
+        }
+        return sistema.getIndiceParadas().buscarCercanas(latitud, longitud, cantidad, radio);
+    }
+
     @SuppressWarnings("unchecked")
     public List<List<Recorrido>> calcularRecorrido(Parada origen, Parada destino, int dia, LocalTime hora) {
         if(origen == null || destino == null) {
             LOGGER.error("calcularRecorrido: Parada de origen o destino es nula");
             throw new AppException("Parada de origen y destino no pueden ser nulas");
         }
-        if(dia < 0 || dia > 6) {
-            LOGGER.error("calcularRecorrido: Día inválido proporcionado: " + dia);
-            throw new AppException("Día debe estar entre 0 (Domingo) y 6 (Sábado)");
-        }
+        validarDia("calcularRecorrido", dia);
         if(hora == null) {
             LOGGER.error("calcularRecorrido: Hora proporcionada es nula");
             throw new AppException("Hora no puede ser nula");
         }
         // Aquí delega al servicio de cálculo
-        return calculo.calcularRecorrido(origen, destino, dia, hora, (Map<String,Tramo>)datos.get(Constantes.TRAMO));
+        Map<String,Tramo> tramosActuales = (Map<String,Tramo>)datos.get(Constantes.TRAMO);
+        if(cache == null) {
+            return calculo.calcularRecorrido(origen, destino, dia, hora, tramosActuales);
+        }
+        // Los tramos cargados identifican los datos: si se recargan, la cache se vacía
+        return cache.obtener(tramosActuales, origen, destino, dia, hora,
+                horaRedondeada -> calculo.calcularRecorrido(origen, destino, dia, horaRedondeada, tramosActuales));
+    }
+
+    /**
+     * Calcula los mejores viajes según un criterio de orden, descartando durante la búsqueda
+     * los que no pueden superar al k-ésimo. No usa la cache de recorridos.
+     * @param origen parada de origen
+     * @param destino parada de destino
+     * @param dia día de la semana
+     * @param hora hora de llegada a la parada de origen
+     * @param cantidad cantidad máxima de viajes
+     * @param criterio {@link Constantes#RANKING_LLEGADA}, {@link Constantes#RANKING_DURACION}
+     *        o {@link Constantes#RANKING_TRASBORDOS}
+     * @return hasta {@code cantidad} viajes, del mejor al peor
+     */
+    @SuppressWarnings("unchecked")
+    public List<List<Recorrido>> calcularMejoresRecorridos(Parada origen, Parada destino, int dia, LocalTime hora,
+            int cantidad, String criterio) {
+        if(origen == null || destino == null) {
+            LOGGER.error("calcularMejoresRecorridos: Parada de origen o destino es nula");
+            throw new AppException("Parada de origen y destino no pueden ser nulas");
+        }
+        validarDia("calcularMejoresRecorridos", dia);
+        if(hora == null) {
+            LOGGER.error("calcularMejoresRecorridos: Hora proporcionada es nula");
+            throw new AppException("Hora no puede ser nula");
+        }
+        if(cantidad < 1) {
+            LOGGER.error("calcularMejoresRecorridos: Cantidad inválida: " + cantidad);
+            throw new AppException("La cantidad de recorridos debe ser al menos 1");
+        }
+        if(!Constantes.RANKING_LLEGADA.equals(criterio) && !Constantes.RANKING_DURACION.equals(criterio)
+                && !Constantes.RANKING_TRASBORDOS.equals(criterio)) {
+            LOGGER.error("calcularMejoresRecorridos: Criterio desconocido: " + criterio);
+            throw new AppException("Criterio de orden desconocido: " + criterio);
+        }
+        Map<String,Tramo> tramosActuales = (Map<String,Tramo>)datos.get(Constantes.TRAMO);
+        return calculo.calcularMejoresRecorridos(origen, destino, dia, hora, tramosActuales, cantidad, criterio);
+    }
+
+    /**
+     * Calcula un lote de consultas en paralelo. Todas comparten los mismos datos, que no se
+     * modifican durante el cálculo. Un error en una consulta no interrumpe las demás: queda
+     * registrado en su resultado.
+     * @param consultas consultas a calcular
+     * @return un resultado por consulta, en el mismo orden
+     */
+    public List<ResultadoConsulta> calcularRecorridos(List<Consulta> consultas) {
+        if(consultas == null) {
+            LOGGER.error("calcularRecorridos: La lista de consultas es nula");
+            throw new AppException("La lista de consultas no puede ser nula");
+        }
+        long inicio = System.nanoTime();
+        List<ResultadoConsulta> resultados = consultas.parallelStream()
+                .map(this::calcularConsulta)
+                .collect(Collectors.toList());
+        LOGGER.info("calcularRecorridos: " + consultas.size() + " consultas en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        return resultados;
+    }
+
+    private ResultadoConsulta calcularConsulta(Consulta consulta) {
+        if(consulta == null) {
+            return ResultadoConsulta.error(null, "La consulta no puede ser nula");
+        }
+        try {
+            return ResultadoConsulta.exito(consulta,
+                    calcularRecorrido(consulta.getOrigen(), consulta.getDestino(), consulta.getDia(), consulta.getHora()));
+        } catch(RuntimeException e) {
+            LOGGER.warn("calcularRecorridos: Falló la consulta " + consulta + ": " + e.getMessage());
+            return ResultadoConsulta.error(consulta, e.getMessage());
+        }
+    }
+
+    /**
+     * Calcula los viajes que salen lo más tarde posible y llegan antes de una hora límite.
+     * @param origen parada de origen
+     * @param destino parada de destino
+     * @param dia día de la semana
+     * @param horaLimite hora máxima de llegada al destino
+     * @return viajes de menos a más trasbordos
+     */
+    public List<List<Recorrido>> calcularRecorridoLlegada(Parada origen, Parada destino, int dia, LocalTime horaLimite) {
+        if(origen == null || destino == null) {
+            LOGGER.error("calcularRecorridoLlegada: Parada de origen o destino es nula");
+            throw new AppException("Parada de origen y destino no pueden ser nulas");
+        }
+        validarDia("calcularRecorridoLlegada", dia);
+        if(horaLimite == null) {
+            LOGGER.error("calcularRecorridoLlegada: Hora límite proporcionada es nula");
+            throw new AppException("Hora límite no puede ser nula");
+        }
+        return calculo.calcularRecorridoLlegada(origen, destino, dia, horaLimite);
+    }
+
+    /**
+     * Calcula todos los viajes óptimos que salen entre dos horas.
+     * @param origen parada de origen
+     * @param destino parada de destino
+     * @param dia día de la semana
+     * @param desde primera hora de salida
+     * @param hasta última hora de salida (inclusive)
+     * @return viajes ordenados por hora de salida
+     */
+    public List<List<Recorrido>> calcularPerfil(Parada origen, Parada destino, int dia, LocalTime desde, LocalTime hasta) {
+        if(origen == null || destino == null) {
+            LOGGER.error("calcularPerfil: Parada de origen o destino es nula");
+            throw new AppException("Parada de origen y destino no pueden ser nulas");
+        }
+        validarDia("calcularPerfil", dia);
+        if(desde == null || hasta == null || desde.isAfter(hasta)) {
+            LOGGER.error("calcularPerfil: Franja horaria inválida: " + desde + " - " + hasta);
+            throw new AppException("La franja horaria debe tener inicio y fin, y el inicio no puede ser posterior al fin");
+        }
+        return calculo.calcularPerfil(origen, destino, dia, desde, hasta);
+    }
+
+    /**
+     * Verifica que el día esté entre 1 (Lunes) y 7 (Domingo), como los numeran los horarios.
+     * @param metodo nombre del método que consulta, para el log
+     * @param dia día de la semana
+     */
+    private static void validarDia(String metodo, int dia) {
+        if(!RedCompilada.diaValido(dia)) {
+            LOGGER.error(metodo + ": Día inválido proporcionado: " + dia);
+            throw new AppException("Día debe estar entre 1 (Lunes) y 7 (Domingo)");
+        }
+    }
+
+    /**
+     * Calcula el tiempo de viaje desde una parada hasta todas las demás.
+     * @param origen parada de origen
+     * @param dia día de la semana
+     * @param hora hora de llegada a la parada de origen
+     * @return isócrona desde el origen, exportable a GeoJSON
+     */
+    public Isocrona calcularIsocrona(Parada origen, int dia, LocalTime hora) {
+        if(origen == null) {
+            LOGGER.error("calcularIsocrona: Parada de origen es nula");
+            throw new AppException("Parada de origen no puede ser nula");
+        }
+        validarDia("calcularIsocrona", dia);
+        if(hora == null) {
+            LOGGER.error("calcularIsocrona: Hora proporcionada es nula");
+            throw new AppException("Hora no puede ser nula");
+        }
+        Isocrona isocrona = calculo.calcularIsocrona(origen, dia, hora);
+        if(isocrona == null) {
+            LOGGER.error("calcularIsocrona: El motor actual no calcula llegadas de uno a todos");
+            throw new AppException("El motor de recorridos configurado no permite calcular isócronas");
+        }
+        return isocrona;
     }
     public void iniciar(){
         interfaz.iniciar();
@@ -205,6 +418,11 @@ public class CoordinadorApp implements ICoordinador{
             throw new AppException(errorMsg + " Detalles: " + e.getMessage(), e);
         }
 
+        if(config.getCaminataRadio() > 0) {
+            GeneradorCaminatas generador = new GeneradorCaminatas(config.getCaminataRadio(), config.getCaminataVelocidad());
+            tramos.putAll(generador.generar(paradas.values(), tramos));
+        }
+
 		sistema = new SistemaColectivo(lineas, paradas, tramos);
 		sistema.setCoordinador(this);
     }
@@ -216,8 +434,81 @@ public class CoordinadorApp implements ICoordinador{
         datos.put(Constantes.TRAMO,sistema.getTramos());
     }
     private void inicializarNegocio(){
-        calculo = new Calculo(datos);
+        reconstruirCalculo(config.getMotorCalculo());
+        cache = config.getCacheCapacidad() > 0
+                ? new CacheRecorridos(config.getCacheCapacidad(), config.getCacheIntervalo(), config.getCacheVida())
+                : null;
+    }
+
+    /**
+     * Arma el cálculo y sus motores sobre los datos y la red del sistema actual.
+     * @param nombreMotor nombre del motor de búsqueda (ver {@link Constantes})
+     */
+    private void reconstruirCalculo(String nombreMotor){
+        Calculo nuevo = new Calculo(datos);
+        MotorRecorridos motor = crearMotor(nombreMotor);
+        nuevo.setMotor(motor);
+        nuevo.setPerfil(new CalculoPerfil(sistema.getRed()));
+        nuevo.setInverso(new CalculoRaptorInverso(sistema.getRed()));
+        nuevo.setLlegadas(motor instanceof CalculoCSA ? (CalculoCSA) motor : new CalculoCSA(sistema.getRed()));
+        calculo = nuevo;
+        LOGGER.info("Motor de cálculo: " + nombreMotor);
+    }
+
+    /**
+     * Nombre de configuración de un motor, para volver a crearlo sobre otros datos.
+     * @param motor motor actual, o {@code null} para el algoritmo original
+     * @return nombre del motor (ver {@link Constantes})
+     */
+    private static String nombreMotor(MotorRecorridos motor){
+        if(motor == null) return Constantes.MOTOR_LEGADO;
+        if(motor instanceof CalculoRaptor) return Constantes.MOTOR_RAPTOR;
+        if(motor instanceof CalculoCSA) return Constantes.MOTOR_CSA;
+        if(motor instanceof CalculoMultiCriterio) return Constantes.MOTOR_MULTICRITERIO;
+        if(motor instanceof CalculoAEstrella) return Constantes.MOTOR_AESTRELLA;
+        if(motor instanceof CalculoTripBased) return Constantes.MOTOR_TRIPBASED;
+        if(motor instanceof CalculoPatrones) return Constantes.MOTOR_PATRONES;
+        LOGGER.error("nombreMotor: Motor de cálculo desconocido: " + motor.getClass().getName());
+        throw new AppException("Motor de cálculo desconocido: " + motor.getClass().getName());
     }
+
+    /**
+     * Crea el motor de búsqueda indicado en la configuración.
+     * @param nombre nombre del motor (ver {@link Constantes})
+     * @return el motor, o {@code null} para usar el algoritmo original de {@link Calculo}
+     */
+    private MotorRecorridos crearMotor(String nombre){
+        switch (nombre) {
+            case Constantes.MOTOR_LEGADO:
+                return null;
+            case Constantes.MOTOR_RAPTOR:
+                return new CalculoRaptor(sistema.getRed());
+            case Constantes.MOTOR_CSA:
+                return new CalculoCSA(sistema.getRed());
+            case Constantes.MOTOR_MULTICRITERIO:
+                return new CalculoMultiCriterio(sistema.getRed());
+            case Constantes.MOTOR_AESTRELLA:
+                return new CalculoAEstrella(sistema.getRed());
+            case Constantes.MOTOR_TRIPBASED:
+                return new CalculoTripBased(sistema.getRed());
+            case Constantes.MOTOR_PATRONES:
+                return new CalculoPatrones(PatronesTrasbordo.cargarOCalcular(sistema.getRed(), archivoPatrones()));
+            default:
+                LOGGER.error("crearMotor: Motor de cálculo desconocido: " + nombre);
+                throw new AppException("Motor de cálculo desconocido: " + nombre);
+        }
+    }
+
+    /** Archivo de patrones de trasbordo de la ciudad actual, junto a sus datos. */
+    private Path archivoPatrones() {
+        if(config == null) {
+            LOGGER.error("archivoPatrones: No hay configuración para ubicar el archivo de patrones");
+            throw new AppException("No se pudo obtener la configuracion.");
+        }
+        ResourceBundle rb = ResourceBundle.getBundle(Constantes.PATH_DATA_TXT);
+        return Path.of("src/main/resources", rb.getString("patrones." + config.getCiudadActual()));
+    }
+
     private void inicializarInterfazUsuario(){
         try{
             interfaz = new InterfazServiceImpl();
@@ -251,4 +542,10 @@ public class CoordinadorApp implements ICoordinador{
     public int getZoom() {
         return config.getZoom();
     } 
+    public int getRankingCantidad() {
+        return config.getRankingCantidad();
+    }
+    public String getRankingCriterio() {
+        return config.getRankingCriterio();
+    }
 }
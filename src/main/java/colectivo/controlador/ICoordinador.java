@@ -1,8 +1,11 @@
 package colectivo.controlador;
 
+import colectivo.modelo.Consulta;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Recorrido;
+import colectivo.modelo.ResultadoConsulta;
+import colectivo.negocio.Isocrona;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Locale;
@@ -13,14 +16,22 @@ public interface ICoordinador {
     // Métodos de Datos
     Map<Integer, Parada> listarParadas();
     Map<String, Linea> listarLineas();
+    List<Parada> buscarParadasCercanas(double latitud, double longitud, int cantidad, double radio);
     
     // Métodos de Cálculo
     List<List<Recorrido>> calcularRecorrido(Parada origen, Parada destino, int dia, LocalTime hora);
+    List<List<Recorrido>> calcularMejoresRecorridos(Parada origen, Parada destino, int dia, LocalTime hora, int cantidad, String criterio);
+    List<ResultadoConsulta> calcularRecorridos(List<Consulta> consultas);
+    List<List<Recorrido>> calcularRecorridoLlegada(Parada origen, Parada destino, int dia, LocalTime horaLimite);
+    List<List<Recorrido>> calcularPerfil(Parada origen, Parada destino, int dia, LocalTime desde, LocalTime hasta);
+    Isocrona calcularIsocrona(Parada origen, int dia, LocalTime hora);
     
     // Configuración
     double getOrigenLatitud();
     double getOrigenLongitud();
     int getZoom();
+    int getRankingCantidad();
+    String getRankingCriterio();
     ResourceBundle getResourceBundle();
     void setIdioma(Locale locale);
     String getIdiomaActual();
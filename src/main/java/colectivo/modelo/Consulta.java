@@ -0,0 +1,44 @@
+package colectivo.modelo;
+
+import java.time.LocalTime;
+
+/**
+ * Pedido de recorrido entre dos paradas, para las consultas por lotes.
+ */
+public class Consulta {
+
+	private final Parada origen;
+	private final Parada destino;
+	private final int dia;
+	private final LocalTime hora;
+
+	public Consulta(Parada origen, Parada destino, int dia, LocalTime hora) {
+		super();
+		this.origen = origen;
+		this.destino = destino;
+		this.dia = dia;
+		this.hora = hora;
+	}
+
+	public Parada getOrigen() {
+		return origen;
+	}
+
+	public Parada getDestino() {
+		return destino;
+	}
+
+	public int getDia() {
+		return dia;
+	}
+
+	public LocalTime getHora() {
+		return hora;
+	}
+
+	@Override
+	public String toString() {
+		return "Consulta [origen=" + (origen == null ? null : origen.getCodigo()) + ", destino="
+				+ (destino == null ? null : destino.getCodigo()) + ", dia=" + dia + ", hora=" + hora + "]";
+	}
+}
@@ -2,19 +2,41 @@ package colectivo.modelo;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import colectivo.util.MapaTramos;
+
 public class Linea {
 
 	private String codigo;
 	private String nombre;
 	private List<Parada> paradas;
 	private List<Frecuencia> frecuencias;
+	/** Posiciones de cada parada en el recorrido (clave: código de parada). */
+	private Map<Integer, int[]> posiciones;
+	/**
+	 * Segundos desde el inicio de la línea hasta cada parada, junto con los tramos con los
+	 * que se calcularon; null si todavía no se calcularon. Es volatile porque los motores
+	 * los piden desde varios hilos: el arreglo y sus tramos se publican juntos.
+	 */
+	private volatile TiemposAcumulados tiemposAcumulados;
+	/**
+	 * Salidas de cada día en segundos desde el inicio del día, ordenadas. Se arma a demanda.
+	 * Es volatile por la misma razón que los tiempos acumulados: se arma completo en un
+	 * arreglo local y recién después se publica.
+	 */
+	private volatile int[][] salidasPorDia;
+
+	private static final int[] VACIO = new int[0];
+	private static final int DIA_MAXIMO = 7;
 
 	public Linea() {
 		this.paradas = new ArrayList<Parada>();
 		this.frecuencias = new ArrayList<Frecuencia>();
+		this.posiciones = new HashMap<Integer, int[]>();
 	}
 
 	public Linea(String codigo, String nombre) {
@@ -23,10 +45,17 @@ public class Linea {
 		this.nombre = nombre;
 		this.paradas = new ArrayList<Parada>();
 		this.frecuencias = new ArrayList<Frecuencia>();
+		this.posiciones = new HashMap<Integer, int[]>();
 	}
 
 	public void agregarParada(Parada parada) {
+		// Una línea circular puede pasar más de una vez por la misma parada
+		int[] previas = posiciones.getOrDefault(parada.getCodigo(), VACIO);
+		int[] nuevas = Arrays.copyOf(previas, previas.length + 1);
+		nuevas[previas.length] = paradas.size();
+		posiciones.put(parada.getCodigo(), nuevas);
 		paradas.add(parada);
+		tiemposAcumulados = null;
 		parada.agregarLinea(this);
 	}
 	
@@ -38,6 +67,7 @@ public class Linea {
 
 	public void agregarFrecuencia(int diaSemana, LocalTime hora) {
 		frecuencias.add(new Frecuencia(diaSemana, hora));
+		salidasPorDia = null;
 	}
 	
 	public void agregarFrecuencias(Map<Integer, List<LocalTime>> map) {
@@ -47,19 +77,82 @@ public class Linea {
 				frecuencias.add(new Frecuencia(dia, hora));
 			}
 		}	
+		salidasPorDia = null;
 	}
 
 	public List<LocalTime> getFrecuencias(int dia){
 		List<LocalTime> horarios = new ArrayList<LocalTime>();
-		if(dia > 7 || dia < 0) return horarios;
-		for(Frecuencia f : frecuencias){
-			if(f.getDiaSemana() == dia){
-				horarios.add(f.getHora());
-			}
+		for(int salida : getSalidas(dia)){
+			horarios.add(LocalTime.ofSecondOfDay(salida));
 		}
 		return horarios;
 	}
 
+	/**
+	 * Agrupa las frecuencias por día en arreglos de segundos ordenados.
+	 * Se llama automáticamente la primera vez que se piden las salidas.
+	 */
+	public void ordenarSalidas() {
+		int[] cantidad = new int[DIA_MAXIMO + 1];
+		for (Frecuencia f : frecuencias) {
+			if (f.getDiaSemana() >= 0 && f.getDiaSemana() <= DIA_MAXIMO) cantidad[f.getDiaSemana()]++;
+		}
+		int[][] salidas = new int[DIA_MAXIMO + 1][];
+		for (int dia = 0; dia <= DIA_MAXIMO; dia++) {
+			salidas[dia] = new int[cantidad[dia]];
+			cantidad[dia] = 0;
+		}
+		for (Frecuencia f : frecuencias) {
+			int dia = f.getDiaSemana();
+			if (dia >= 0 && dia <= DIA_MAXIMO) salidas[dia][cantidad[dia]++] = f.getHora().toSecondOfDay();
+		}
+		for (int[] delDia : salidas) Arrays.sort(delDia);
+		salidasPorDia = salidas;
+	}
+
+	/**
+	 * Devuelve los horarios de salida desde el inicio de la línea para un día,
+	 * en segundos desde el inicio del día y ordenados.
+	 * El arreglo devuelto es compartido y no debe modificarse.
+	 */
+	public int[] getSalidas(int dia) {
+		if (dia > DIA_MAXIMO || dia < 0) return VACIO;
+		int[][] salidas = salidasPorDia;
+		if (salidas == null) {
+			ordenarSalidas();
+			salidas = salidasPorDia;
+		}
+		return salidas[dia];
+	}
+
+	/**
+	 * Busca la primera salida del día que sea igual o posterior a la hora indicada.
+	 *
+	 * @param dia      día de la semana
+	 * @param segundos hora en segundos desde el inicio del día
+	 * @return índice en {@link #getSalidas(int)}, o -1 si no hay salidas posteriores
+	 */
+	public int buscarSalida(int dia, int segundos) {
+		int[] salidas = getSalidas(dia);
+		int lo = 0;
+		int hi = salidas.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (salidas[mid] < segundos) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo < salidas.length ? lo : -1;
+	}
+
+	/**
+	 * Devuelve la primera salida del día igual o posterior a la hora indicada, en segundos,
+	 * o -1 si no hay.
+	 */
+	public int getProximaSalida(int dia, int segundos) {
+		int i = buscarSalida(dia, segundos);
+		return i < 0 ? -1 : getSalidas(dia)[i];
+	}
+
 	public String getCodigo() {
 		return codigo;
 	}
@@ -79,6 +172,89 @@ public class Linea {
 	public List<Parada> getParadas() {
 		return paradas;
 	}
+
+	/**
+	 * Devuelve las posiciones (en orden creciente) en las que la línea pasa por la parada.
+	 * El arreglo devuelto es compartido y no debe modificarse.
+	 */
+	public int[] getPosiciones(Parada parada) {
+		return posiciones.getOrDefault(parada.getCodigo(), VACIO);
+	}
+
+	/**
+	 * Devuelve la primera posición de la parada en la línea, o -1 si la línea no pasa por ella.
+	 * Equivale a {@code getParadas().indexOf(parada)} sin recorrer la lista.
+	 */
+	public int getPosicion(Parada parada) {
+		int[] pos = getPosiciones(parada);
+		return pos.length == 0 ? -1 : pos[0];
+	}
+
+	/**
+	 * Devuelve la primera posición de la parada mayor o igual a {@code desde}, o -1 si no hay.
+	 */
+	public int getPosicionDesde(Parada parada, int desde) {
+		for (int p : getPosiciones(parada)) {
+			if (p >= desde) return p;
+		}
+		return -1;
+	}
+
+	/**
+	 * Calcula el tiempo acumulado desde el inicio de la línea hasta cada parada,
+	 * a partir de los tramos entre paradas consecutivas.
+	 * Si falta algún tramo, la línea queda sin tiempos acumulados.
+	 *
+	 * @param tramos mapa de tramos (clave: "codigoOrigen-codigoDestino")
+	 */
+	public void calcularTiemposAcumulados(Map<String, Tramo> tramos) {
+		tiemposAcumulados = calcularTiempos(tramos);
+	}
+
+	private TiemposAcumulados calcularTiempos(Map<String, Tramo> tramos) {
+		int[] acumulados = new int[paradas.size()];
+		for (int i = 1; i < paradas.size(); i++) {
+			Tramo t = MapaTramos.buscar(tramos, paradas.get(i - 1), paradas.get(i));
+			if (t == null) {
+				acumulados = null;
+				break;
+			}
+			acumulados[i] = acumulados[i - 1] + t.getTiempo();
+		}
+		return new TiemposAcumulados(tramos, acumulados);
+	}
+
+	/**
+	 * Devuelve los segundos desde el inicio de la línea hasta cada posición.
+	 * El tiempo entre dos posiciones i &lt; j es {@code t[j] - t[i]}.
+	 * Se reutilizan los tiempos ya calculados si se piden con el mismo mapa de tramos (el
+	 * mismo objeto); con otro mapa, o si cambiaron las paradas, se vuelven a calcular.
+	 * El arreglo devuelto es compartido y no debe modificarse.
+	 *
+	 * @param tramos mapa de tramos (clave: "codigoOrigen-codigoDestino")
+	 * @return tiempos acumulados, o {@code null} si falta algún tramo de la línea
+	 */
+	public int[] getTiemposAcumulados(Map<String, Tramo> tramos) {
+		TiemposAcumulados calculados = tiemposAcumulados;
+		if (calculados == null || calculados.tramos != tramos) {
+			calculados = calcularTiempos(tramos);
+			tiemposAcumulados = calculados;
+		}
+		return calculados.acumulados;
+	}
+
+	public boolean contieneParada(Parada parada) {
+		return posiciones.containsKey(parada.getCodigo());
+	}
+
+	/**
+	 * Indica si la línea, después de pasar por {@code origen}, pasa por {@code destino}.
+	 */
+	public boolean pasaDespues(Parada origen, Parada destino) {
+		int[] pOrigen = getPosiciones(origen);
+		int[] pDestino = getPosiciones(destino);
+		return pOrigen.length > 0 && pDestino.length > 0 && pDestino[pDestino.length - 1] > pOrigen[0];
+	}
 	
 	@Override
 	public int hashCode() {
@@ -144,4 +320,16 @@ public class Linea {
 
 		
 	}
+
+	/** Tiempos acumulados de la línea y el mapa de tramos con el que se calcularon. */
+	private static final class TiemposAcumulados {
+
+		private final Map<String, Tramo> tramos;
+		private final int[] acumulados;
+
+		TiemposAcumulados(Map<String, Tramo> tramos, int[] acumulados) {
+			this.tramos = tramos;
+			this.acumulados = acumulados;
+		}
+	}
 }
@@ -0,0 +1,50 @@
+package colectivo.modelo;
+
+import java.util.List;
+
+/**
+ * Respuesta a una {@link Consulta} de un lote: los recorridos encontrados, o el error
+ * que impidió calcularlos.
+ */
+public class ResultadoConsulta {
+
+	private final Consulta consulta;
+	private final List<List<Recorrido>> recorridos;
+	private final String error;
+
+	private ResultadoConsulta(Consulta consulta, List<List<Recorrido>> recorridos, String error) {
+		this.consulta = consulta;
+		this.recorridos = recorridos;
+		this.error = error;
+	}
+
+	public static ResultadoConsulta exito(Consulta consulta, List<List<Recorrido>> recorridos) {
+		return new ResultadoConsulta(consulta, recorridos, null);
+	}
+
+	public static ResultadoConsulta error(Consulta consulta, String error) {
+		return new ResultadoConsulta(consulta, List.of(), error);
+	}
+
+	public Consulta getConsulta() {
+		return consulta;
+	}
+
+	/**
+	 * @return recorridos encontrados; vacío si no hay recorridos o si la consulta falló
+	 */
+	public List<List<Recorrido>> getRecorridos() {
+		return recorridos;
+	}
+
+	/**
+	 * @return mensaje de error, o {@code null} si la consulta se calculó
+	 */
+	public String getError() {
+		return error;
+	}
+
+	public boolean isExitosa() {
+		return error == null;
+	}
+}
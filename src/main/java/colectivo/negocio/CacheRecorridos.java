@@ -0,0 +1,196 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+
+/**
+ * Clase CacheRecorridos
+ * ------------------------
+ * Cache acotada de resultados de recorridos, indexada por parada de origen, parada de
+ * destino, día y hora de llegada a la parada redondeada a un intervalo.
+ *
+ * La hora se redondea hacia arriba al siguiente múltiplo del intervalo y el recorrido se
+ * calcula con esa hora, así todas las consultas del mismo intervalo comparten el resultado
+ * y ninguna recibe un colectivo que sale antes de que el pasajero llegue a la parada.
+ *
+ * Cuando se llena se descarta la entrada usada hace más tiempo, y las entradas vencen
+ * pasado el tiempo de vida configurado. Cada entrada recuerda los datos con los que se
+ * calculó; si los datos cambian (se recargan paradas, líneas o tramos) la cache se vacía.
+ *
+ * Los resultados guardados se comparten entre consultas y no deben modificarse.
+ */
+public class CacheRecorridos {
+
+    private static final Logger LOGGER = LogManager.getLogger(CacheRecorridos.class.getName());
+
+    private static final int SEGUNDOS_DIA = 24 * 60 * 60;
+
+    private final int capacidad;
+    private final int intervalo;
+    private final long vidaNanos;
+
+    private final LinkedHashMap<Clave, Entrada> entradas;
+    /** Datos con los que se calcularon las entradas actuales. */
+    private Object datos;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    /**
+     * @param capacidad       cantidad máxima de consultas guardadas
+     * @param intervaloSegundos tamaño del intervalo al que se redondea la hora
+     * @param vidaSegundos    tiempo de vida de cada entrada; 0 para que no venzan
+     */
+    public CacheRecorridos(int capacidad, int intervaloSegundos, int vidaSegundos) {
+        if (capacidad < 1 || intervaloSegundos < 1 || vidaSegundos < 0) {
+            throw new IllegalArgumentException("Parámetros de cache inválidos: capacidad=" + capacidad
+                    + " intervalo=" + intervaloSegundos + " vida=" + vidaSegundos);
+        }
+        this.capacidad = capacidad;
+        this.intervalo = intervaloSegundos;
+        this.vidaNanos = vidaSegundos * 1_000_000_000L;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                return size() > CacheRecorridos.this.capacidad;
+            }
+        };
+    }
+
+    /**
+     * Hora con la que se calculan las consultas del intervalo de la hora indicada.
+     *
+     * @param hora hora de llegada a la parada
+     * @return la hora redondeada hacia arriba al intervalo, sin pasar de medianoche
+     */
+    public LocalTime redondear(LocalTime hora) {
+        int segundos = (hora.toSecondOfDay() + intervalo - 1) / intervalo * intervalo;
+        return LocalTime.ofSecondOfDay(Math.min(segundos, SEGUNDOS_DIA - 1));
+    }
+
+    /**
+     * Devuelve el resultado guardado para la consulta o lo calcula y lo guarda.
+     *
+     * @param datos    datos con los que se calcula (si cambian, se vacía la cache)
+     * @param origen   Parada de origen
+     * @param destino  Parada de destino
+     * @param dia      Día de la semana
+     * @param hora     Hora de llegada a la parada de origen
+     * @param calcular cálculo del recorrido a partir de la hora redondeada
+     * @return recorridos de la consulta
+     */
+    public List<List<Recorrido>> obtener(Object datos, Parada origen, Parada destino, int dia, LocalTime hora,
+            Function<LocalTime, List<List<Recorrido>>> calcular) {
+        LocalTime redondeada = redondear(hora);
+        Clave clave = new Clave(origen.getCodigo(), destino.getCodigo(), dia, redondeada.toSecondOfDay());
+        long ahora = System.nanoTime();
+
+        synchronized (this) {
+            if (this.datos != datos) {
+                vaciar();
+                this.datos = datos;
+            }
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null && (vidaNanos == 0 || ahora - entrada.creada < vidaNanos)) {
+                aciertos.incrementAndGet();
+                return entrada.recorridos;
+            }
+            if (entrada != null) entradas.remove(clave);
+        }
+
+        // Se calcula fuera del bloqueo para no frenar las demás consultas
+        fallos.incrementAndGet();
+        List<List<Recorrido>> recorridos = Collections.unmodifiableList(calcular.apply(redondeada));
+        synchronized (this) {
+            if (this.datos == datos) {
+                entradas.put(clave, new Entrada(recorridos, ahora));
+            }
+        }
+        return recorridos;
+    }
+
+    /** Descarta todas las entradas, por ejemplo al recargar los datos o cambiar de motor. */
+    public synchronized void invalidar() {
+        vaciar();
+        datos = null;
+    }
+
+    private void vaciar() {
+        if (!entradas.isEmpty()) {
+            invalidaciones.incrementAndGet();
+            LOGGER.info("Cache de recorridos invalidada (" + entradas.size() + " entradas)");
+            entradas.clear();
+        }
+    }
+
+    public synchronized int tamanio() {
+        return entradas.size();
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    public long getInvalidaciones() {
+        return invalidaciones.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheRecorridos [entradas=" + tamanio() + "/" + capacidad + ", aciertos=" + getAciertos()
+                + ", fallos=" + getFallos() + ", invalidaciones=" + getInvalidaciones() + "]";
+    }
+
+    private static final class Clave {
+        private final int origen;
+        private final int destino;
+        private final int dia;
+        private final int hora;
+
+        Clave(int origen, int destino, int dia, int hora) {
+            this.origen = origen;
+            this.destino = destino;
+            this.dia = dia;
+            this.hora = hora;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((origen * 31 + destino) * 31 + dia) * 31 + hora;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Clave)) return false;
+            Clave otra = (Clave) obj;
+            return origen == otra.origen && destino == otra.destino && dia == otra.dia && hora == otra.hora;
+        }
+    }
+
+    private static final class Entrada {
+        private final List<List<Recorrido>> recorridos;
+        private final long creada;
+
+        Entrada(List<List<Recorrido>> recorridos, long creada) {
+            this.recorridos = recorridos;
+            this.creada = creada;
+        }
+    }
+}
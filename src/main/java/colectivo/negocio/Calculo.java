@@ -1,15 +1,17 @@
 package colectivo.negocio;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import colectivo.constantes.Constantes;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Recorrido;
 import colectivo.modelo.Tramo;
-import colectivo.util.Util;
+import colectivo.negocio.TablaTrasbordos.Trasbordo;
+import colectivo.util.MapaTramos;
+import colectivo.util.Tiempo;
 
 
 
@@ -24,13 +26,65 @@ public class Calculo {
 
     private static final org.apache.logging.log4j.Logger LOGGER = org.apache.logging.log4j.LogManager.getLogger(Calculo.class.getName());
     private Map<String, Object> datosEnMemoria;
+    /** Motor alternativo de búsqueda. Si es {@code null} se usa el algoritmo original. */
+    private MotorRecorridos motor;
+    /** Motor de consultas por franja horaria. */
+    private CalculoPerfil perfil;
+    /** Motor de consultas "llegar antes de". */
+    private CalculoRaptorInverso inverso;
+    /** Motor de llegadas de uno a todos, para las isócronas. */
+    private CalculoCSA llegadas;
+    /** Puntos de trasbordo entre líneas, para la búsqueda de conexiones del algoritmo original. */
+    private final TablaTrasbordos tablaTrasbordos = new TablaTrasbordos();
     public Calculo(){}
     public Calculo(Map<String, Object> datosEnMemoria){
         this();
         this.datosEnMemoria = datosEnMemoria;
+        // Los trasbordos se calculan al cargar los datos y no en cada consulta
+        if (datosEnMemoria != null && datosEnMemoria.get(Constantes.LINEA) instanceof Map<?, ?> lineas) {
+            @SuppressWarnings("unchecked")
+            Map<String, Linea> porCodigo = (Map<String, Linea>) lineas;
+            tablaTrasbordos.precalcular(porCodigo.values());
+        }
         LOGGER.info("Datos en memoria inicializados.");
     }
 
+    public MotorRecorridos getMotor() {
+        return motor;
+    }
+
+    /**
+     * Reemplaza el algoritmo original por otro motor de búsqueda.
+     * @param motor motor a utilizar, o {@code null} para volver al algoritmo original
+     */
+    public void setMotor(MotorRecorridos motor) {
+        this.motor = motor;
+    }
+
+    public CalculoPerfil getPerfil() {
+        return perfil;
+    }
+
+    public void setPerfil(CalculoPerfil perfil) {
+        this.perfil = perfil;
+    }
+
+    public CalculoRaptorInverso getInverso() {
+        return inverso;
+    }
+
+    public void setInverso(CalculoRaptorInverso inverso) {
+        this.inverso = inverso;
+    }
+
+    public CalculoCSA getLlegadas() {
+        return llegadas;
+    }
+
+    public void setLlegadas(CalculoCSA llegadas) {
+        this.llegadas = llegadas;
+    }
+
     private Map<String, Tramo> getTramos() {
         return (Map<String, Tramo>) datosEnMemoria.get("tramos");
     }
@@ -77,48 +131,116 @@ public class Calculo {
             LOGGER.error("calcularRecorrido: Parámetros inválidos para el cálculo de recorridos.");
             return listaRecorridos;
         }
+        if(motor != null){
+            return motor.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, tramos);
+        }
+        // Desde acá las horas son segundos desde el inicio del día de servicio
+        return buscarRecorridos(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada.toSecondOfDay(), tramos, null);
+    }
+
+    /**
+     * Calcula los mejores viajes entre una parada origen y una parada destino según un
+     * criterio de orden. Con el algoritmo original se descartan durante la búsqueda las
+     * combinaciones que ya no pueden superar al k-ésimo mejor viaje; con un motor se
+     * ordenan sus resultados.
+     *
+     * @param paradaOrigen     Parada donde inicia el viaje
+     * @param paradaDestino    Parada donde termina el viaje
+     * @param diaSemana        Día de la semana (para determinar frecuencias)
+     * @param horaLlegaParada  Hora en que el pasajero llega a la parada
+     * @param tramos           Mapa de tramos (clave: "codigoOrigen-codigoDestino")
+     * @param cantidad         Cantidad máxima de viajes a devolver
+     * @param criterio         Criterio de orden (ver {@link MejoresRecorridos})
+     * @return Hasta {@code cantidad} viajes, del mejor al peor
+     */
+    public List<List<Recorrido>> calcularMejoresRecorridos(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos,
+            int cantidad,
+            String criterio) {
+        if(!validarParametros(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, tramos)){
+            LOGGER.error("calcularMejoresRecorridos: Parámetros inválidos para el cálculo de recorridos.");
+            return new ArrayList<>();
+        }
+        MejoresRecorridos mejores;
+        try {
+            mejores = new MejoresRecorridos(cantidad, criterio, horaLlegaParada.toSecondOfDay());
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("calcularMejoresRecorridos: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        if(motor != null){
+            mejores.agregarTodos(motor.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, tramos));
+            return mejores.getMejores();
+        }
+        return buscarRecorridos(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada.toSecondOfDay(), tramos, mejores);
+    }
+
+    /**
+     * Algoritmo original: recorridos directos; si no hay, con una conexión; si tampoco,
+     * con una conexión caminando.
+     *
+     * @param hora    Hora de llegada a la parada, en segundos desde el inicio del día de servicio
+     * @param mejores Si no es {@code null}, solo se conservan los mejores viajes y se
+     *                descartan las combinaciones que no pueden entrar entre ellos
+     */
+    private List<List<Recorrido>> buscarRecorridos(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            int hora,
+            Map<String, Tramo> tramos,
+            MejoresRecorridos mejores) {
+        List<List<Recorrido>> listaRecorridos = new ArrayList<>();
 
         // Iteramos sobre las líneas que pasan por la parada de origen
         for (Linea l1 : paradaOrigen.getLineas()) {
             // Si la línea también pasa por la parada destino Y el índice del destino es mayor
             // que el índice del origen (es decir, la dirección es correcta)
-            List<Parada> paradasLinea = l1.getParadas();
-            int idxOrigen = paradasLinea.indexOf(paradaOrigen);
-            int idxDestino = paradasLinea.indexOf(paradaDestino);
+            int idxOrigen = l1.getPosicion(paradaOrigen);
+            int idxDestino = l1.getPosicion(paradaDestino);
             if (idxDestino > idxOrigen) {
-                Recorrido recorrido = crearRecorrido(l1, paradaOrigen, paradaDestino, tramos, diaSemana, horaLlegaParada);
+                Pasada pasada = crearPasada(l1, paradaOrigen, paradaDestino, tramos, diaSemana, hora);
 
                 // Solo se agrega si el recorrido es válido
-                if (recorrido != null) {
+                if (pasada != null) {
                     List<Recorrido> recorridos = new ArrayList<>();
-                    recorridos.add(recorrido);
-                    listaRecorridos.add(recorridos);
+                    recorridos.add(pasada.aRecorrido());
+                    agregar(listaRecorridos, mejores, recorridos);
                 }
             }
 
         }
         //? ========== Recorridos con Conexiones ==========
-        if(listaRecorridos.isEmpty()){
+        if(sinResultados(listaRecorridos, mejores)){
             buscarConexiones(
                 paradaOrigen, 
                 paradaDestino, 
                 diaSemana, 
-                horaLlegaParada, 
+                hora, 
                 tramos, 
-                listaRecorridos);
+                listaRecorridos,
+                mejores);
         }
         
         //? ========== Recorridos con Caminando ==========
 
-        if(listaRecorridos.isEmpty()){
+        if(sinResultados(listaRecorridos, mejores)){
             
             buscarConexionesCaminando(
                                     paradaOrigen, 
                                     paradaDestino, 
                                     diaSemana, 
-                                    horaLlegaParada, 
+                                    hora, 
                                     tramos, 
-                                    listaRecorridos);
+                                    listaRecorridos,
+                                    mejores);
+        }
+        if(mejores != null){
+            listaRecorridos = mejores.getMejores();
         }
         if(listaRecorridos.isEmpty()){
             LOGGER.info("No se encontraron recorridos entre las paradas indicadas.");
@@ -128,6 +250,103 @@ public class Calculo {
         return listaRecorridos;
     }
 
+    /** Agrega una combinación al resultado, o a los mejores si se piden solo los mejores. */
+    private static void agregar(List<List<Recorrido>> resultados, MejoresRecorridos mejores, List<Recorrido> combinacion) {
+        if (mejores == null) {
+            resultados.add(combinacion);
+        } else {
+            mejores.agregar(combinacion);
+        }
+    }
+
+    private static boolean sinResultados(List<List<Recorrido>> resultados, MejoresRecorridos mejores) {
+        return mejores == null ? resultados.isEmpty() : mejores.tamanio() == 0;
+    }
+
+    /**
+     * Calcula todos los viajes óptimos entre dos paradas que salen dentro de una franja horaria.
+     * Las etiquetas se reutilizan entre una hora de salida y la siguiente, en lugar de
+     * calcular un recorrido por cada minuto de la franja.
+     *
+     * @param paradaOrigen  Parada donde inicia el viaje
+     * @param paradaDestino Parada donde termina el viaje
+     * @param diaSemana     Día de la semana (para determinar frecuencias)
+     * @param desde         Primera hora de salida
+     * @param hasta         Última hora de salida (inclusive)
+     * @return Lista de viajes ordenados por hora de salida
+     */
+    public List<List<Recorrido>> calcularPerfil(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime desde,
+            LocalTime hasta) {
+        if(!validarParadas(paradaOrigen, paradaDestino) || !validarDiaSemana(diaSemana)
+                || !validarHoraLlegada(desde) || !validarHoraLlegada(hasta) || desde.isAfter(hasta)){
+            LOGGER.error("calcularPerfil: Parámetros inválidos para el cálculo de recorridos.");
+            return new ArrayList<>();
+        }
+        if(perfil == null){
+            LOGGER.error("calcularPerfil: No hay un motor de consultas por franja horaria configurado.");
+            return new ArrayList<>();
+        }
+        return perfil.calcularPerfil(paradaOrigen, paradaDestino, diaSemana, desde, hasta);
+    }
+
+    /**
+     * Calcula los recorridos que salen lo más tarde posible del origen y llegan al destino
+     * antes de una hora límite. Se busca hacia atrás desde el destino, en lugar de repetir
+     * búsquedas hacia adelante con horas de salida cada vez más tempranas.
+     *
+     * @param paradaOrigen  Parada donde inicia el viaje
+     * @param paradaDestino Parada donde termina el viaje
+     * @param diaSemana     Día de la semana (para determinar frecuencias)
+     * @param horaLimite    Hora máxima de llegada al destino
+     * @return Lista de viajes, de menos a más trasbordos
+     */
+    public List<List<Recorrido>> calcularRecorridoLlegada(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLimite) {
+        if(!validarParadas(paradaOrigen, paradaDestino) || !validarDiaSemana(diaSemana) || !validarHoraLlegada(horaLimite)){
+            LOGGER.error("calcularRecorridoLlegada: Parámetros inválidos para el cálculo de recorridos.");
+            return new ArrayList<>();
+        }
+        if(inverso == null){
+            LOGGER.error("calcularRecorridoLlegada: No hay un motor de búsqueda inversa configurado.");
+            return new ArrayList<>();
+        }
+        return inverso.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLimite);
+    }
+
+    /**
+     * Calcula el tiempo de viaje desde una parada hasta todas las demás en una sola búsqueda,
+     * en lugar de calcular un recorrido hacia cada parada.
+     *
+     * @param paradaOrigen     Parada donde inicia el viaje
+     * @param diaSemana        Día de la semana (para determinar frecuencias)
+     * @param horaLlegaParada  Hora en que el pasajero llega a la parada
+     * @return la isócrona desde el origen, o {@code null} si los parámetros son inválidos
+     */
+    public Isocrona calcularIsocrona(
+            Parada paradaOrigen,
+            int diaSemana,
+            LocalTime horaLlegaParada) {
+        if(paradaOrigen == null || !validarDiaSemana(diaSemana) || !validarHoraLlegada(horaLlegaParada)){
+            LOGGER.error("calcularIsocrona: Parámetros inválidos para el cálculo de la isócrona.");
+            return null;
+        }
+        if(llegadas == null){
+            LOGGER.error("calcularIsocrona: No hay un motor de llegadas de uno a todos configurado.");
+            return null;
+        }
+        Isocrona isocrona = new Isocrona(paradaOrigen, diaSemana, horaLlegaParada,
+                llegadas.calcularLlegadas(paradaOrigen, diaSemana, horaLlegaParada));
+        LOGGER.info("Isócrona desde " + paradaOrigen.getCodigo() + ": " + isocrona.getTiempos().size() + " paradas alcanzables");
+        return isocrona;
+    }
+
     // ==============================
     // BÚSQUEDA DE CONEXIONES
     // ==============================
@@ -137,78 +356,81 @@ public class Calculo {
      * 
      * Ejemplo: Línea A lleva de origen a parada intermedia, y Línea B conecta desde esa
      * parada intermedia hasta el destino.
+     *
+     * Solo se prueban las paradas de la tabla de trasbordos: en el resto de las paradas
+     * posteriores al origen no pasa ninguna otra línea.
      */
     private void buscarConexiones(
         Parada origen,
         Parada destino,
         int diaSemana,
-        LocalTime horaLlegada,
+        int horaLlegada,
         Map<String, Tramo> tramos,
-        List<List<Recorrido>> resultados) {
-        // boolean recorridoEncontrado = false;
+        List<List<Recorrido>> resultados,
+        MejoresRecorridos mejores) {
         for (Linea primeraLinea : origen.getLineas()) {
-            int indexOrigen = primeraLinea.getParadas().indexOf(origen);
-            List<Parada> paradasLinea1 = primeraLinea.getParadas().subList(indexOrigen + 1, primeraLinea.getParadas().size());
-            
-            // Cada parada posterior al origen es candidata a ser punto de transbordo
-            for (Parada paradaConexion : paradasLinea1) {
-                boolean trasbordoEncontrado = false;
+            Trasbordo[] trasbordos = tablaTrasbordos.directos(primeraLinea);
+            int i = TablaTrasbordos.primeroDespues(trasbordos, primeraLinea.getPosicion(origen));
 
-                // Primer tramo del viaje (origen → conexión)
-                Recorrido recorrido1 = crearRecorrido(
-                            primeraLinea,
-                            origen, 
-                            paradaConexion, 
-                            tramos, 
-                            diaSemana, 
-                            horaLlegada);
-
-                if (recorrido1 != null) {
-
-                    // Buscamos una segunda línea que conecte la parada intermedia con el destino
-                    for (Linea segundaLinea : paradaConexion.getLineas()) {
-                        if (!segundaLinea.equals(primeraLinea)) {
-                            if (segundaLinea.getParadas().contains(destino)) {
-                                int indexIntermedia = segundaLinea.getParadas().indexOf(paradaConexion);
-                                int indexDestino = segundaLinea.getParadas().indexOf(destino);
-
-                                // Verifica que el destino esté después de la parada de conexión
-                                if (indexIntermedia < indexDestino) {
-                                    // El segundo tramo comienza al llegar al punto de conexión
-                                    LocalTime horaInicioSegundaParte = recorrido1.getHoraSalida().plusSeconds(recorrido1.getDuracion());
-                                    Recorrido recorrido2 = crearRecorrido(
-                                            segundaLinea,
-                                            paradaConexion,
-                                            destino,
-                                            tramos,
-                                            diaSemana,
-                                            horaInicioSegundaParte);
-
-                                    if (recorrido2 != null) {
-                                        List<Recorrido> combinacion = new ArrayList<>();
-                                        combinacion.add(recorrido1);
-                                        combinacion.add(recorrido2);
-                                        resultados.add(combinacion);
-                                        trasbordoEncontrado = true;
-                                        // recorridoEncontrado = true;
-                                        break;
-                                    }
-                                }
-                            }
+            // Cada parada posterior al origen con trasbordo es candidata a ser punto de conexión
+            while (i < trasbordos.length) {
+                Parada paradaConexion = trasbordos[i].getParada();
+                int fin = i;
+                while (fin < trasbordos.length && trasbordos[fin].getPosicion() == trasbordos[i].getPosicion()) fin++;
+
+                // Primer tramo del viaje (origen → conexión), solo si alguna línea sirve
+                Pasada pasada1 = null;
+                boolean trasbordoEncontrado = false;
+                boolean descartada = false;
+                for (int j = i; j < fin; j++) {
+                    Linea segundaLinea = trasbordos[j].getLinea();
+                    int indexDestino = segundaLinea.getPosicion(destino);
+
+                    // Verifica que el destino esté después de la parada de conexión
+                    if (indexDestino < 0 || trasbordos[j].getPosicionLinea() >= indexDestino) continue;
+
+                    if (pasada1 == null) {
+                        pasada1 = crearPasada(primeraLinea, origen, paradaConexion, tramos, diaSemana, horaLlegada);
+                        if (pasada1 == null) break;
+                        // Las conexiones siguientes de esta línea llegan aún más tarde
+                        if (mejores != null && mejores.descartable(pasada1.llegada(), pasada1.duracion, 1)) {
+                            descartada = true;
+                            break;
                         }
                     }
-                    // El primer trasbordo que se encuentra en el que se agrega
-                    if (trasbordoEncontrado) {
+                    // El segundo tramo comienza al llegar al punto de conexión
+                    Pasada pasada2 = crearPasada(
+                            segundaLinea,
+                            paradaConexion,
+                            destino,
+                            tramos,
+                            diaSemana,
+                            pasada1.llegada());
+
+                    // Los recorridos se arman solo para la combinación que se devuelve
+                    if (pasada2 != null) {
+                        List<Recorrido> combinacion = new ArrayList<>();
+                        combinacion.add(pasada1.aRecorrido());
+                        combinacion.add(pasada2.aRecorrido());
+                        agregar(resultados, mejores, combinacion);
+                        trasbordoEncontrado = true;
                         break;
                     }
-                    
-
                 }
+                // El primer trasbordo que se encuentra en el que se agrega
+                if (trasbordoEncontrado || descartada) {
+                    break;
+                }
+                i = fin;
             }
         }
-        // return recorridoEncontrado;
     }
 
+    /**
+     * Busca recorridos con una conexión caminando: Línea A hasta una parada, caminata a
+     * una parada vecina y Línea B hasta el destino. Como en {@link #buscarConexiones},
+     * solo se prueban los puntos de la tabla de trasbordos.
+     */
     public void buscarConexionesCaminando(
         Parada origen,
         Parada destino,
@@ -216,54 +438,75 @@ public class Calculo {
         LocalTime horaLlegada,
         Map<String, Tramo> tramos,
         List<List<Recorrido>> resultados){
+            buscarConexionesCaminando(origen, destino, diaSemana, horaLlegada.toSecondOfDay(), tramos, resultados, null);
+        }
+
+    private void buscarConexionesCaminando(
+        Parada origen,
+        Parada destino,
+        int diaSemana,
+        int horaLlegada,
+        Map<String, Tramo> tramos,
+        List<List<Recorrido>> resultados,
+        MejoresRecorridos mejores){
             for (Linea primeraLinea : origen.getLineas()) {
-                int indexOrigen = primeraLinea.getParadas().indexOf(origen);
-                List<Parada> paradasLinea1 = primeraLinea.getParadas().subList(indexOrigen + 1, primeraLinea.getParadas().size());
+                Trasbordo[] trasbordos = tablaTrasbordos.caminando(primeraLinea);
+                int i = TablaTrasbordos.primeroDespues(trasbordos, primeraLinea.getPosicion(origen));
 
-                // Cada parada posterior al origen es candidata a ser punto de transbordo
-                for (Parada paradaConexion : paradasLinea1) {
-                    boolean trasbordoEncontrado = false;
+                // Cada parada posterior al origen con vecinas es candidata a ser punto de conexión
+                while (i < trasbordos.length) {
+                    Parada paradaConexion = primeraLinea.getParadas().get(trasbordos[i].getPosicion());
+                    int fin = i;
+                    while (fin < trasbordos.length && trasbordos[fin].getPosicion() == trasbordos[i].getPosicion()) fin++;
 
-                    // Primer tramo del viaje (origen → conexión)
-                    Recorrido recorrido1 = crearRecorrido(primeraLinea,origen, paradaConexion, tramos, diaSemana, horaLlegada);
-                    if(recorrido1 != null){
-
-                        for(Parada paradaCaminando : paradaConexion.getParadaCaminando()){
-                            for(Linea segundaLinea:paradaCaminando.getLineas()){
-                                if(segundaLinea.getParadas().contains(destino)){
-                                    
-                                    LocalTime horaInicioSegundaParte = recorrido1.getHoraSalida().plusSeconds(recorrido1.getDuracion());
-                                    Tramo t = tramos.get(Util.claveTramo(paradaConexion, paradaCaminando));
-                                    
-                                    Recorrido recorrido2 = new Recorrido(null, List.of(t.getInicio(),t.getFin()), horaInicioSegundaParte, t.getTiempo());
-                                    
-                                    int indexIntermedia = segundaLinea.getParadas().indexOf(t.getFin());
-                                    int indexDestino = segundaLinea.getParadas().indexOf(destino);
-                                    if(recorrido2 != null){
-                                        if (indexIntermedia < indexDestino) {
-                                            // El segundo tramo comienza al llegar al punto de conexión
-                                            LocalTime horaInicioTerceraParte = recorrido2.getHoraSalida().plusSeconds(recorrido2.getDuracion());
-                                            Recorrido recorrido3 = crearRecorrido( segundaLinea,t.getFin(),destino,tramos,diaSemana,horaInicioTerceraParte);
-
-                                            
-                                            if (recorrido2 != null) {
-                                                List<Recorrido> combinacion = new ArrayList<>();
-                                                combinacion.add(recorrido1);
-                                                combinacion.add(recorrido2);
-                                                combinacion.add(recorrido3);
-                                                resultados.add(combinacion);
-                                                trasbordoEncontrado = true;
-                                                break;
-                                            }   
-                                        }
-                                    }
-                                }
+                    Pasada pasada1 = null;
+                    boolean trasbordoEncontrado = false;
+                    boolean descartada = false;
+                    // Una combinación como máximo por cada parada vecina
+                    int vecinaResuelta = -1;
+                    for (int j = i; j < fin; j++) {
+                        Parada paradaCaminando = trasbordos[j].getParada();
+                        if (trasbordos[j].getVecina() == vecinaResuelta) continue;
+                        Linea segundaLinea = trasbordos[j].getLinea();
+                        int indexDestino = segundaLinea.getPosicion(destino);
+                        if (indexDestino < 0) continue;
+
+                        // Primer tramo del viaje (origen → conexión), solo si alguna línea sirve
+                        if (pasada1 == null) {
+                            pasada1 = crearPasada(primeraLinea, origen, paradaConexion, tramos, diaSemana, horaLlegada);
+                            if (pasada1 == null) break;
+                            // Las conexiones siguientes de esta línea llegan aún más tarde
+                            if (mejores != null && mejores.descartable(pasada1.llegada(), pasada1.duracion, 1)) {
+                                descartada = true;
+                                break;
                             }
                         }
-                        if (trasbordoEncontrado) {
-                            break;
+                        Tramo t = MapaTramos.buscar(tramos, paradaConexion, paradaCaminando);
+                        if (t == null) continue;
+
+                        if (trasbordos[j].getPosicionLinea() < indexDestino) {
+                            int horaInicioSegundaParte = pasada1.llegada();
+
+                            // El tercer tramo comienza al llegar caminando a la parada vecina
+                            int horaInicioTerceraParte = horaInicioSegundaParte + t.getTiempo();
+                            Pasada pasada3 = crearPasada( segundaLinea,t.getFin(),destino,tramos,diaSemana,horaInicioTerceraParte);
+                            // Sin colectivo desde la vecina no hay viaje; otra línea de la misma vecina puede servir
+                            if (pasada3 == null) continue;
+
+                            Recorrido recorrido2 = new Recorrido(null, List.of(t.getInicio(),t.getFin()), Tiempo.aHora(horaInicioSegundaParte), t.getTiempo());
+                            List<Recorrido> combinacion = new ArrayList<>();
+                            combinacion.add(pasada1.aRecorrido());
+                            combinacion.add(recorrido2);
+                            combinacion.add(pasada3.aRecorrido());
+                            agregar(resultados, mejores, combinacion);
+                            trasbordoEncontrado = true;
+                            vecinaResuelta = trasbordos[j].getVecina();
                         }
                     }
+                    if (trasbordoEncontrado || descartada) {
+                        break;
+                    }
+                    i = fin;
                 }
             }
         }
@@ -272,72 +515,53 @@ public class Calculo {
     // ==============================
     
     /**
-     * Crea un recorrido entre una parada origen y una destino dentro de una línea,
+     * Busca el viaje en colectivo entre una parada origen y una destino dentro de una línea,
      * considerando los tramos, las frecuencias y la hora de llegada del pasajero.
+     * Devuelve solo las posiciones y horas del viaje: la lista de paradas del
+     * {@link Recorrido} se arma recién con {@link Pasada#aRecorrido()}, y solo para los
+     * viajes que se devuelven.
      *
      * @param linea             Línea a evaluar
      * @param origen            Parada de origen
      * @param destino           Parada de destino
      * @param tramos            Mapa de tramos
      * @param diaSemana         Día de la semana (para obtener frecuencias)
-     * @param horaLLegadaParada Hora en que el pasajero llega a la parada
-     * @return Objeto Recorrido con paradas, hora de salida y duración
+     * @param horaLLegadaParada Hora en que el pasajero llega a la parada, en segundos desde el
+     *                          inicio del día de servicio
+     * @return Pasada con línea, posiciones, hora de salida y duración, o {@code null} si no hay
      */
-    private Recorrido crearRecorrido(
+    private Pasada crearPasada(
             Linea linea,
             Parada origen,
             Parada destino,
             Map<String, Tramo> tramos,
             int diaSemana,
-            LocalTime horaLlegadaParada) {
+            int horaLlegadaParada) {
 
         if(origen.equals(destino)) return null;
 
-        List<Parada> paradasRecorridas = new ArrayList<>();
-        int duracionViaje = 0;
-        boolean enTramo = false;
-
-        Iterator<Parada> i = linea.getParadas().iterator();
-        if (!i.hasNext()) return null;
+        int desde = linea.getPosicion(origen);
+        int hasta = linea.getPosicion(destino);
 
-        Parada anterior = i.next();
-        while (i.hasNext()) {
-            Parada actual = i.next();
-            Tramo t = tramos.get(Util.claveTramo(anterior, actual));
+        // El origen debe estar en la línea y el destino después del origen
+        if (desde < 0 || hasta <= desde) return null;
 
-            if (t == null) {
-                LOGGER.error("crearRecorrido: Tramo inexistente entre las paradas: " + anterior.getCodigo() + " y " + actual.getCodigo());
-                return null;
-            }
-            // Activamos el tramo cuando llegamos a la parada de origen
-            if (anterior.equals(origen)) {
-                enTramo = true;
-                paradasRecorridas.add(anterior); // se agrega solo una vez la parada de origen
-            }
-
-            // Si estamos en tramo, acumulamos duración y agregamos las paradas
-            if (enTramo) {
-                duracionViaje += t.getTiempo();
-                paradasRecorridas.add(actual);
-            }
-
-            // Si llegamos al destino, terminamos el recorrido
-            if (actual.equals(destino)) break;
-            
-            anterior = actual;
+        int[] tiempos = linea.getTiemposAcumulados(tramos);
+        if (tiempos == null) {
+            LOGGER.error("crearPasada: Faltan tramos para recorrer la línea " + linea.getCodigo());
+            return null;
         }
 
-        // Si no se encontró una conexión válida, no hay recorrido
-        if (paradasRecorridas.isEmpty()) return null;
+        // La duración entre dos posiciones es la diferencia de sus tiempos acumulados
+        int duracionViaje = tiempos[hasta] - tiempos[desde];
 
         // Calcular hora de salida según la frecuencia más próxima
-		LocalTime horaSalida = obtenerProximaHoraDePaso(linea, origen, tramos, diaSemana, horaLlegadaParada);
+		int horaSalida = obtenerProximaHoraDePaso(linea, origen, tramos, diaSemana, horaLlegadaParada);
         
         // No hay frecuencias para el horario de llegada
-        if(horaSalida == null) return null;
+        if(horaSalida < 0) return null;
 
-        // Crear objeto Recorrido con todos los datos calculados
-        return new Recorrido(linea, paradasRecorridas, horaSalida, duracionViaje);
+        return new Pasada(linea, desde, hasta, horaSalida, duracionViaje);
     }
 
 	/**
@@ -350,32 +574,34 @@ public class Calculo {
      * @param origen           Parada en la que se encuentra el pasajero
      * @param tramos           Mapa de tramos (clave: "codigoOrigen-codigoDestino")
      * @param diaSemana        Día de la semana (para obtener las frecuencias correspondientes)
-     * @param horaLlegaParada  Hora en que el pasajero llega a la parada
-     * @return La próxima hora en que la línea pasa por la parada de origen,
-     *         o {@code null} si no hay frecuencias disponibles después de la hora indicada
+     * @param horaLlegaParada  Hora en que el pasajero llega a la parada, en segundos desde el
+     *                         inicio del día de servicio
+     * @return La próxima hora en que la línea pasa por la parada de origen, en segundos desde el
+     *         inicio del día de servicio (puede pasar de 24 h si el colectivo salió antes de
+     *         medianoche), o -1 si no hay frecuencias disponibles después de la hora indicada
      */
-    private LocalTime obtenerProximaHoraDePaso(
+    private int obtenerProximaHoraDePaso(
             Linea linea,
             Parada origen,
             Map<String, Tramo> tramos,
             int diaSemana,
-            LocalTime horaLlegaParada) {
+            int horaLlegaParada) {
 
         int tiempoDesdeInicio = calcularTiempoDesdeInicio( origen, linea, tramos );
-        // Recorremos los horarios de salida de la línea para ese día
-        for (LocalTime horario : linea.getFrecuencias(diaSemana)) {
-            LocalTime horaPasoPorOrigen = horario.plusSeconds(tiempoDesdeInicio);
-            if (!horaPasoPorOrigen.isBefore(horaLlegaParada)) {
-                return horaPasoPorOrigen; // Este es el horario de salida desde el inicio de línea
-            }
-        }
+        // Buscamos (por búsqueda binaria) la primera salida desde el inicio de línea
+        // que pase por el origen a la hora de llegada del pasajero o después
+        int salida = linea.getProximaSalida(diaSemana, horaLlegaParada - tiempoDesdeInicio);
+
+        // Si no hay frecuencias posteriores devolvemos -1. Un colectivo que salió antes de
+        // medianoche y pasa por el origen después sigue siendo válido.
+        if (salida < 0) return -1;
 
-        // Si no hay frecuencias posteriores, devolvemos null
-        return null;
+        return salida + tiempoDesdeInicio;
     }
     /**
      * Calcula el tiempo total en segundos desde el inicio de la línea hasta la parada de origen.
      * Se utiliza para determinar la hora en la que un colectivo pasa por dicha parada.
+     * Se obtiene de los tiempos acumulados de la línea, sin recorrer sus tramos.
      *
      * @param origen  Parada desde donde se inicia el cálculo
      * @param linea         Línea a evaluar
@@ -386,21 +612,9 @@ public class Calculo {
         Parada destino,
         Linea linea,
         Map<String, Tramo> tramos) {
-        List<Parada> paradas = linea.getParadas();
-        int tiempoAcumulado = 0;
-
-        for (int i = 0; i < paradas.size() - 1; i++) {
-            Parada actual = paradas.get(i);
-            Parada siguiente = paradas.get(i + 1);
-            
-            // Si la parada actual es igual a la de destino no se debe acumular ningun segundo
-            if (actual.equals(destino)) break;
-
-            tiempoAcumulado += tramos.get(Util.claveTramo(actual, siguiente)).getTiempo();
-            
-            // Si la parada siguiente es igual a la de destino, no se debe acumular mas segundos
-            if(siguiente.equals(destino)) break;
-        }
+        int posicion = linea.getPosicion(destino);
+        int[] tiempos = linea.getTiemposAcumulados(tramos);
+        int tiempoAcumulado = (posicion < 0 || tiempos == null) ? 0 : tiempos[posicion];
 
         return tiempoAcumulado;
     }
@@ -443,4 +657,41 @@ public class Calculo {
             }
             return true;
     }
+
+    /**
+     * Viaje en colectivo candidato: línea, posiciones de subida y bajada, y hora de salida en
+     * segundos desde el inicio del día de servicio. Es lo único que se guarda mientras se
+     * prueban combinaciones; la mayoría se descarta sin llegar a armar su {@link Recorrido}.
+     */
+    private static final class Pasada {
+        private final Linea linea;
+        private final int subida;
+        private final int bajada;
+        private final int salida;
+        private final int duracion;
+        /** Recorrido ya armado, si se pidió; el mismo tramo puede formar parte de varias combinaciones. */
+        private Recorrido recorrido;
+
+        Pasada(Linea linea, int subida, int bajada, int salida, int duracion) {
+            this.linea = linea;
+            this.subida = subida;
+            this.bajada = bajada;
+            this.salida = salida;
+            this.duracion = duracion;
+        }
+
+        /** Hora de llegada a la parada de bajada; puede pasar de 24 h. */
+        int llegada() {
+            return salida + duracion;
+        }
+
+        /** Arma el recorrido con la lista de paradas; la hora pasa a {@link LocalTime} solo acá. */
+        Recorrido aRecorrido() {
+            if (recorrido == null) {
+                List<Parada> paradas = new ArrayList<>(linea.getParadas().subList(subida, bajada + 1));
+                recorrido = new Recorrido(linea, paradas, Tiempo.aHora(salida), duracion);
+            }
+            return recorrido;
+        }
+    }
 }
@@ -0,0 +1,320 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.util.Tiempo;
+import colectivo.util.Util;
+
+/**
+ * Clase CalculoAEstrella
+ * ------------------------
+ * Motor de recorridos basado en A* dependiente del tiempo sobre el grafo de paradas.
+ *
+ * Desde cada parada se puede tomar el próximo colectivo de cada línea que pasa por ella
+ * y bajar en cualquiera de las paradas siguientes, o caminar hasta una parada vecina.
+ * Como en los demás motores, no se encadenan dos caminatas seguidas: cada parada tiene
+ * dos estados, según se haya llegado en colectivo o caminando.
+ *
+ * Las paradas se exploran en orden de hora de llegada más una cota inferior del tiempo
+ * que falta: la distancia en línea recta hasta el destino dividida por la velocidad
+ * máxima observada en los tramos de la red. Así la búsqueda avanza hacia el destino
+ * y no explora toda la red. La cota nunca sobreestima, por lo que el resultado es el
+ * mismo viaje de llegada más temprana que devuelve {@link CalculoCSA}.
+ */
+public class CalculoAEstrella implements MotorRecorridos {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoAEstrella.class.getName());
+
+    private static final int INFINITO = Integer.MAX_VALUE;
+
+    /** Estados de cada parada: se llegó en colectivo (o es el origen), o se llegó caminando. */
+    private static final int EN_COLECTIVO = 0;
+    private static final int CAMINANDO = 1;
+
+    private final RedCompilada red;
+
+    /** Velocidad máxima observada en la red, en metros por segundo; infinita si no hay cota útil. */
+    private final double velocidadMaxima;
+
+    /** Estado de consulta de cada hilo. */
+    private final ThreadLocal<Busqueda> busquedas = ThreadLocal.withInitial(Busqueda::new);
+
+    public CalculoAEstrella(RedCompilada red) {
+        this.red = red;
+        this.velocidadMaxima = calcularVelocidadMaxima();
+        LOGGER.info("A*: velocidad máxima de la red " + String.format("%.1f", velocidadMaxima * 3.6) + " km/h");
+    }
+
+    /**
+     * Mayor cociente distancia / tiempo entre paradas consecutivas de las líneas y
+     * entre paradas vecinas caminando. Si algún tramo con distancia no tiene tiempo,
+     * no hay cota posible y la heurística queda en cero (búsqueda de Dijkstra).
+     */
+    private double calcularVelocidadMaxima() {
+        double maxima = 0;
+        for (int l = 0; l < red.cantidadLineas(); l++) {
+            for (int i = 0; i + 1 < red.largo(l); i++) {
+                maxima = Math.max(maxima, velocidad(red.parada(l, i), red.parada(l, i + 1),
+                        red.tiempo(l, i + 1) - red.tiempo(l, i)));
+            }
+        }
+        for (int p = 0; p < red.cantidadParadas(); p++) {
+            for (int c = red.inicioCaminando(p); c < red.finCaminando(p); c++) {
+                maxima = Math.max(maxima, velocidad(p, red.vecinoCaminando(c), red.tiempoCaminando(c)));
+            }
+        }
+        return maxima;
+    }
+
+    private double velocidad(int p, int q, int segundos) {
+        double metros = Util.distancia(red.getParada(p), red.getParada(q));
+        if (segundos <= 0) return metros > 0 ? Double.POSITIVE_INFINITY : 0;
+        return metros / segundos;
+    }
+
+    @Override
+    public List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || origen == destino || !RedCompilada.diaValido(diaSemana)) {
+            return resultados;
+        }
+
+        Busqueda busqueda = busquedas.get();
+        busqueda.preparar(destino, diaSemana);
+        int nodo = busqueda.ejecutar(origen, horaLlegaParada.toSecondOfDay());
+        if (nodo >= 0) {
+            resultados.add(busqueda.reconstruir(nodo));
+        }
+        LOGGER.info("A*: " + busqueda.explorados + " nodos explorados entre "
+                + paradaOrigen.getCodigo() + " y " + paradaDestino.getCodigo());
+        return resultados;
+    }
+
+    // ==============================
+    // ESTADO DE UNA BÚSQUEDA
+    // ==============================
+
+    /**
+     * Estado de una consulta. El nodo de la parada p en el estado e es {@code 2 * p + e}.
+     * Se crea uno por hilo y se reutiliza: {@link #preparar} vuelve a su valor inicial solo
+     * los nodos que abrió la consulta anterior.
+     */
+    private final class Busqueda {
+
+        private int destino;
+        private int diaSemana;
+        private double latitudDestino;
+        private double longitudDestino;
+
+        private final int[] llegada;
+        private final boolean[] cerrado;
+        /** Nodo desde el que se llegó, y línea, viaje y posiciones de subida y bajada si fue en colectivo. */
+        private final int[] padre;
+        private final int[] linea;
+        private final int[] viaje;
+        private final int[] subida;
+        private final int[] bajada;
+        /** Cota inferior de lo que falta hasta el destino, por parada; -1 si aún no se calculó. */
+        private final int[] cota;
+        /** Nodos abiertos en la consulta actual; la cota se calcula solo para sus paradas. */
+        private final IndicesModificados modificados;
+
+        private final Monticulo abiertos = new Monticulo();
+        int explorados;
+
+        Busqueda() {
+            int n = red.cantidadParadas();
+            llegada = new int[2 * n];
+            cerrado = new boolean[2 * n];
+            padre = new int[2 * n];
+            linea = new int[2 * n];
+            viaje = new int[2 * n];
+            subida = new int[2 * n];
+            bajada = new int[2 * n];
+            cota = new int[n];
+            modificados = new IndicesModificados(2 * n);
+            Arrays.fill(llegada, INFINITO);
+            Arrays.fill(linea, -1);
+            Arrays.fill(cota, -1);
+        }
+
+        void preparar(int destino, int diaSemana) {
+            for (int k = 0; k < modificados.cantidad(); k++) {
+                int nodo = modificados.get(k);
+                llegada[nodo] = INFINITO;
+                cerrado[nodo] = false;
+                linea[nodo] = -1;
+                cota[nodo >> 1] = -1;
+            }
+            modificados.limpiar();
+            abiertos.vaciar();
+            explorados = 0;
+            this.destino = destino;
+            this.diaSemana = diaSemana;
+            latitudDestino = red.getParada(destino).getLatitud();
+            longitudDestino = red.getParada(destino).getLongitud();
+        }
+
+        /**
+         * @return nodo del destino alcanzado primero, o -1 si no se puede llegar
+         */
+        int ejecutar(int origen, int hora) {
+            int inicio = 2 * origen + EN_COLECTIVO;
+            modificados.agregar(inicio);
+            llegada[inicio] = hora;
+            padre[inicio] = -1;
+            abiertos.agregar(hora + cota(origen), inicio);
+
+            while (!abiertos.vacio()) {
+                int nodo = abiertos.quitar();
+                if (cerrado[nodo]) continue;
+                cerrado[nodo] = true;
+                explorados++;
+
+                int p = nodo >> 1;
+                if (p == destino) return nodo;
+                int t = llegada[nodo];
+
+                // Colectivos: se sube al próximo de cada línea y se puede bajar en cualquier parada siguiente
+                for (int e = red.inicioPasadas(p); e < red.finPasadas(p); e++) {
+                    int l = red.lineaPasada(e);
+                    int pos = red.posicionPasada(e);
+                    if (pos + 1 >= red.largo(l)) continue;
+                    int v = red.buscarSalida(l, diaSemana, t - red.tiempo(l, pos));
+                    if (v < 0) continue;
+                    int sale = red.salida(l, diaSemana, v);
+                    for (int i = pos + 1; i < red.largo(l); i++) {
+                        int siguiente = 2 * red.parada(l, i) + EN_COLECTIVO;
+                        // Si ya se subió antes a este mismo colectivo, el resto del recorrido ya se abrió
+                        if (linea[siguiente] == l && viaje[siguiente] == v && subida[siguiente] < pos) break;
+                        int arribo = sale + red.tiempo(l, i);
+                        if (arribo < llegada[siguiente]) {
+                            abrir(siguiente, arribo, nodo, l, v, pos, i);
+                        }
+                    }
+                }
+
+                // Caminando, solo si no se llegó caminando
+                if ((nodo & 1) == EN_COLECTIVO) {
+                    for (int c = red.inicioCaminando(p); c < red.finCaminando(p); c++) {
+                        int arribo = t + red.tiempoCaminando(c);
+                        int siguiente = 2 * red.vecinoCaminando(c) + CAMINANDO;
+                        if (arribo < llegada[siguiente]) {
+                            abrir(siguiente, arribo, nodo, -1, -1, -1, -1);
+                        }
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void abrir(int nodo, int arribo, int desde, int l, int v, int sube, int baja) {
+            modificados.agregar(nodo);
+            llegada[nodo] = arribo;
+            padre[nodo] = desde;
+            linea[nodo] = l;
+            viaje[nodo] = v;
+            subida[nodo] = sube;
+            bajada[nodo] = baja;
+            abiertos.agregar(arribo + cota(nodo >> 1), nodo);
+        }
+
+        /** Segundos mínimos para llegar de la parada al destino, según la velocidad máxima. */
+        private int cota(int p) {
+            if (cota[p] < 0) {
+                Parada parada = red.getParada(p);
+                double metros = Util.distancia(parada.getLatitud(), parada.getLongitud(), latitudDestino, longitudDestino);
+                cota[p] = velocidadMaxima == Double.POSITIVE_INFINITY || velocidadMaxima == 0
+                        ? 0 : (int) (metros / velocidadMaxima);
+            }
+            return cota[p];
+        }
+
+        /** Arma el viaje hasta el nodo indicado: cada nodo es un recorrido en colectivo o caminando. */
+        List<Recorrido> reconstruir(int nodo) {
+            List<Recorrido> viajeCompleto = new ArrayList<>();
+            for (int x = nodo; padre[x] >= 0; x = padre[x]) {
+                int l = linea[x];
+                if (l < 0) {
+                    int desde = padre[x] >> 1;
+                    viajeCompleto.add(new Recorrido(null, List.of(red.getParada(desde), red.getParada(x >> 1)),
+                            Tiempo.aHora(llegada[padre[x]]), llegada[x] - llegada[padre[x]]));
+                } else {
+                    int salida = red.salida(l, diaSemana, viaje[x]) + red.tiempo(l, subida[x]);
+                    viajeCompleto.add(new Recorrido(red.getLinea(l),
+                            new ArrayList<>(red.getLinea(l).getParadas().subList(subida[x], bajada[x] + 1)),
+                            Tiempo.aHora(salida), llegada[x] - salida));
+                }
+            }
+            Collections.reverse(viajeCompleto);
+            return viajeCompleto;
+        }
+    }
+
+
+    /**
+     * Cola de prioridad de nodos sobre un arreglo de {@code long}: la prioridad va en los
+     * 32 bits altos y el nodo en los bajos, así no se crean objetos por cada nodo abierto.
+     * Un nodo puede quedar repetido; las copias viejas se descartan al quitarlas.
+     */
+    private static final class Monticulo {
+        private long[] datos = new long[64];
+        private int cantidad;
+
+        boolean vacio() {
+            return cantidad == 0;
+        }
+
+        void vaciar() {
+            cantidad = 0;
+        }
+
+        void agregar(int prioridad, int nodo) {
+            if (cantidad == datos.length) datos = Arrays.copyOf(datos, cantidad * 2);
+            long valor = ((long) prioridad << 32) | (nodo & 0xFFFFFFFFL);
+            int i = cantidad++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (datos[p] <= valor) break;
+                datos[i] = datos[p];
+                i = p;
+            }
+            datos[i] = valor;
+        }
+
+        int quitar() {
+            long primero = datos[0];
+            long ultimo = datos[--cantidad];
+            int i = 0;
+            int mitad = cantidad >>> 1;
+            while (i < mitad) {
+                int h = 2 * i + 1;
+                if (h + 1 < cantidad && datos[h + 1] < datos[h]) h++;
+                if (ultimo <= datos[h]) break;
+                datos[i] = datos[h];
+                i = h;
+            }
+            datos[i] = ultimo;
+            return (int) primero;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase CalculoCSA
+ * ------------------------
+ * Motor de recorridos basado en CSA (Connection Scan Algorithm).
+ *
+ * Al construirse expande, a partir de la {@link RedCompilada}, todas las salidas de cada
+ * línea de cada día de la semana en conexiones elementales (un colectivo que va de una
+ * parada a la siguiente) y las guarda en arreglos ordenados por hora de salida.
+ * Una consulta de llegada más temprana es entonces un único recorrido lineal de esos arreglos.
+ *
+ * Devuelve el viaje que llega primero al destino.
+ *
+ * El estado de las consultas se reutiliza: cada hilo tiene el suyo, con arreglos del
+ * tamaño de la red que se reinician recorriendo solo las paradas y viajes que tocó la
+ * consulta anterior.
+ */
+public class CalculoCSA implements MotorRecorridos {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoCSA.class.getName());
+
+    private static final int INFINITO = Integer.MAX_VALUE;
+
+    private final RedCompilada red;
+
+    /** Conexiones por día de la semana (posición 0 = lunes). */
+    private final Conexiones[] conexionesPorDia = new Conexiones[RedCompilada.DIAS];
+
+    /** Mayor cantidad de viajes de un día, para dimensionar el estado de las consultas. */
+    private final int maxViajes;
+
+    /** Estado de consulta de cada hilo. */
+    private final ThreadLocal<Escaneo> escaneos = ThreadLocal.withInitial(Escaneo::new);
+
+    /**
+     * Construye los arreglos de conexiones de todos los días.
+     *
+     * @param lineas líneas del sistema
+     * @param tramos tramos del sistema (clave: "codigoOrigen-codigoDestino")
+     */
+    public CalculoCSA(Map<String, Linea> lineas, Map<String, Tramo> tramos) {
+        this(new RedCompilada(lineas, Map.of(), tramos));
+    }
+
+    /**
+     * Construye los arreglos de conexiones de todos los días a partir de la red compilada.
+     *
+     * @param red red compilada del sistema
+     */
+    public CalculoCSA(RedCompilada red) {
+        this.red = red;
+        int total = 0;
+        int viajes = 0;
+        for (int dia = 1; dia <= RedCompilada.DIAS; dia++) {
+            conexionesPorDia[dia - 1] = new Conexiones(dia);
+            total += conexionesPorDia[dia - 1].cantidad;
+            viajes = Math.max(viajes, conexionesPorDia[dia - 1].viajeLinea.length);
+        }
+        maxViajes = viajes;
+        LOGGER.info("CSA: " + total + " conexiones generadas para " + red.cantidadParadas() + " paradas.");
+    }
+
+    @Override
+    public List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || !RedCompilada.diaValido(diaSemana)) {
+            return resultados;
+        }
+
+        Escaneo escaneo = escaneo(diaSemana);
+        escaneo.ejecutar(origen, horaLlegaParada.toSecondOfDay(), destino);
+        if (escaneo.llegada[destino] != INFINITO) {
+            resultados.add(escaneo.reconstruir(destino));
+        }
+        return resultados;
+    }
+
+    /**
+     * Calcula la llegada más temprana a todas las paradas desde un origen (uno a muchos).
+     *
+     * @param paradaOrigen     Parada donde inicia el viaje
+     * @param diaSemana        Día de la semana
+     * @param horaLlegaParada  Hora en que el pasajero llega a la parada
+     * @return hora de llegada en segundos desde el inicio del día, por parada alcanzable
+     */
+    public Map<Parada, Integer> calcularLlegadas(Parada paradaOrigen, int diaSemana, LocalTime horaLlegaParada) {
+        Map<Parada, Integer> llegadas = new HashMap<>();
+        int origen = red.indice(paradaOrigen);
+        if (origen < 0 || !RedCompilada.diaValido(diaSemana)) return llegadas;
+
+        Escaneo escaneo = escaneo(diaSemana);
+        escaneo.ejecutar(origen, horaLlegaParada.toSecondOfDay(), -1);
+        // Solo las paradas tocadas pueden tener llegada
+        for (int k = 0; k < escaneo.paradas.cantidad(); k++) {
+            int i = escaneo.paradas.get(k);
+            if (escaneo.llegada[i] != INFINITO) llegadas.put(red.getParada(i), escaneo.llegada[i]);
+        }
+        return llegadas;
+    }
+
+    /**
+     * Calcula la llegada más temprana y la cantidad de colectivos hasta todas las paradas,
+     * indexadas como en la {@link RedCompilada}. Cada hilo usa su propio estado de consulta,
+     * por lo que puede llamarse desde varios hilos a la vez.
+     *
+     * @param origen      índice de la parada de origen en la red compilada
+     * @param diaSemana   Día de la semana
+     * @param hora        Segundos desde el inicio del día en que el pasajero llega al origen
+     * @param llegadas    recibe la hora de llegada a cada parada, o -1 si no se puede llegar
+     * @param colectivos  recibe la cantidad de colectivos tomados hasta cada parada
+     */
+    public void calcularLlegadas(int origen, int diaSemana, int hora, int[] llegadas, int[] colectivos) {
+        Escaneo escaneo = escaneo(diaSemana);
+        escaneo.ejecutar(origen, hora, -1);
+        for (int i = 0; i < red.cantidadParadas(); i++) {
+            boolean alcanzada = escaneo.llegada[i] != INFINITO;
+            llegadas[i] = alcanzada ? escaneo.llegada[i] : -1;
+            colectivos[i] = alcanzada ? escaneo.colectivos(i) : 0;
+        }
+    }
+
+    /** Estado de consulta del hilo actual, reiniciado y listo para el día indicado. */
+    private Escaneo escaneo(int diaSemana) {
+        Escaneo escaneo = escaneos.get();
+        escaneo.preparar(conexionesPorDia[diaSemana - 1]);
+        return escaneo;
+    }
+
+    /**
+     * Conexiones elementales de un día, ordenadas por hora de salida.
+     * Se guardan en arreglos paralelos para que el escaneo recorra memoria contigua.
+     */
+    private final class Conexiones {
+        final int cantidad;
+        final int[] salida;
+        final int[] llegada;
+        final int[] desde;
+        final int[] hasta;
+        final int[] viaje;
+        /** Posición en la línea de la parada de salida. */
+        final int[] posicion;
+
+        /** Línea de cada viaje (un viaje es una salida concreta de la línea). */
+        final int[] viajeLinea;
+
+        Conexiones(int dia) {
+            int viajes = 0;
+            for (int l = 0; l < red.cantidadLineas(); l++) viajes += red.cantidadSalidas(l, dia);
+            viajeLinea = new int[viajes];
+
+            List<int[]> crudas = new ArrayList<>();
+            int v = 0;
+            for (int l = 0; l < red.cantidadLineas(); l++) {
+                for (int s = 0; s < red.cantidadSalidas(l, dia); s++, v++) {
+                    viajeLinea[v] = l;
+                    int inicio = red.salida(l, dia, s);
+                    for (int i = 0; i + 1 < red.largo(l); i++) {
+                        crudas.add(new int[] {
+                                inicio + red.tiempo(l, i), inicio + red.tiempo(l, i + 1),
+                                red.parada(l, i), red.parada(l, i + 1), v, i });
+                    }
+                }
+            }
+
+            // Orden por hora de salida; a igual salida, primero las de menor llegada
+            crudas.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+
+            cantidad = crudas.size();
+            salida = new int[cantidad];
+            llegada = new int[cantidad];
+            desde = new int[cantidad];
+            hasta = new int[cantidad];
+            viaje = new int[cantidad];
+            posicion = new int[cantidad];
+            for (int c = 0; c < cantidad; c++) {
+                int[] x = crudas.get(c);
+                salida[c] = x[0];
+                llegada[c] = x[1];
+                desde[c] = x[2];
+                hasta[c] = x[3];
+                viaje[c] = x[4];
+                posicion[c] = x[5];
+            }
+        }
+
+        /** Primera conexión que sale a la hora indicada o después. */
+        int primeraDesde(int hora) {
+            int lo = 0;
+            int hi = cantidad;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (salida[mid] < hora) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    // ==============================
+    // CONSULTA
+    // ==============================
+
+    /**
+     * Estado de una consulta. Se crea uno por hilo y se reutiliza: {@link #preparar} vuelve
+     * a su valor inicial solo las posiciones que modificó la consulta anterior.
+     */
+    private final class Escaneo {
+        Conexiones cx;
+        final int[] llegada;
+        /** Llegada a cada parada bajando de un colectivo (sin caminar después). */
+        final int[] llegadaEnColectivo;
+        /** Conexión por la que se subió a cada viaje, -1 si no se subió. */
+        final int[] subidaViaje;
+        /** Para llegadas en colectivo: conexiones de subida y de bajada. */
+        final int[] conexionSubida;
+        final int[] conexionBajada;
+        /** Para llegadas caminando: parada desde la que se caminó, -1 si no se caminó. */
+        final int[] caminoDesde;
+
+        /** Paradas y viajes con etiquetas de la consulta actual. */
+        final IndicesModificados paradas;
+        final IndicesModificados viajes;
+
+        Escaneo() {
+            int n = red.cantidadParadas();
+            llegada = new int[n];
+            llegadaEnColectivo = new int[n];
+            conexionSubida = new int[n];
+            conexionBajada = new int[n];
+            caminoDesde = new int[n];
+            subidaViaje = new int[maxViajes];
+            paradas = new IndicesModificados(n);
+            viajes = new IndicesModificados(maxViajes);
+            Arrays.fill(llegada, INFINITO);
+            Arrays.fill(llegadaEnColectivo, INFINITO);
+            Arrays.fill(conexionSubida, -1);
+            Arrays.fill(caminoDesde, -1);
+            Arrays.fill(subidaViaje, -1);
+        }
+
+        void preparar(Conexiones cx) {
+            this.cx = cx;
+            for (int k = 0; k < paradas.cantidad(); k++) {
+                int p = paradas.get(k);
+                llegada[p] = INFINITO;
+                llegadaEnColectivo[p] = INFINITO;
+                conexionSubida[p] = -1;
+                caminoDesde[p] = -1;
+            }
+            for (int k = 0; k < viajes.cantidad(); k++) subidaViaje[viajes.get(k)] = -1;
+            paradas.limpiar();
+            viajes.limpiar();
+        }
+
+        /**
+         * @param destino parada destino, o -1 para calcular la llegada a todas las paradas
+         */
+        void ejecutar(int origen, int hora, int destino) {
+            paradas.agregar(origen);
+            llegada[origen] = hora;
+            llegadaEnColectivo[origen] = hora;
+            relajarCaminando(origen);
+
+            for (int c = cx.primeraDesde(hora); c < cx.cantidad; c++) {
+                // Ninguna conexión posterior puede mejorar la llegada al destino
+                if (destino >= 0 && llegada[destino] <= cx.salida[c]) break;
+
+                int v = cx.viaje[c];
+                if (subidaViaje[v] < 0) {
+                    if (llegada[cx.desde[c]] > cx.salida[c]) continue;
+                    subidaViaje[v] = c;
+                    viajes.agregar(v);
+                }
+
+                int p = cx.hasta[c];
+                if (cx.llegada[c] < llegadaEnColectivo[p]) {
+                    paradas.agregar(p);
+                    llegadaEnColectivo[p] = cx.llegada[c];
+                    conexionSubida[p] = subidaViaje[v];
+                    conexionBajada[p] = c;
+                    if (cx.llegada[c] < llegada[p]) {
+                        llegada[p] = cx.llegada[c];
+                        caminoDesde[p] = -1;
+                    }
+                    relajarCaminando(p);
+                }
+            }
+        }
+
+        private void relajarCaminando(int p) {
+            for (int e = red.inicioCaminando(p); e < red.finCaminando(p); e++) {
+                int q = red.vecinoCaminando(e);
+                int t = llegadaEnColectivo[p] + red.tiempoCaminando(e);
+                if (t < llegada[q]) {
+                    paradas.agregar(q);
+                    llegada[q] = t;
+                    caminoDesde[q] = p;
+                }
+            }
+        }
+
+        /** Cantidad de colectivos del viaje hasta la parada, siguiendo las etiquetas como {@link #reconstruir}. */
+        int colectivos(int destino) {
+            int cantidad = 0;
+            int p = destino;
+            boolean enColectivo = false;
+            while (true) {
+                if (!enColectivo && caminoDesde[p] >= 0) {
+                    p = caminoDesde[p];
+                    enColectivo = true;
+                    continue;
+                }
+                int subida = conexionSubida[p];
+                if (subida < 0) break;
+                cantidad++;
+                p = cx.desde[subida];
+                enColectivo = false;
+            }
+            return cantidad;
+        }
+
+        /** Arma el viaje hasta el destino recorriendo las etiquetas hacia atrás. */
+        List<Recorrido> reconstruir(int destino) {
+            List<Recorrido> viaje = new ArrayList<>();
+            int p = destino;
+            boolean enColectivo = false;
+            while (true) {
+                if (!enColectivo && caminoDesde[p] >= 0) {
+                    int q = caminoDesde[p];
+                    int salida = llegadaEnColectivo[q];
+                    viaje.add(new Recorrido(null, List.of(red.getParada(q), red.getParada(p)),
+                            Tiempo.aHora(salida), llegada[p] - salida));
+                    p = q;
+                    enColectivo = true;
+                    continue;
+                }
+                int subida = conexionSubida[p];
+                if (subida < 0) break;
+                int bajada = conexionBajada[p];
+                Linea linea = red.getLinea(cx.viajeLinea[cx.viaje[subida]]);
+                List<Parada> recorridas = new ArrayList<>(
+                        linea.getParadas().subList(cx.posicion[subida], cx.posicion[bajada] + 2));
+                viaje.add(new Recorrido(linea, recorridas, Tiempo.aHora(cx.salida[subida]),
+                        cx.llegada[bajada] - cx.salida[subida]));
+                p = cx.desde[subida];
+                enColectivo = false;
+            }
+            Collections.reverse(viaje);
+            return viaje;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase CalculoMultiCriterio
+ * ------------------------
+ * Motor de recorridos multicriterio basado en McRAPTOR.
+ *
+ * Igual que {@link CalculoRaptor} avanza por rondas (en la ronda k se usan a lo sumo
+ * k colectivos), pero en cada parada guarda una bolsa de etiquetas en lugar de una
+ * única llegada. Una etiqueta se descarta solo si otra es igual o mejor en los tres
+ * criterios: hora de llegada, cantidad de colectivos y segundos caminando.
+ *
+ * Devuelve todos los viajes no dominados al destino, por ejemplo "el más rápido",
+ * "el de menos trasbordos" y "el que menos camina", calculados en una sola pasada.
+ *
+ * Para acotar el costo, las bolsas de las paradas intermedias tienen una capacidad
+ * máxima: si una bolsa está llena se conserva la etiqueta que llega antes y se
+ * descarta la que llega más tarde. La bolsa del destino no se acota.
+ */
+public class CalculoMultiCriterio implements MotorRecorridos {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoMultiCriterio.class.getName());
+
+    /** Cantidad máxima de colectivos por viaje si no se indica otra. */
+    public static final int RONDAS_POR_DEFECTO = 5;
+
+    /** Cantidad máxima de etiquetas por parada si no se indica otra. */
+    public static final int ETIQUETAS_POR_DEFECTO = 8;
+
+
+    private final RedCompilada red;
+    private final int maxRondas;
+    private final int maxEtiquetas;
+
+    public CalculoMultiCriterio(RedCompilada red) {
+        this(red, RONDAS_POR_DEFECTO, ETIQUETAS_POR_DEFECTO);
+    }
+
+    /**
+     * @param red red compilada del sistema
+     * @param maxRondas cantidad máxima de colectivos que puede tomar un viaje
+     * @param maxEtiquetas cantidad máxima de etiquetas que se guardan en cada parada intermedia
+     */
+    public CalculoMultiCriterio(RedCompilada red, int maxRondas, int maxEtiquetas) {
+        if (maxRondas < 1) {
+            throw new IllegalArgumentException("La cantidad de rondas debe ser al menos 1: " + maxRondas);
+        }
+        if (maxEtiquetas < 1) {
+            throw new IllegalArgumentException("La cantidad de etiquetas debe ser al menos 1: " + maxEtiquetas);
+        }
+        this.red = red;
+        this.maxRondas = maxRondas;
+        this.maxEtiquetas = maxEtiquetas;
+    }
+
+    @Override
+    public List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || origen == destino || !RedCompilada.diaValido(diaSemana)) {
+            return resultados;
+        }
+
+        Busqueda busqueda = new Busqueda(destino, diaSemana);
+        busqueda.ejecutar(origen, horaLlegaParada.toSecondOfDay());
+
+        // De menos a más colectivos; con los mismos colectivos, primero el que llega antes
+        List<Etiqueta> llegadas = new ArrayList<>(busqueda.bolsa(destino).etiquetas);
+        llegadas.sort(Comparator.comparingInt((Etiqueta e) -> e.ronda).thenComparingInt(e -> e.llegada));
+        for (Etiqueta e : llegadas) {
+            resultados.add(reconstruir(e));
+        }
+
+        LOGGER.info("McRAPTOR: " + resultados.size() + " recorridos no dominados entre "
+                + paradaOrigen.getCodigo() + " y " + paradaDestino.getCodigo());
+        return resultados;
+    }
+
+    // ==============================
+    // ESTADO DE UNA BÚSQUEDA
+    // ==============================
+
+    /**
+     * Estado de una consulta. Se crea una instancia por llamada, de modo que
+     * el motor no guarda estado entre consultas.
+     */
+    private final class Busqueda {
+
+        private final int destino;
+        private final int diaSemana;
+
+        /** Etiquetas no dominadas de cada parada, de cualquier ronda. Se crean a demanda. */
+        private final Bolsa[] bolsas;
+
+        /** Etiquetas nuevas de la ronda anterior y de la actual, por parada. */
+        private List<Etiqueta>[] anteriores;
+        private List<Etiqueta>[] actuales;
+
+        /** Paradas con etiquetas nuevas en la ronda anterior y en la actual. */
+        private int[] marcadasAnteriores;
+        private int cantidadAnteriores;
+        private int[] marcadas;
+        private int cantidadMarcadas;
+
+        /** Primera posición marcada de cada línea en la ronda; -1 si no hay que recorrerla. */
+        private final int[] primeraPosicion;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Busqueda(int destino, int diaSemana) {
+            int n = red.cantidadParadas();
+            this.destino = destino;
+            this.diaSemana = diaSemana;
+            bolsas = new Bolsa[n];
+            anteriores = new List[n];
+            actuales = new List[n];
+            marcadasAnteriores = new int[n];
+            marcadas = new int[n];
+            primeraPosicion = new int[red.cantidadLineas()];
+            Arrays.fill(primeraPosicion, -1);
+        }
+
+        Bolsa bolsa(int p) {
+            if (bolsas[p] == null) {
+                bolsas[p] = new Bolsa(p == destino ? 0 : maxEtiquetas);
+            }
+            return bolsas[p];
+        }
+
+        void ejecutar(int origen, int horaInicio) {
+            Etiqueta inicial = new Etiqueta(horaInicio, 0, 0, origen, null, -1, horaInicio, -1, -1);
+            agregar(inicial);
+            relajarCaminando(0);
+
+            for (int k = 1; k <= maxRondas && cantidadMarcadas > 0; k++) {
+                siguienteRonda();
+                recorrerLineas(k);
+                relajarCaminando(k);
+            }
+        }
+
+        /** Las etiquetas nuevas pasan a ser las de la ronda anterior. */
+        private void siguienteRonda() {
+            for (int i = 0; i < cantidadAnteriores; i++) {
+                anteriores[marcadasAnteriores[i]] = null;
+            }
+            List<Etiqueta>[] listas = anteriores;
+            anteriores = actuales;
+            actuales = listas;
+
+            int[] paradas = marcadasAnteriores;
+            marcadasAnteriores = marcadas;
+            cantidadAnteriores = cantidadMarcadas;
+            marcadas = paradas;
+            cantidadMarcadas = 0;
+        }
+
+        /**
+         * Intenta agregar una etiqueta a la bolsa de su parada.
+         * Se descarta si la domina alguna etiqueta de la parada o del destino.
+         */
+        private boolean agregar(Etiqueta e) {
+            if (e.parada != destino && bolsas[destino] != null && bolsas[destino].domina(e.llegada, e.caminata, e.ronda)) {
+                return false;
+            }
+            if (!bolsa(e.parada).agregar(e)) return false;
+
+            List<Etiqueta> lista = actuales[e.parada];
+            if (lista == null) {
+                lista = new ArrayList<>(2);
+                actuales[e.parada] = lista;
+                marcadas[cantidadMarcadas++] = e.parada;
+            }
+            lista.add(e);
+            return true;
+        }
+
+        private void recorrerLineas(int k) {
+            List<Integer> lineas = new ArrayList<>();
+            for (int i = 0; i < cantidadAnteriores; i++) {
+                int p = marcadasAnteriores[i];
+                for (int e = red.inicioPasadas(p); e < red.finPasadas(p); e++) {
+                    int l = red.lineaPasada(e);
+                    int pos = red.posicionPasada(e);
+                    if (primeraPosicion[l] < 0) {
+                        lineas.add(l);
+                        primeraPosicion[l] = pos;
+                    } else if (pos < primeraPosicion[l]) {
+                        primeraPosicion[l] = pos;
+                    }
+                }
+            }
+            for (int l : lineas) {
+                recorrerLinea(l, primeraPosicion[l], k);
+                primeraPosicion[l] = -1;
+            }
+        }
+
+        /**
+         * Recorre la línea desde la posición indicada llevando una bolsa de viajes en curso:
+         * en cada parada primero se bajan los pasajeros y después se suben los que llegaron
+         * a ella en la ronda anterior.
+         */
+        private void recorrerLinea(int l, int desde, int k) {
+            if (red.cantidadSalidas(l, diaSemana) == 0) return;
+
+            List<EnViaje> enViaje = new ArrayList<>();
+            int largo = red.largo(l);
+            for (int i = desde; i < largo; i++) {
+                int p = red.parada(l, i);
+
+                for (EnViaje v : enViaje) {
+                    int llegada = red.salida(l, diaSemana, v.viaje) + red.tiempo(l, i);
+                    agregar(new Etiqueta(llegada, v.previa.caminata, k, p, v.previa, l, v.salida, v.posSubida, i));
+                }
+
+                List<Etiqueta> previas = anteriores[p];
+                if (previas == null || i == largo - 1) continue;
+                for (Etiqueta e : previas) {
+                    if (e.descartada) continue;
+                    int viaje = red.buscarSalida(l, diaSemana, e.llegada - red.tiempo(l, i));
+                    if (viaje >= 0) {
+                        subir(enViaje, new EnViaje(viaje, i, e, red.salida(l, diaSemana, viaje) + red.tiempo(l, i)));
+                    }
+                }
+            }
+        }
+
+        /** Agrega un pasajero a la bolsa de viajes en curso si no lo domina otro. */
+        private void subir(List<EnViaje> enViaje, EnViaje nuevo) {
+            for (EnViaje v : enViaje) {
+                if (v.viaje <= nuevo.viaje && v.previa.caminata <= nuevo.previa.caminata) return;
+            }
+            enViaje.removeIf(v -> nuevo.viaje <= v.viaje && nuevo.previa.caminata <= v.previa.caminata);
+            enViaje.add(nuevo);
+        }
+
+        /**
+         * Relaja los tramos caminando desde las etiquetas que llegaron en colectivo en esta
+         * ronda (o desde el origen en la ronda 0). Solo se permite una caminata entre dos colectivos.
+         */
+        private void relajarCaminando(int k) {
+            int cantidad = cantidadMarcadas;
+            for (int i = 0; i < cantidad; i++) {
+                int p = marcadas[i];
+                List<Etiqueta> desde = new ArrayList<>(actuales[p]);
+                for (Etiqueta e : desde) {
+                    if (e.descartada || e.caminando()) continue;
+                    for (int c = red.inicioCaminando(p); c < red.finCaminando(p); c++) {
+                        int tiempo = red.tiempoCaminando(c);
+                        agregar(new Etiqueta(e.llegada + tiempo, e.caminata + tiempo, k,
+                                red.vecinoCaminando(c), e, -1, e.llegada, -1, -1));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Arma el viaje que termina en la etiqueta, recorriendo las etiquetas previas hacia atrás.
+     */
+    private List<Recorrido> reconstruir(Etiqueta destino) {
+        LinkedList<Recorrido> viaje = new LinkedList<>();
+        for (Etiqueta e = destino; e.previa != null; e = e.previa) {
+            if (e.caminando()) {
+                viaje.addFirst(new Recorrido(null,
+                        List.of(red.getParada(e.previa.parada), red.getParada(e.parada)),
+                        Tiempo.aHora(e.salida), e.llegada - e.salida));
+            } else {
+                List<Parada> paradas = new ArrayList<>(
+                        red.getLinea(e.linea).getParadas().subList(e.posSubida, e.posBajada + 1));
+                viaje.addFirst(new Recorrido(red.getLinea(e.linea), paradas, Tiempo.aHora(e.salida), e.llegada - e.salida));
+            }
+        }
+        return new ArrayList<>(viaje);
+    }
+
+
+    /**
+     * Etiquetas no dominadas de una parada.
+     */
+    private static final class Bolsa {
+        final List<Etiqueta> etiquetas = new ArrayList<>(4);
+        /** Cantidad máxima de etiquetas, 0 para no acotar. */
+        final int capacidad;
+
+        Bolsa(int capacidad) {
+            this.capacidad = capacidad;
+        }
+
+        /** @return {@code true} si alguna etiqueta es igual o mejor en los tres criterios */
+        boolean domina(int llegada, int caminata, int ronda) {
+            for (Etiqueta e : etiquetas) {
+                if (e.llegada <= llegada && e.caminata <= caminata && e.ronda <= ronda) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Agrega la etiqueta si no está dominada y quita las que pasan a estar dominadas.
+         * @return {@code true} si la etiqueta quedó en la bolsa
+         */
+        boolean agregar(Etiqueta nueva) {
+            if (domina(nueva.llegada, nueva.caminata, nueva.ronda)) return false;
+
+            etiquetas.removeIf(e -> {
+                boolean dominada = nueva.llegada <= e.llegada && nueva.caminata <= e.caminata && nueva.ronda <= e.ronda;
+                if (dominada) e.descartada = true;
+                return dominada;
+            });
+
+            if (capacidad > 0 && etiquetas.size() >= capacidad) {
+                Etiqueta peor = etiquetas.get(0);
+                for (Etiqueta e : etiquetas) {
+                    if (e.llegada > peor.llegada) peor = e;
+                }
+                if (nueva.llegada >= peor.llegada) return false;
+                peor.descartada = true;
+                etiquetas.remove(peor);
+            }
+            etiquetas.add(nueva);
+            return true;
+        }
+    }
+
+    /**
+     * Cómo se llegó a una parada. Si {@code linea} es -1 y hay etiqueta previa, se llegó caminando
+     * desde la parada de la previa; en el origen {@code previa} es {@code null}.
+     */
+    private static final class Etiqueta {
+        final int llegada;
+        /** Segundos caminando acumulados. */
+        final int caminata;
+        /** Cantidad de colectivos tomados. */
+        final int ronda;
+        final int parada;
+        final Etiqueta previa;
+        final int linea;
+        /** Hora de subida al colectivo, o de inicio de la caminata. */
+        final int salida;
+        final int posSubida;
+        final int posBajada;
+        /** Quitada de la bolsa de su parada: no se usa para seguir viajando. */
+        boolean descartada;
+
+        Etiqueta(int llegada, int caminata, int ronda, int parada, Etiqueta previa,
+                 int linea, int salida, int posSubida, int posBajada) {
+            this.llegada = llegada;
+            this.caminata = caminata;
+            this.ronda = ronda;
+            this.parada = parada;
+            this.previa = previa;
+            this.linea = linea;
+            this.salida = salida;
+            this.posSubida = posSubida;
+            this.posBajada = posBajada;
+        }
+
+        boolean caminando() {
+            return linea < 0 && previa != null;
+        }
+    }
+
+    /** Pasajero a bordo de un viaje de la línea que se está recorriendo. */
+    private static final class EnViaje {
+        final int viaje;
+        final int posSubida;
+        final Etiqueta previa;
+        /** Hora de subida en la parada {@code posSubida}. */
+        final int salida;
+
+        EnViaje(int viaje, int posSubida, Etiqueta previa, int salida) {
+            this.viaje = viaje;
+            this.posSubida = posSubida;
+            this.previa = previa;
+            this.salida = salida;
+        }
+    }
+}
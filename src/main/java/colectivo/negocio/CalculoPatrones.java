@@ -0,0 +1,133 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase CalculoPatrones
+ * ------------------------
+ * Motor de recorridos que usa patrones de trasbordo precalculados ({@link PatronesTrasbordo}).
+ *
+ * Para un par de paradas solo se evalúan sus patrones: en cada tramo se toma el primer
+ * colectivo de la línea que pasa por la parada de subida, con una búsqueda binaria en sus
+ * salidas, y entre tramos se camina si las paradas son distintas. No se recorre la red,
+ * así que una consulta cuesta unas pocas búsquedas binarias.
+ *
+ * Como RAPTOR, devuelve un viaje por cada cantidad de colectivos que mejora la hora de
+ * llegada al destino, ordenados de menos a más trasbordos.
+ */
+public class CalculoPatrones implements MotorRecorridos {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoPatrones.class.getName());
+
+    private static final int INFINITO = Integer.MAX_VALUE;
+
+    private final PatronesTrasbordo patrones;
+    private final RedCompilada red;
+
+    public CalculoPatrones(PatronesTrasbordo patrones) {
+        this.patrones = patrones;
+        this.red = patrones.getRed();
+    }
+
+    @Override
+    public List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || origen == destino || !RedCompilada.diaValido(diaSemana)) {
+            return resultados;
+        }
+
+        // Mejor llegada y patrón para cada cantidad de colectivos
+        int hora = horaLlegaParada.toSecondOfDay();
+        int[] mejor = new int[patrones.getMaxRondas() + 1];
+        int[] mejorPatron = new int[mejor.length];
+        Arrays.fill(mejor, INFINITO);
+        int fin = patrones.fin(diaSemana, origen, destino);
+        for (int i = patrones.primero(diaSemana, origen, destino); i < fin; i++) {
+            int patron = patrones.patronDelPar(diaSemana, i);
+            int llegada = evaluar(patron, origen, destino, diaSemana, hora, null);
+            int colectivos = patrones.colectivos(patron);
+            if (llegada < mejor[colectivos]) {
+                mejor[colectivos] = llegada;
+                mejorPatron[colectivos] = patron;
+            }
+        }
+
+        int llegada = INFINITO;
+        for (int k = 0; k < mejor.length; k++) {
+            if (mejor[k] < llegada) {
+                llegada = mejor[k];
+                List<Recorrido> viaje = new ArrayList<>();
+                evaluar(mejorPatron[k], origen, destino, diaSemana, hora, viaje);
+                resultados.add(viaje);
+            }
+        }
+
+        LOGGER.info("Patrones: " + resultados.size() + " recorridos encontrados entre "
+                + paradaOrigen.getCodigo() + " y " + paradaDestino.getCodigo());
+        return resultados;
+    }
+
+    /**
+     * Recorre el patrón saliendo del origen a la hora indicada.
+     *
+     * @param viaje si no es {@code null}, se le agregan los tramos del viaje
+     * @return hora de llegada al destino, o {@link #INFINITO} si algún colectivo ya no pasa
+     */
+    private int evaluar(int patron, int origen, int destino, int dia, int hora, List<Recorrido> viaje) {
+        int p = origen;
+        for (int t = 0; t < patrones.colectivos(patron); t++) {
+            int l = patrones.linea(patron, t);
+            int sube = patrones.subida(patron, t);
+            int baja = patrones.bajada(patron, t);
+            hora = caminar(p, red.parada(l, sube), hora, viaje);
+            if (hora == INFINITO) return INFINITO;
+
+            int v = red.buscarSalida(l, dia, hora - red.tiempo(l, sube));
+            if (v < 0) return INFINITO;
+            int sale = red.salida(l, dia, v) + red.tiempo(l, sube);
+            hora = red.salida(l, dia, v) + red.tiempo(l, baja);
+            if (viaje != null) {
+                viaje.add(new Recorrido(red.getLinea(l),
+                        new ArrayList<>(red.getLinea(l).getParadas().subList(sube, baja + 1)),
+                        Tiempo.aHora(sale), hora - sale));
+            }
+            p = red.parada(l, baja);
+        }
+        return caminar(p, destino, hora, viaje);
+    }
+
+    /** Hora de llegada caminando de una parada a otra; la misma hora si son la misma parada. */
+    private int caminar(int desde, int hasta, int hora, List<Recorrido> viaje) {
+        if (desde == hasta) return hora;
+        for (int e = red.inicioCaminando(desde); e < red.finCaminando(desde); e++) {
+            if (red.vecinoCaminando(e) == hasta) {
+                if (viaje != null) {
+                    viaje.add(new Recorrido(null, List.of(red.getParada(desde), red.getParada(hasta)),
+                            Tiempo.aHora(hora), red.tiempoCaminando(e)));
+                }
+                return hora + red.tiempoCaminando(e);
+            }
+        }
+        return INFINITO;
+    }
+}
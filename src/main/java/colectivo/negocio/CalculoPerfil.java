@@ -0,0 +1,494 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase CalculoPerfil
+ * ------------------------
+ * Consultas de perfil basadas en rRAPTOR: todos los viajes óptimos entre dos paradas
+ * que salen dentro de una franja horaria.
+ *
+ * Se buscan las horas en que sale algún colectivo desde el origen (o desde una parada
+ * a la que se llega caminando) dentro de la franja, y se ejecuta RAPTOR para cada una
+ * de la más tardía a la más temprana. Las llegadas de cada ronda no se reinician entre
+ * una hora y la siguiente: lo que se alcanzó saliendo más tarde también se alcanza
+ * saliendo antes, así que cada búsqueda solo recorre lo que mejora.
+ *
+ * Un viaje se devuelve si ningún otro sale igual o más tarde, llega igual o antes
+ * y usa igual o menos colectivos.
+ */
+public class CalculoPerfil {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoPerfil.class.getName());
+
+    /** Cantidad máxima de colectivos por viaje si no se indica otra. */
+    public static final int RONDAS_POR_DEFECTO = 5;
+
+    private static final int INFINITO = Integer.MAX_VALUE;
+
+    private final RedCompilada red;
+    private final int maxRondas;
+
+    public CalculoPerfil(RedCompilada red) {
+        this(red, RONDAS_POR_DEFECTO);
+    }
+
+    /**
+     * @param red red compilada del sistema
+     * @param maxRondas cantidad máxima de colectivos que puede tomar un viaje
+     */
+    public CalculoPerfil(RedCompilada red, int maxRondas) {
+        if (maxRondas < 1) {
+            throw new IllegalArgumentException("La cantidad de rondas debe ser al menos 1: " + maxRondas);
+        }
+        this.red = red;
+        this.maxRondas = maxRondas;
+    }
+
+    /**
+     * Calcula los viajes óptimos entre dos paradas que salen dentro de una franja horaria.
+     *
+     * @param paradaOrigen  Parada donde inicia el viaje
+     * @param paradaDestino Parada donde termina el viaje
+     * @param diaSemana     Día de la semana
+     * @param desde         Primera hora de salida de la franja
+     * @param hasta         Última hora de salida de la franja (inclusive)
+     * @return viajes ordenados por hora de salida; con la misma salida, de menos a más colectivos
+     */
+    public List<List<Recorrido>> calcularPerfil(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime desde,
+            LocalTime hasta) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || origen == destino || !RedCompilada.diaValido(diaSemana)
+                || desde.isAfter(hasta)) {
+            return resultados;
+        }
+
+        Perfil perfil = new Perfil(destino, diaSemana);
+        int[] horas = perfil.horasDeSalida(origen, desde.toSecondOfDay(), hasta.toSecondOfDay());
+        for (int i = horas.length - 1; i >= 0; i--) {
+            perfil.ejecutar(origen, horas[i]);
+        }
+
+        List<Viaje> viajes = noDominados(perfil.viajes);
+        viajes.sort(Comparator.comparingInt((Viaje v) -> v.salida).thenComparingInt(v -> v.colectivos));
+        for (Viaje v : viajes) {
+            resultados.add(v.recorridos);
+        }
+
+        LOGGER.info("rRAPTOR: " + resultados.size() + " viajes entre " + paradaOrigen.getCodigo() + " y "
+                + paradaDestino.getCodigo() + " saliendo entre " + desde + " y " + hasta
+                + " (" + horas.length + " horas de salida)");
+        return resultados;
+    }
+
+    /**
+     * Recibe los viajes óptimos de un perfil completo desde un origen, como la secuencia de
+     * tramos en colectivo: tres valores por tramo (línea, posición de subida y posición de
+     * bajada). Las caminatas quedan implícitas entre paradas distintas.
+     */
+    interface ReceptorPatrones {
+        void viaje(int destino, int[] tramos);
+    }
+
+    /**
+     * Ejecuta rRAPTOR desde el origen para todas las horas de salida del día, sin destino
+     * fijo, e informa cada viaje que mejora la llegada a alguna parada con una cantidad de
+     * colectivos. Para cualquier hora de salida y cantidad de colectivos, alguno de los
+     * viajes informados hacia una parada es óptimo.
+     *
+     * @param origen    índice de la parada de origen en la red
+     * @param diaSemana Día de la semana
+     * @param receptor  recibe los viajes, posiblemente repetidos
+     */
+    void recorrerPatrones(int origen, int diaSemana, ReceptorPatrones receptor) {
+        Perfil perfil = new Perfil(-1, diaSemana);
+        int[] horas = perfil.horasDeSalida(origen, 0, INFINITO);
+        for (int i = horas.length - 1; i >= 0; i--) {
+            perfil.ejecutarHaciaTodas(origen, horas[i], receptor);
+        }
+    }
+
+    private static List<Viaje> noDominados(List<Viaje> viajes) {
+        List<Viaje> resultado = new ArrayList<>();
+        for (int i = 0; i < viajes.size(); i++) {
+            Viaje a = viajes.get(i);
+            boolean dominado = false;
+            for (int j = 0; j < viajes.size() && !dominado; j++) {
+                if (i == j) continue;
+                Viaje b = viajes.get(j);
+                boolean igualOMejor = b.salida >= a.salida && b.llegada <= a.llegada && b.colectivos <= a.colectivos;
+                boolean igual = b.salida == a.salida && b.llegada == a.llegada && b.colectivos == a.colectivos;
+                // Entre dos viajes equivalentes se conserva el primero
+                dominado = igualOMejor && (!igual || j < i);
+            }
+            if (!dominado) resultado.add(a);
+        }
+        return resultado;
+    }
+
+    // ==============================
+    // ESTADO DE UNA CONSULTA DE PERFIL
+    // ==============================
+
+    /**
+     * Etiquetas de todas las rondas, compartidas por las búsquedas de cada hora de salida.
+     * Para la ronda k y la parada p se guarda la llegada final (que puede ser caminando)
+     * y la llegada en colectivo con el viaje usado. Sin destino (-1) no se poda por la
+     * llegada a ninguna parada.
+     */
+    private final class Perfil {
+
+        private final int destino;
+        private final int diaSemana;
+
+        private final int[][] llegada;
+        private final int[][] caminoDesde;
+        private final int[][] enColectivo;
+        private final int[][] linea;
+        private final int[][] viaje;
+        private final int[][] posSubida;
+        private final int[][] posBajada;
+        private final int[][] rondaSubida;
+
+        /** Paradas mejoradas en la ronda anterior y en la actual. */
+        private final boolean[] marcada;
+        private int[] marcadas;
+        private int cantidadMarcadas;
+        private int[] marcadasAnteriores;
+        private int cantidadAnteriores;
+        /** Paradas mejoradas en colectivo en la ronda actual (desde ellas se camina). */
+        private final int[] enColectivoMarcadas;
+        private int cantidadEnColectivo;
+
+        /** Primera posición marcada de cada línea en la ronda; -1 si no hay que recorrerla. */
+        private final int[] primeraPosicion;
+
+        /** Viajes encontrados, en cualquier hora de salida. */
+        final List<Viaje> viajes = new ArrayList<>();
+
+        Perfil(int destino, int diaSemana) {
+            int n = red.cantidadParadas();
+            int rondas = maxRondas + 1;
+            this.destino = destino;
+            this.diaSemana = diaSemana;
+            llegada = new int[rondas][n];
+            caminoDesde = new int[rondas][n];
+            enColectivo = new int[rondas][n];
+            linea = new int[rondas][n];
+            viaje = new int[rondas][n];
+            posSubida = new int[rondas][n];
+            posBajada = new int[rondas][n];
+            rondaSubida = new int[rondas][n];
+            for (int k = 0; k < rondas; k++) {
+                Arrays.fill(llegada[k], INFINITO);
+                Arrays.fill(enColectivo[k], INFINITO);
+                Arrays.fill(caminoDesde[k], -1);
+                Arrays.fill(linea[k], -1);
+            }
+            marcada = new boolean[n];
+            marcadas = new int[n];
+            marcadasAnteriores = new int[n];
+            enColectivoMarcadas = new int[n];
+            primeraPosicion = new int[red.cantidadLineas()];
+            Arrays.fill(primeraPosicion, -1);
+        }
+
+        /**
+         * Horas de la franja en las que se puede salir del origen para tomar un colectivo,
+         * ya sea en el origen o en una parada cercana caminando. Sin repetidos y ordenadas.
+         */
+        int[] horasDeSalida(int origen, int desde, int hasta) {
+            List<Integer> horas = new ArrayList<>();
+            agregarHorasDeSalida(origen, 0, desde, hasta, horas);
+            for (int c = red.inicioCaminando(origen); c < red.finCaminando(origen); c++) {
+                agregarHorasDeSalida(red.vecinoCaminando(c), red.tiempoCaminando(c), desde, hasta, horas);
+            }
+            return horas.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        }
+
+        private void agregarHorasDeSalida(int p, int caminata, int desde, int hasta, List<Integer> horas) {
+            for (int e = red.inicioPasadas(p); e < red.finPasadas(p); e++) {
+                int l = red.lineaPasada(e);
+                int pos = red.posicionPasada(e);
+                if (pos == red.largo(l) - 1) continue;
+                for (int v = red.buscarSalida(l, diaSemana, desde + caminata - red.tiempo(l, pos));
+                     v >= 0 && v < red.cantidadSalidas(l, diaSemana); v++) {
+                    int hora = red.salida(l, diaSemana, v) + red.tiempo(l, pos) - caminata;
+                    if (hora > hasta) break;
+                    horas.add(hora);
+                }
+            }
+        }
+
+        /** Ejecuta las rondas de RAPTOR saliendo del origen a la hora indicada. */
+        void ejecutar(int origen, int hora) {
+            int[] antes = new int[maxRondas + 1];
+            for (int k = 0; k <= maxRondas; k++) antes[k] = llegada[k][destino];
+
+            ejecutarRondas(origen, hora);
+
+            // Un viaje solo caminando no depende de la hora: se guarda una vez
+            if (llegada[0][destino] < antes[0] && antes[0] == INFINITO) {
+                viajes.add(reconstruir(0, hora));
+            }
+            for (int k = 1; k <= maxRondas; k++) {
+                if (llegada[k][destino] < antes[k]) {
+                    viajes.add(reconstruir(k, hora));
+                }
+            }
+        }
+
+        /** Como {@link #ejecutar}, pero informa los viajes que mejoran la llegada a cada parada. */
+        void ejecutarHaciaTodas(int origen, int hora, ReceptorPatrones receptor) {
+            int[][] antes = new int[maxRondas + 1][];
+            for (int k = 0; k <= maxRondas; k++) antes[k] = llegada[k].clone();
+
+            ejecutarRondas(origen, hora);
+
+            for (int p = 0; p < red.cantidadParadas(); p++) {
+                if (p == origen) continue;
+                if (llegada[0][p] < antes[0][p] && antes[0][p] == INFINITO) {
+                    receptor.viaje(p, new int[0]);
+                }
+                for (int k = 1; k <= maxRondas; k++) {
+                    if (llegada[k][p] < antes[k][p]) {
+                        receptor.viaje(p, patron(k, p));
+                    }
+                }
+            }
+        }
+
+        private void ejecutarRondas(int origen, int hora) {
+            cantidadMarcadas = 0;
+            cantidadEnColectivo = 0;
+            if (hora < llegada[0][origen]) {
+                llegada[0][origen] = hora;
+                enColectivo[0][origen] = hora;
+                caminoDesde[0][origen] = -1;
+                linea[0][origen] = -1;
+                marcar(origen);
+                enColectivoMarcadas[cantidadEnColectivo++] = origen;
+                relajarCaminando(0);
+            }
+
+            for (int k = 1; k <= maxRondas && cantidadMarcadas > 0; k++) {
+                siguienteRonda();
+                recorrerLineas(k);
+                relajarCaminando(k);
+            }
+            for (int i = 0; i < cantidadMarcadas; i++) marcada[marcadas[i]] = false;
+        }
+
+        private void marcar(int p) {
+            if (!marcada[p]) {
+                marcada[p] = true;
+                marcadas[cantidadMarcadas++] = p;
+            }
+        }
+
+        private void siguienteRonda() {
+            for (int i = 0; i < cantidadMarcadas; i++) marcada[marcadas[i]] = false;
+            int[] paradas = marcadasAnteriores;
+            marcadasAnteriores = marcadas;
+            cantidadAnteriores = cantidadMarcadas;
+            marcadas = paradas;
+            cantidadMarcadas = 0;
+            cantidadEnColectivo = 0;
+        }
+
+        /** Mejor llegada al destino usando a lo sumo k colectivos; sin destino no hay cota. */
+        private int cotaDestino(int k) {
+            return destino < 0 ? INFINITO : cota(k, destino);
+        }
+
+        /** Mejor llegada a la parada usando a lo sumo k colectivos. */
+        private int cota(int k, int p) {
+            int mejor = INFINITO;
+            for (int j = 0; j <= k; j++) mejor = Math.min(mejor, llegada[j][p]);
+            return mejor;
+        }
+
+        private void recorrerLineas(int k) {
+            int[] lineas = new int[red.cantidadLineas()];
+            int cantidad = 0;
+            for (int i = 0; i < cantidadAnteriores; i++) {
+                int p = marcadasAnteriores[i];
+                for (int e = red.inicioPasadas(p); e < red.finPasadas(p); e++) {
+                    int l = red.lineaPasada(e);
+                    int pos = red.posicionPasada(e);
+                    if (primeraPosicion[l] < 0) {
+                        lineas[cantidad++] = l;
+                        primeraPosicion[l] = pos;
+                    } else if (pos < primeraPosicion[l]) {
+                        primeraPosicion[l] = pos;
+                    }
+                }
+            }
+            for (int i = 0; i < cantidad; i++) {
+                int l = lineas[i];
+                recorrerLinea(l, primeraPosicion[l], k);
+                primeraPosicion[l] = -1;
+            }
+        }
+
+        private void recorrerLinea(int l, int desde, int k) {
+            if (red.cantidadSalidas(l, diaSemana) == 0) return;
+
+            int v = -1;
+            int subida = -1;
+            int ronda = -1;
+            for (int i = desde; i < red.largo(l); i++) {
+                int p = red.parada(l, i);
+
+                if (v >= 0) {
+                    int arribo = red.salida(l, diaSemana, v) + red.tiempo(l, i);
+                    if (arribo < cota(k, p) && arribo < cotaDestino(k)) {
+                        llegada[k][p] = arribo;
+                        enColectivo[k][p] = arribo;
+                        caminoDesde[k][p] = -1;
+                        linea[k][p] = l;
+                        viaje[k][p] = v;
+                        posSubida[k][p] = subida;
+                        posBajada[k][p] = i;
+                        rondaSubida[k][p] = ronda;
+                        marcar(p);
+                        enColectivoMarcadas[cantidadEnColectivo++] = p;
+                    }
+                }
+
+                // Se sube con la mejor llegada a esta parada usando menos colectivos
+                int previa = INFINITO;
+                int rondaPrevia = -1;
+                for (int j = 0; j < k; j++) {
+                    if (llegada[j][p] < previa) {
+                        previa = llegada[j][p];
+                        rondaPrevia = j;
+                    }
+                }
+                if (previa != INFINITO && (v < 0 || previa <= red.salida(l, diaSemana, v) + red.tiempo(l, i))) {
+                    int w = red.buscarSalida(l, diaSemana, previa - red.tiempo(l, i));
+                    if (w >= 0 && (v < 0 || w < v)) {
+                        v = w;
+                        subida = i;
+                        ronda = rondaPrevia;
+                    }
+                }
+            }
+        }
+
+        /** Relaja los tramos caminando desde las paradas mejoradas en colectivo en esta ronda. */
+        private void relajarCaminando(int k) {
+            int cantidad = cantidadEnColectivo;
+            for (int i = 0; i < cantidad; i++) {
+                int p = enColectivoMarcadas[i];
+                for (int c = red.inicioCaminando(p); c < red.finCaminando(p); c++) {
+                    int q = red.vecinoCaminando(c);
+                    int arribo = enColectivo[k][p] + red.tiempoCaminando(c);
+                    if (arribo < cota(k, q) && arribo < cotaDestino(k)) {
+                        llegada[k][q] = arribo;
+                        caminoDesde[k][q] = p;
+                        marcar(q);
+                    }
+                }
+            }
+        }
+
+        /** Tramos en colectivo del viaje que llega a la parada en la ronda k, como en {@link ReceptorPatrones}. */
+        private int[] patron(int k, int p) {
+            int[] tramos = new int[3 * k];
+            int cantidad = 0;
+            int ronda = k;
+            boolean bajoDeColectivo = false;
+            while (true) {
+                if (!bajoDeColectivo && caminoDesde[ronda][p] >= 0) {
+                    p = caminoDesde[ronda][p];
+                    bajoDeColectivo = true;
+                    continue;
+                }
+                int l = linea[ronda][p];
+                if (l < 0) break;
+                int sube = posSubida[ronda][p];
+                tramos[cantidad++] = l;
+                tramos[cantidad++] = sube;
+                tramos[cantidad++] = posBajada[ronda][p];
+                int siguiente = rondaSubida[ronda][p];
+                p = red.parada(l, sube);
+                ronda = siguiente;
+                bajoDeColectivo = false;
+            }
+            // Se armó desde el final: se invierte el orden de los tramos
+            int[] patron = new int[cantidad];
+            for (int i = 0; i < cantidad; i += 3) {
+                System.arraycopy(tramos, cantidad - 3 - i, patron, i, 3);
+            }
+            return patron;
+        }
+
+        /** Arma el viaje que llega al destino en la ronda k, recorriendo las etiquetas hacia atrás. */
+        private Viaje reconstruir(int k, int hora) {
+            LinkedList<Recorrido> tramos = new LinkedList<>();
+            int p = destino;
+            int ronda = k;
+            boolean bajoDeColectivo = false;
+            int colectivos = 0;
+            while (true) {
+                if (!bajoDeColectivo && caminoDesde[ronda][p] >= 0) {
+                    int q = caminoDesde[ronda][p];
+                    int salida = enColectivo[ronda][q];
+                    tramos.addFirst(new Recorrido(null, List.of(red.getParada(q), red.getParada(p)),
+                            Tiempo.aHora(salida), llegada[ronda][p] - salida));
+                    p = q;
+                    bajoDeColectivo = true;
+                    continue;
+                }
+                int l = linea[ronda][p];
+                if (l < 0) break;
+                int sube = posSubida[ronda][p];
+                int salida = red.salida(l, diaSemana, viaje[ronda][p]) + red.tiempo(l, sube);
+                List<Parada> paradas = new ArrayList<>(red.getLinea(l).getParadas().subList(sube, posBajada[ronda][p] + 1));
+                tramos.addFirst(new Recorrido(red.getLinea(l), paradas, Tiempo.aHora(salida), enColectivo[ronda][p] - salida));
+                colectivos++;
+                int siguiente = rondaSubida[ronda][p];
+                p = red.parada(l, sube);
+                ronda = siguiente;
+                bajoDeColectivo = false;
+            }
+            return new Viaje(hora, llegada[k][destino], colectivos, new ArrayList<>(tramos));
+        }
+    }
+
+
+    /** Viaje encontrado para una hora de salida. */
+    private static final class Viaje {
+        final int salida;
+        final int llegada;
+        final int colectivos;
+        final List<Recorrido> recorridos;
+
+        Viaje(int salida, int llegada, int colectivos, List<Recorrido> recorridos) {
+            this.salida = salida;
+            this.llegada = llegada;
+            this.colectivos = colectivos;
+            this.recorridos = recorridos;
+        }
+    }
+}
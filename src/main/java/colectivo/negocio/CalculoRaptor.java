@@ -0,0 +1,340 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase CalculoRaptor
+ * ------------------------
+ * Motor de recorridos basado en RAPTOR (Round-bAsed Public Transit Optimized Router).
+ *
+ * La búsqueda avanza por rondas: en la ronda k se recorre una única vez cada línea
+ * que pasa por alguna parada mejorada en la ronda anterior, por lo que al terminar
+ * la ronda k se conoce la llegada más temprana a cada parada usando a lo sumo k colectivos.
+ * Al final de cada ronda se relajan los tramos caminando de las paradas mejoradas.
+ *
+ * Se devuelve un viaje por cada cantidad de colectivos que mejora la hora de llegada
+ * al destino, ordenados de menos a más trasbordos.
+ *
+ * Trabaja sobre la {@link RedCompilada}: las etiquetas de cada ronda son arreglos
+ * indexados por parada, y las caminatas son las de la red compilada.
+ */
+public class CalculoRaptor implements MotorRecorridos {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoRaptor.class.getName());
+
+    /** Cantidad máxima de colectivos por viaje si no se indica otra. */
+    public static final int RONDAS_POR_DEFECTO = 5;
+
+    private static final int SIN_LLEGADA = Integer.MAX_VALUE;
+
+    private final RedCompilada red;
+    private final int maxRondas;
+
+    /** Estado de consulta de cada hilo. */
+    private final ThreadLocal<Busqueda> busquedas = ThreadLocal.withInitial(Busqueda::new);
+
+    public CalculoRaptor(RedCompilada red) {
+        this(red, RONDAS_POR_DEFECTO);
+    }
+
+    /**
+     * @param red red compilada del sistema
+     * @param maxRondas cantidad máxima de colectivos que puede tomar un viaje
+     */
+    public CalculoRaptor(RedCompilada red, int maxRondas) {
+        if (maxRondas < 1) {
+            throw new IllegalArgumentException("La cantidad de rondas debe ser al menos 1: " + maxRondas);
+        }
+        this.red = red;
+        this.maxRondas = maxRondas;
+    }
+
+    @Override
+    public List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || origen == destino || !RedCompilada.diaValido(diaSemana)) {
+            return resultados;
+        }
+
+        Busqueda busqueda = busquedas.get();
+        busqueda.preparar(destino, diaSemana);
+        busqueda.iniciar(origen, horaLlegaParada.toSecondOfDay());
+        if (busqueda.llegada[0][destino] != SIN_LLEGADA) {
+            resultados.add(busqueda.reconstruir(0));
+        }
+
+        for (int k = 1; k <= maxRondas && busqueda.cantidadMarcadas > 0; k++) {
+            busqueda.ejecutarRonda(k);
+            if (busqueda.llegada[k][destino] != SIN_LLEGADA) {
+                resultados.add(busqueda.reconstruir(k));
+            }
+        }
+
+        LOGGER.info("RAPTOR: " + resultados.size() + " recorridos encontrados entre "
+                + paradaOrigen.getCodigo() + " y " + paradaDestino.getCodigo());
+        return resultados;
+    }
+
+    // ==============================
+    // ESTADO DE UNA BÚSQUEDA
+    // ==============================
+
+    /**
+     * Estado de una consulta. Para la ronda k y la parada p se guarda la llegada final
+     * (en colectivo o caminando) y la llegada en colectivo con el viaje que la produjo.
+     * Una etiqueta solo se escribe si mejora la mejor llegada conocida a la parada, así que
+     * la ronda con llegada a una parada es la ronda en la que se mejoró.
+     *
+     * Se crea uno por hilo y se reutiliza: {@link #preparar} vuelve a su valor inicial solo
+     * las paradas que la consulta anterior etiquetó en cada ronda.
+     */
+    private final class Busqueda {
+
+        private int destino;
+        private int diaSemana;
+
+        /** Llegada final: en colectivo, o caminando si la caminata llega antes. */
+        private final int[][] llegada;
+        /** Parada desde la que se llegó caminando; -1 si la llegada final es en colectivo. */
+        private final int[][] caminoDesde;
+        /** Llegada en colectivo, con la línea, el viaje, las posiciones y la ronda de subida. */
+        private final int[][] enColectivo;
+        private final int[][] linea;
+        private final int[][] viaje;
+        private final int[][] posSubida;
+        private final int[][] posBajada;
+        private final int[][] rondaSubida;
+
+        /** Mejor llegada a cada parada en cualquier ronda, para podar. */
+        private final int[] mejorLlegada;
+
+        private final boolean[] marcada;
+        private int[] marcadas;
+        private int cantidadMarcadas;
+        private int[] marcadasAnteriores;
+        private int cantidadAnteriores;
+
+        /** Primera posición marcada de cada línea en la ronda; -1 si no hay que recorrerla. */
+        private final int[] primeraPosicion;
+        /** Líneas a recorrer en la ronda, en el orden en que se marcaron. */
+        private final int[] lineas;
+        /** Paradas etiquetadas en cada ronda. */
+        private final IndicesModificados[] modificados;
+
+        Busqueda() {
+            int n = red.cantidadParadas();
+            int rondas = maxRondas + 1;
+            llegada = new int[rondas][n];
+            caminoDesde = new int[rondas][n];
+            enColectivo = new int[rondas][n];
+            linea = new int[rondas][n];
+            viaje = new int[rondas][n];
+            posSubida = new int[rondas][n];
+            posBajada = new int[rondas][n];
+            rondaSubida = new int[rondas][n];
+            modificados = new IndicesModificados[rondas];
+            for (int k = 0; k < rondas; k++) {
+                modificados[k] = new IndicesModificados(n);
+                Arrays.fill(llegada[k], SIN_LLEGADA);
+                Arrays.fill(enColectivo[k], SIN_LLEGADA);
+                Arrays.fill(caminoDesde[k], -1);
+                Arrays.fill(linea[k], -1);
+            }
+            mejorLlegada = new int[n];
+            Arrays.fill(mejorLlegada, SIN_LLEGADA);
+            marcada = new boolean[n];
+            marcadas = new int[n];
+            marcadasAnteriores = new int[n];
+            primeraPosicion = new int[red.cantidadLineas()];
+            lineas = new int[red.cantidadLineas()];
+            Arrays.fill(primeraPosicion, -1);
+        }
+
+        void preparar(int destino, int diaSemana) {
+            for (int k = 0; k < modificados.length; k++) {
+                for (int i = 0; i < modificados[k].cantidad(); i++) {
+                    int p = modificados[k].get(i);
+                    llegada[k][p] = SIN_LLEGADA;
+                    enColectivo[k][p] = SIN_LLEGADA;
+                    caminoDesde[k][p] = -1;
+                    linea[k][p] = -1;
+                    mejorLlegada[p] = SIN_LLEGADA;
+                }
+                modificados[k].limpiar();
+            }
+            for (int i = 0; i < cantidadMarcadas; i++) marcada[marcadas[i]] = false;
+            cantidadMarcadas = 0;
+            cantidadAnteriores = 0;
+            this.destino = destino;
+            this.diaSemana = diaSemana;
+        }
+
+        void iniciar(int origen, int horaInicio) {
+            modificados[0].agregar(origen);
+            llegada[0][origen] = horaInicio;
+            enColectivo[0][origen] = horaInicio;
+            mejorLlegada[origen] = horaInicio;
+            marcar(origen);
+            relajarCaminando(0);
+        }
+
+        void ejecutarRonda(int k) {
+            for (int i = 0; i < cantidadMarcadas; i++) marcada[marcadas[i]] = false;
+            int[] paradas = marcadasAnteriores;
+            marcadasAnteriores = marcadas;
+            cantidadAnteriores = cantidadMarcadas;
+            marcadas = paradas;
+            cantidadMarcadas = 0;
+
+            // Cada línea que pasa por una parada marcada se recorre desde la primera de ellas
+            int cantidad = 0;
+            for (int i = 0; i < cantidadAnteriores; i++) {
+                int p = marcadasAnteriores[i];
+                for (int e = red.inicioPasadas(p); e < red.finPasadas(p); e++) {
+                    int l = red.lineaPasada(e);
+                    int pos = red.posicionPasada(e);
+                    if (primeraPosicion[l] < 0) {
+                        lineas[cantidad++] = l;
+                        primeraPosicion[l] = pos;
+                    } else {
+                        primeraPosicion[l] = Math.min(primeraPosicion[l], pos);
+                    }
+                }
+            }
+            for (int i = 0; i < cantidad; i++) {
+                int l = lineas[i];
+                recorrerLinea(l, primeraPosicion[l], k);
+                primeraPosicion[l] = -1;
+            }
+            relajarCaminando(k);
+        }
+
+        private void marcar(int p) {
+            if (!marcada[p]) {
+                marcada[p] = true;
+                marcadas[cantidadMarcadas++] = p;
+            }
+        }
+
+        private void recorrerLinea(int l, int desde, int k) {
+            if (red.cantidadSalidas(l, diaSemana) == 0) return;
+
+            int v = -1;
+            int subida = -1;
+            int ronda = -1;
+            for (int i = desde; i < red.largo(l); i++) {
+                int p = red.parada(l, i);
+
+                // Si ya vamos en un colectivo, intentamos mejorar la llegada a esta parada
+                if (v >= 0) {
+                    int arribo = red.salida(l, diaSemana, v) + red.tiempo(l, i);
+                    if (arribo < mejorLlegada[p] && arribo < mejorLlegada[destino]) {
+                        modificados[k].agregar(p);
+                        llegada[k][p] = arribo;
+                        enColectivo[k][p] = arribo;
+                        caminoDesde[k][p] = -1;
+                        linea[k][p] = l;
+                        viaje[k][p] = v;
+                        posSubida[k][p] = subida;
+                        posBajada[k][p] = i;
+                        rondaSubida[k][p] = ronda;
+                        mejorLlegada[p] = arribo;
+                        marcar(p);
+                    }
+                }
+
+                // Si se llegó a esta parada en una ronda anterior, intentamos tomar un colectivo antes
+                int previa = SIN_LLEGADA;
+                int rondaPrevia = -1;
+                for (int j = 0; j < k; j++) {
+                    if (llegada[j][p] < previa) {
+                        previa = llegada[j][p];
+                        rondaPrevia = j;
+                    }
+                }
+                if (previa != SIN_LLEGADA && (v < 0 || previa <= red.salida(l, diaSemana, v) + red.tiempo(l, i))) {
+                    int w = red.buscarSalida(l, diaSemana, previa - red.tiempo(l, i));
+                    if (w >= 0 && (v < 0 || w < v)) {
+                        v = w;
+                        subida = i;
+                        ronda = rondaPrevia;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Relaja los tramos caminando desde las paradas a las que se llegó en colectivo
+         * en esta ronda. Solo se permite una caminata entre dos colectivos.
+         */
+        private void relajarCaminando(int k) {
+            int cantidad = cantidadMarcadas;
+            for (int i = 0; i < cantidad; i++) {
+                int p = marcadas[i];
+                for (int c = red.inicioCaminando(p); c < red.finCaminando(p); c++) {
+                    int q = red.vecinoCaminando(c);
+                    int arribo = enColectivo[k][p] + red.tiempoCaminando(c);
+                    if (arribo < mejorLlegada[q] && arribo < mejorLlegada[destino]) {
+                        modificados[k].agregar(q);
+                        llegada[k][q] = arribo;
+                        caminoDesde[k][q] = p;
+                        mejorLlegada[q] = arribo;
+                        marcar(q);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Arma el viaje que llega al destino en la ronda k, recorriendo las etiquetas hacia atrás.
+         */
+        List<Recorrido> reconstruir(int k) {
+            List<Recorrido> tramos = new ArrayList<>();
+            int p = destino;
+            int ronda = k;
+            while (true) {
+                int q = caminoDesde[ronda][p];
+                if (q >= 0) {
+                    int sale = enColectivo[ronda][q];
+                    tramos.add(new Recorrido(null, List.of(red.getParada(q), red.getParada(p)),
+                            Tiempo.aHora(sale), llegada[ronda][p] - sale));
+                    p = q;
+                }
+                int l = linea[ronda][p];
+                if (l < 0) break;
+                int sube = posSubida[ronda][p];
+                int baja = posBajada[ronda][p];
+                int sale = red.salida(l, diaSemana, viaje[ronda][p]) + red.tiempo(l, sube);
+                tramos.add(new Recorrido(red.getLinea(l),
+                        new ArrayList<>(red.getLinea(l).getParadas().subList(sube, baja + 1)),
+                        Tiempo.aHora(sale), enColectivo[ronda][p] - sale));
+                int siguiente = rondaSubida[ronda][p];
+                p = red.parada(l, sube);
+                ronda = siguiente;
+            }
+            Collections.reverse(tramos);
+            return tramos;
+        }
+    }
+}
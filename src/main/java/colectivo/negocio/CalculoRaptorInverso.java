@@ -0,0 +1,355 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase CalculoRaptorInverso
+ * ------------------------
+ * Búsqueda "llegar antes de": RAPTOR ejecutado hacia atrás desde la parada destino.
+ *
+ * Cada etiqueta indica la hora más tardía a la que se puede estar en una parada y
+ * todavía llegar al destino a tiempo. En la ronda k se recorre cada línea desde la
+ * última parada marcada hacia el inicio: al encontrar una parada donde conviene
+ * bajarse se toma el último colectivo que llega a tiempo, y en las paradas anteriores
+ * se registra la hora a la que ese colectivo pasa por ellas.
+ *
+ * Se devuelve un viaje por cada cantidad de colectivos que permite salir más tarde
+ * del origen, ordenados de menos a más trasbordos.
+ */
+public class CalculoRaptorInverso {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoRaptorInverso.class.getName());
+
+    /** Cantidad máxima de colectivos por viaje si no se indica otra. */
+    public static final int RONDAS_POR_DEFECTO = 5;
+
+    private static final int SIN_LLEGADA = Integer.MIN_VALUE;
+
+    private final RedCompilada red;
+    private final int maxRondas;
+
+    /** Estado de consulta de cada hilo. */
+    private final ThreadLocal<Busqueda> busquedas = ThreadLocal.withInitial(Busqueda::new);
+
+    public CalculoRaptorInverso(RedCompilada red) {
+        this(red, RONDAS_POR_DEFECTO);
+    }
+
+    /**
+     * @param red red compilada del sistema
+     * @param maxRondas cantidad máxima de colectivos que puede tomar un viaje
+     */
+    public CalculoRaptorInverso(RedCompilada red, int maxRondas) {
+        if (maxRondas < 1) {
+            throw new IllegalArgumentException("La cantidad de rondas debe ser al menos 1: " + maxRondas);
+        }
+        this.red = red;
+        this.maxRondas = maxRondas;
+    }
+
+    /**
+     * Calcula los viajes que salen lo más tarde posible del origen y llegan al destino
+     * a la hora indicada o antes.
+     *
+     * @param paradaOrigen  Parada donde inicia el viaje
+     * @param paradaDestino Parada donde termina el viaje
+     * @param diaSemana     Día de la semana
+     * @param horaLimite    Hora máxima de llegada al destino
+     * @return un viaje por cada cantidad de colectivos que permite salir más tarde
+     */
+    public List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLimite) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || origen == destino || !RedCompilada.diaValido(diaSemana)) {
+            return resultados;
+        }
+
+        Busqueda busqueda = busquedas.get();
+        busqueda.preparar(origen, diaSemana);
+        busqueda.iniciar(destino, horaLimite.toSecondOfDay());
+        int mejor = busqueda.salida[0][origen];
+        if (mejor != SIN_LLEGADA) {
+            resultados.add(busqueda.reconstruir(0));
+        }
+        for (int k = 1; k <= maxRondas && busqueda.cantidadMarcadas > 0; k++) {
+            busqueda.ejecutarRonda(k);
+            if (busqueda.salida[k][origen] > mejor) {
+                mejor = busqueda.salida[k][origen];
+                resultados.add(busqueda.reconstruir(k));
+            }
+        }
+
+        LOGGER.info("RAPTOR inverso: " + resultados.size() + " recorridos entre " + paradaOrigen.getCodigo()
+                + " y " + paradaDestino.getCodigo() + " llegando antes de " + horaLimite);
+        return resultados;
+    }
+
+    // ==============================
+    // ESTADO DE UNA BÚSQUEDA
+    // ==============================
+
+    /**
+     * Estado de una consulta. Para la ronda k y la parada p se guarda la hora más tardía
+     * a la que se puede salir de p (subiendo a un colectivo o empezando a caminar) y cómo
+     * se sigue desde allí.
+     *
+     * Se crea uno por hilo y se reutiliza: {@link #preparar} vuelve a su valor inicial solo
+     * las paradas que la consulta anterior etiquetó en cada ronda.
+     */
+    private final class Busqueda {
+
+        private int origen;
+        private int diaSemana;
+
+        private final int[][] salida;
+        /** Parada a la que se camina desde p, -1 si se sale de p en colectivo. */
+        private final int[][] caminoHacia;
+        private final int[][] caminata;
+        private final int[][] enColectivo;
+        private final int[][] linea;
+        private final int[][] viaje;
+        private final int[][] posSubida;
+        private final int[][] posBajada;
+        private final int[][] rondaBajada;
+
+        private final boolean[] marcada;
+        private int[] marcadas;
+        private int cantidadMarcadas;
+        private int[] marcadasAnteriores;
+        private int cantidadAnteriores;
+        private final int[] enColectivoMarcadas;
+        private int cantidadEnColectivo;
+
+        /** Última posición marcada de cada línea en la ronda; -1 si no hay que recorrerla. */
+        private final int[] ultimaPosicion;
+        /** Líneas a recorrer en la ronda. */
+        private final int[] lineas;
+        /** Paradas etiquetadas en cada ronda. */
+        private final IndicesModificados[] modificados;
+
+        Busqueda() {
+            int n = red.cantidadParadas();
+            int rondas = maxRondas + 1;
+            salida = new int[rondas][n];
+            caminoHacia = new int[rondas][n];
+            caminata = new int[rondas][n];
+            enColectivo = new int[rondas][n];
+            linea = new int[rondas][n];
+            viaje = new int[rondas][n];
+            posSubida = new int[rondas][n];
+            posBajada = new int[rondas][n];
+            rondaBajada = new int[rondas][n];
+            modificados = new IndicesModificados[rondas];
+            for (int k = 0; k < rondas; k++) {
+                modificados[k] = new IndicesModificados(n);
+                Arrays.fill(salida[k], SIN_LLEGADA);
+                Arrays.fill(enColectivo[k], SIN_LLEGADA);
+                Arrays.fill(caminoHacia[k], -1);
+                Arrays.fill(linea[k], -1);
+            }
+            marcada = new boolean[n];
+            marcadas = new int[n];
+            marcadasAnteriores = new int[n];
+            enColectivoMarcadas = new int[n];
+            ultimaPosicion = new int[red.cantidadLineas()];
+            lineas = new int[red.cantidadLineas()];
+            Arrays.fill(ultimaPosicion, -1);
+        }
+
+        void preparar(int origen, int diaSemana) {
+            for (int k = 0; k < modificados.length; k++) {
+                for (int i = 0; i < modificados[k].cantidad(); i++) {
+                    int p = modificados[k].get(i);
+                    salida[k][p] = SIN_LLEGADA;
+                    enColectivo[k][p] = SIN_LLEGADA;
+                    caminoHacia[k][p] = -1;
+                    linea[k][p] = -1;
+                }
+                modificados[k].limpiar();
+            }
+            for (int i = 0; i < cantidadMarcadas; i++) marcada[marcadas[i]] = false;
+            cantidadMarcadas = 0;
+            cantidadAnteriores = 0;
+            cantidadEnColectivo = 0;
+            this.origen = origen;
+            this.diaSemana = diaSemana;
+        }
+
+        void iniciar(int destino, int horaLimite) {
+            modificados[0].agregar(destino);
+            salida[0][destino] = horaLimite;
+            enColectivo[0][destino] = horaLimite;
+            marcar(destino);
+            enColectivoMarcadas[cantidadEnColectivo++] = destino;
+            relajarCaminando(0);
+        }
+
+        void ejecutarRonda(int k) {
+            for (int i = 0; i < cantidadMarcadas; i++) marcada[marcadas[i]] = false;
+            int[] paradas = marcadasAnteriores;
+            marcadasAnteriores = marcadas;
+            cantidadAnteriores = cantidadMarcadas;
+            marcadas = paradas;
+            cantidadMarcadas = 0;
+            cantidadEnColectivo = 0;
+
+            int cantidad = 0;
+            for (int i = 0; i < cantidadAnteriores; i++) {
+                int p = marcadasAnteriores[i];
+                for (int e = red.inicioPasadas(p); e < red.finPasadas(p); e++) {
+                    int l = red.lineaPasada(e);
+                    int pos = red.posicionPasada(e);
+                    if (ultimaPosicion[l] < 0) lineas[cantidad++] = l;
+                    ultimaPosicion[l] = Math.max(ultimaPosicion[l], pos);
+                }
+            }
+            for (int i = 0; i < cantidad; i++) {
+                int l = lineas[i];
+                recorrerLinea(l, ultimaPosicion[l], k);
+                ultimaPosicion[l] = -1;
+            }
+            relajarCaminando(k);
+        }
+
+        private void marcar(int p) {
+            if (!marcada[p]) {
+                marcada[p] = true;
+                marcadas[cantidadMarcadas++] = p;
+            }
+        }
+
+        /** Salida más tardía de la parada usando a lo sumo k colectivos. */
+        private int cota(int k, int p) {
+            int mejor = SIN_LLEGADA;
+            for (int j = 0; j <= k; j++) mejor = Math.max(mejor, salida[j][p]);
+            return mejor;
+        }
+
+        /**
+         * Recorre la línea hacia atrás desde la posición indicada. En cada parada primero
+         * se registra la subida al colectivo en curso y después se intenta bajar en ella
+         * de un colectivo que pase más tarde.
+         */
+        private void recorrerLinea(int l, int hasta, int k) {
+            if (red.cantidadSalidas(l, diaSemana) == 0) return;
+
+            int v = -1;
+            int bajada = -1;
+            int ronda = -1;
+            for (int i = hasta; i >= 0; i--) {
+                int p = red.parada(l, i);
+
+                if (v >= 0) {
+                    int pasa = red.salida(l, diaSemana, v) + red.tiempo(l, i);
+                    if (pasa > cota(k, p) && pasa > cota(k, origen)) {
+                        modificados[k].agregar(p);
+                        salida[k][p] = pasa;
+                        enColectivo[k][p] = pasa;
+                        caminoHacia[k][p] = -1;
+                        linea[k][p] = l;
+                        viaje[k][p] = v;
+                        posSubida[k][p] = i;
+                        posBajada[k][p] = bajada;
+                        rondaBajada[k][p] = ronda;
+                        marcar(p);
+                        enColectivoMarcadas[cantidadEnColectivo++] = p;
+                    }
+                }
+
+                // Se baja con la salida más tardía de esta parada usando menos colectivos
+                int limite = SIN_LLEGADA;
+                int rondaLimite = -1;
+                for (int j = 0; j < k; j++) {
+                    if (salida[j][p] > limite) {
+                        limite = salida[j][p];
+                        rondaLimite = j;
+                    }
+                }
+                if (limite != SIN_LLEGADA && (v < 0 || limite >= red.salida(l, diaSemana, v) + red.tiempo(l, i))) {
+                    int w = red.buscarSalidaAnterior(l, diaSemana, limite - red.tiempo(l, i));
+                    if (w >= 0 && (v < 0 || w > v)) {
+                        v = w;
+                        bajada = i;
+                        ronda = rondaLimite;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Relaja los tramos caminando hacia las paradas donde se sube a un colectivo en
+         * esta ronda (o hacia el destino en la ronda 0). Solo se permite una caminata entre
+         * dos colectivos.
+         */
+        private void relajarCaminando(int k) {
+            int cantidad = cantidadEnColectivo;
+            for (int i = 0; i < cantidad; i++) {
+                int p = enColectivoMarcadas[i];
+                for (int c = red.inicioCaminando(p); c < red.finCaminando(p); c++) {
+                    int q = red.vecinoCaminando(c);
+                    int parte = enColectivo[k][p] - red.tiempoCaminando(c);
+                    if (parte > cota(k, q) && parte > cota(k, origen)) {
+                        modificados[k].agregar(q);
+                        salida[k][q] = parte;
+                        caminoHacia[k][q] = p;
+                        caminata[k][q] = red.tiempoCaminando(c);
+                        marcar(q);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Arma el viaje que sale del origen en la ronda k, recorriendo las etiquetas hacia
+         * el destino. Las caminatas empiezan apenas se llega a la parada.
+         */
+        List<Recorrido> reconstruir(int k) {
+            List<Recorrido> tramos = new ArrayList<>();
+            int p = origen;
+            int ronda = k;
+            int hora = salida[k][origen];
+            boolean caminando = false;
+            while (true) {
+                if (!caminando && caminoHacia[ronda][p] >= 0) {
+                    int q = caminoHacia[ronda][p];
+                    int tiempo = caminata[ronda][p];
+                    tramos.add(new Recorrido(null, List.of(red.getParada(p), red.getParada(q)), Tiempo.aHora(hora), tiempo));
+                    hora += tiempo;
+                    p = q;
+                    caminando = true;
+                    continue;
+                }
+                int l = linea[ronda][p];
+                if (l < 0) break;
+                int sube = posSubida[ronda][p];
+                int baja = posBajada[ronda][p];
+                int sale = red.salida(l, diaSemana, viaje[ronda][p]) + red.tiempo(l, sube);
+                int duracion = red.tiempo(l, baja) - red.tiempo(l, sube);
+                tramos.add(new Recorrido(red.getLinea(l),
+                        new ArrayList<>(red.getLinea(l).getParadas().subList(sube, baja + 1)), Tiempo.aHora(sale), duracion));
+                hora = sale + duracion;
+                int siguiente = rondaBajada[ronda][p];
+                p = red.parada(l, baja);
+                ronda = siguiente;
+                caminando = false;
+            }
+            return tramos;
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase CalculoTripBased
+ * ------------------------
+ * Motor de recorridos basado en Trip-Based Public Transit Routing.
+ *
+ * Al construirse expande las salidas de cada línea de cada día en viajes concretos (la
+ * hora de paso por cada parada es la salida más el tiempo acumulado de la línea) y calcula
+ * una sola vez los trasbordos entre viajes: desde cada parada de un viaje, al primer viaje
+ * de cada línea que se puede tomar en la misma parada o caminando a una vecina. Después
+ * descarta los trasbordos que no mejoran la llegada a ninguna parada respecto de seguir en
+ * el mismo colectivo o de trasbordar más adelante.
+ *
+ * Una consulta solo sigue esos trasbordos, por rondas: en la ronda n se recorren los
+ * tramos de viaje alcanzados con n trasbordos. No hay búsquedas binarias de salidas salvo
+ * en el origen, por lo que el tiempo de consulta es bajo y estable.
+ *
+ * Como en los demás motores, no se encadenan dos caminatas seguidas. Se devuelve un viaje
+ * por cada cantidad de colectivos que mejora la hora de llegada al destino, ordenados de
+ * menos a más trasbordos.
+ */
+public class CalculoTripBased implements MotorRecorridos {
+
+    private static final Logger LOGGER = LogManager.getLogger(CalculoTripBased.class.getName());
+
+    private static final int INFINITO = Integer.MAX_VALUE;
+
+    /** Cantidad máxima de colectivos por viaje si no se indica otra. */
+    public static final int RONDAS_POR_DEFECTO = 5;
+
+    private final RedCompilada red;
+    private final int maxRondas;
+
+    /** Viajes y trasbordos por día de la semana (posición 0 = lunes). */
+    private final Viajes[] viajesPorDia = new Viajes[RedCompilada.DIAS];
+
+    /** Primera posición de cada línea en un arreglo con todas las posiciones de todas las líneas. */
+    private final int[] basePosicion;
+
+    private final int maxViajes;
+    private final long trasbordosGenerados;
+    private final long trasbordosConservados;
+    private final long milisegundosPreparacion;
+
+    /** Estado de consulta de cada hilo. */
+    private final ThreadLocal<Busqueda> busquedas = ThreadLocal.withInitial(Busqueda::new);
+
+    public CalculoTripBased(RedCompilada red) {
+        this(red, RONDAS_POR_DEFECTO);
+    }
+
+    /**
+     * Expande los viajes de todos los días y calcula sus trasbordos.
+     *
+     * @param red       red compilada del sistema
+     * @param maxRondas cantidad máxima de colectivos que puede tomar un viaje
+     */
+    public CalculoTripBased(RedCompilada red, int maxRondas) {
+        if (maxRondas < 1) {
+            throw new IllegalArgumentException("La cantidad de rondas debe ser al menos 1: " + maxRondas);
+        }
+        this.red = red;
+        this.maxRondas = maxRondas;
+
+        basePosicion = new int[red.cantidadLineas() + 1];
+        for (int l = 0; l < red.cantidadLineas(); l++) basePosicion[l + 1] = basePosicion[l] + red.largo(l);
+
+        long inicio = System.nanoTime();
+        Reduccion reduccion = new Reduccion();
+        int viajes = 0;
+        long generados = 0;
+        long conservados = 0;
+        for (int dia = 1; dia <= RedCompilada.DIAS; dia++) {
+            Viajes v = new Viajes(dia, reduccion);
+            viajesPorDia[dia - 1] = v;
+            viajes = Math.max(viajes, v.cantidad);
+            generados += v.generados;
+            conservados += v.inicioTrasbordo[v.basePosicion[v.cantidad]];
+        }
+        maxViajes = viajes;
+        trasbordosGenerados = generados;
+        trasbordosConservados = conservados;
+        milisegundosPreparacion = (System.nanoTime() - inicio) / 1_000_000;
+        LOGGER.info("Trip-Based: " + conservados + " trasbordos entre viajes (de " + generados
+                + " generados) en " + milisegundosPreparacion + " ms.");
+    }
+
+    /** @return trasbordos entre viajes de todos los días, antes de descartar los que no sirven */
+    public long getTrasbordosGenerados() {
+        return trasbordosGenerados;
+    }
+
+    /** @return trasbordos entre viajes de todos los días que usan las consultas */
+    public long getTrasbordosConservados() {
+        return trasbordosConservados;
+    }
+
+    /** @return tiempo que llevó expandir los viajes y calcular sus trasbordos */
+    public long getMilisegundosPreparacion() {
+        return milisegundosPreparacion;
+    }
+
+    @Override
+    public List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos) {
+
+        List<List<Recorrido>> resultados = new ArrayList<>();
+        int origen = red.indice(paradaOrigen);
+        int destino = red.indice(paradaDestino);
+        if (origen < 0 || destino < 0 || origen == destino || !RedCompilada.diaValido(diaSemana)) {
+            return resultados;
+        }
+
+        Busqueda busqueda = busquedas.get();
+        busqueda.preparar(viajesPorDia[diaSemana - 1], destino);
+        busqueda.iniciar(origen, horaLlegaParada.toSecondOfDay(), resultados);
+        for (int n = 0; n < maxRondas && busqueda.hayTramos(); n++) {
+            if (busqueda.ejecutarRonda()) {
+                resultados.add(busqueda.reconstruir());
+            }
+        }
+
+        LOGGER.info("Trip-Based: " + resultados.size() + " recorridos encontrados entre "
+                + paradaOrigen.getCodigo() + " y " + paradaDestino.getCodigo());
+        return resultados;
+    }
+
+    // ==============================
+    // VIAJES Y TRASBORDOS DE UN DÍA
+    // ==============================
+
+    /**
+     * Viajes de un día y trasbordos entre ellos. Los viajes de una línea son consecutivos y
+     * están ordenados por hora de salida; como todos los viajes de una línea tardan lo mismo
+     * entre paradas, ninguno adelanta a otro.
+     */
+    private final class Viajes {
+        final int dia;
+        final int cantidad;
+        /** Primer viaje de cada línea; los de la línea l son {@code [primerViaje[l], primerViaje[l + 1])}. */
+        final int[] primerViaje;
+        final int[] lineaViaje;
+        final int[] salidaViaje;
+        /** Primera posición de cada viaje en los arreglos de trasbordos. */
+        final int[] basePosicion;
+
+        /** Trasbordos desde la posición i del viaje t: {@code [inicioTrasbordo[b], inicioTrasbordo[b + 1])}, con b = basePosicion[t] + i. */
+        final int[] inicioTrasbordo;
+        final int[] trasbordoViaje;
+        final int[] trasbordoPosicion;
+        final int[] trasbordoCaminata;
+        final long generados;
+
+        Viajes(int dia, Reduccion reduccion) {
+            this.dia = dia;
+            int lineas = red.cantidadLineas();
+            primerViaje = new int[lineas + 1];
+            for (int l = 0; l < lineas; l++) primerViaje[l + 1] = primerViaje[l] + red.cantidadSalidas(l, dia);
+            cantidad = primerViaje[lineas];
+            lineaViaje = new int[cantidad];
+            salidaViaje = new int[cantidad];
+            basePosicion = new int[cantidad + 1];
+            for (int l = 0; l < lineas; l++) {
+                for (int t = primerViaje[l]; t < primerViaje[l + 1]; t++) {
+                    lineaViaje[t] = l;
+                    salidaViaje[t] = red.salida(l, dia, t - primerViaje[l]);
+                    basePosicion[t + 1] = basePosicion[t] + red.largo(l);
+                }
+            }
+
+            inicioTrasbordo = new int[basePosicion[cantidad] + 1];
+            Arreglo viaje = new Arreglo();
+            Arreglo posicion = new Arreglo();
+            Arreglo caminata = new Arreglo();
+            Arreglo candidatos = new Arreglo();
+            long total = 0;
+            for (int t = 0; t < cantidad; t++) {
+                total += reduccion.calcular(this, t, candidatos, viaje, posicion, caminata);
+            }
+            generados = total;
+            trasbordoViaje = viaje.recortar();
+            trasbordoPosicion = posicion.recortar();
+            trasbordoCaminata = caminata.recortar();
+        }
+
+        /** Hora de paso del viaje por la posición indicada. */
+        int pasa(int t, int i) {
+            return salidaViaje[t] + red.tiempo(lineaViaje[t], i);
+        }
+
+        /** Primer viaje de la línea que pasa por la posición a la hora indicada o después; -1 si no hay. */
+        int primeroDesde(int l, int i, int hora) {
+            int v = red.buscarSalida(l, dia, hora - red.tiempo(l, i));
+            return v < 0 ? -1 : primerViaje[l] + v;
+        }
+    }
+
+    /**
+     * Genera los trasbordos de un viaje y descarta los que no sirven. Se recorre el viaje
+     * desde el final: en cada parada se guarda la mejor llegada conocida usando el viaje y
+     * los trasbordos ya conservados de posiciones posteriores, y un trasbordo se conserva
+     * solo si mejora la llegada a alguna parada del viaje al que se pasa (o a una vecina
+     * caminando desde ella).
+     */
+    private final class Reduccion {
+        /** Mejor llegada en colectivo a cada parada, y mejor llegada de cualquier forma. */
+        private final int[] enColectivo;
+        private final int[] llegada;
+        private final IndicesModificados modificadas;
+
+        Reduccion() {
+            int n = red.cantidadParadas();
+            enColectivo = new int[n];
+            llegada = new int[n];
+            modificadas = new IndicesModificados(n);
+            Arrays.fill(enColectivo, INFINITO);
+            Arrays.fill(llegada, INFINITO);
+        }
+
+        /** @return cantidad de trasbordos generados antes de descartar */
+        int calcular(Viajes vs, int t, Arreglo candidatos, Arreglo viaje, Arreglo posicion, Arreglo caminata) {
+            int l = vs.lineaViaje[t];
+            int largo = red.largo(l);
+            int generados = 0;
+            int[] trasbordosPorPosicion = new int[largo];
+
+            // Las listas se arman de atrás hacia adelante y se invierten al final
+            int desde = viaje.cantidad;
+            for (int i = largo - 1; i >= 1; i--) {
+                int p = red.parada(l, i);
+                int baja = vs.pasa(t, i);
+                mejorar(p, baja);
+
+                candidatos.cantidad = 0;
+                agregarCandidatos(vs, l, i, p, baja, 0, candidatos);
+                for (int e = red.inicioCaminando(p); e < red.finCaminando(p); e++) {
+                    agregarCandidatos(vs, l, i, red.vecinoCaminando(e), baja, red.tiempoCaminando(e), candidatos);
+                }
+                generados += candidatos.cantidad / 3;
+                for (int c = 0; c < candidatos.cantidad; c += 3) {
+                    int u = candidatos.datos[c];
+                    int j = candidatos.datos[c + 1];
+                    if (mejora(vs, u, j)) {
+                        viaje.agregar(u);
+                        posicion.agregar(j);
+                        caminata.agregar(candidatos.datos[c + 2]);
+                        trasbordosPorPosicion[i]++;
+                    }
+                }
+            }
+
+            // Se ordenan los trasbordos del viaje por posición, de la primera a la última
+            int cantidad = viaje.cantidad - desde;
+            viaje.invertir(desde);
+            posicion.invertir(desde);
+            caminata.invertir(desde);
+            int base = vs.basePosicion[t];
+            int acumulado = desde;
+            for (int i = 0; i < largo; i++) {
+                vs.inicioTrasbordo[base + i] = acumulado;
+                acumulado += trasbordosPorPosicion[i];
+            }
+            vs.inicioTrasbordo[base + largo] = desde + cantidad;
+
+            limpiar();
+            return generados;
+        }
+
+        /** Primer viaje de cada línea que pasa por la parada q, salvo seguir en la misma línea. */
+        private void agregarCandidatos(Viajes vs, int l, int i, int q, int baja, int caminata, Arreglo candidatos) {
+            for (int e = red.inicioPasadas(q); e < red.finPasadas(q); e++) {
+                int otra = red.lineaPasada(e);
+                int j = red.posicionPasada(e);
+                if (j + 1 >= red.largo(otra)) continue;
+                // Subir más adelante en la misma línea nunca es mejor que quedarse en el colectivo
+                if (otra == l && j >= i) continue;
+                int u = vs.primeroDesde(otra, j, baja + caminata);
+                if (u < 0) continue;
+                candidatos.agregar(u);
+                candidatos.agregar(j);
+                candidatos.agregar(caminata);
+            }
+        }
+
+        /** Registra la llegada en colectivo a la parada y las caminatas desde ella. */
+        private boolean mejorar(int p, int hora) {
+            boolean mejoro = false;
+            if (hora < enColectivo[p]) {
+                modificadas.agregar(p);
+                enColectivo[p] = hora;
+                mejoro = true;
+            }
+            if (hora < llegada[p]) {
+                modificadas.agregar(p);
+                llegada[p] = hora;
+            }
+            for (int e = red.inicioCaminando(p); e < red.finCaminando(p); e++) {
+                int q = red.vecinoCaminando(e);
+                int camina = hora + red.tiempoCaminando(e);
+                if (camina < llegada[q]) {
+                    modificadas.agregar(q);
+                    llegada[q] = camina;
+                    mejoro = true;
+                }
+            }
+            return mejoro;
+        }
+
+        /** Indica si subir al viaje u en la posición j mejora la llegada a alguna parada. */
+        private boolean mejora(Viajes vs, int u, int j) {
+            int otra = vs.lineaViaje[u];
+            boolean mejoro = false;
+            for (int k = j + 1; k < red.largo(otra); k++) {
+                mejoro |= mejorar(red.parada(otra, k), vs.pasa(u, k));
+            }
+            return mejoro;
+        }
+
+        private void limpiar() {
+            for (int k = 0; k < modificadas.cantidad(); k++) {
+                int p = modificadas.get(k);
+                enColectivo[p] = INFINITO;
+                llegada[p] = INFINITO;
+            }
+            modificadas.limpiar();
+        }
+    }
+
+    /** Arreglo de enteros que crece a medida que se agregan valores. */
+    private static final class Arreglo {
+        int[] datos = new int[64];
+        int cantidad;
+
+        void agregar(int valor) {
+            if (cantidad == datos.length) datos = Arrays.copyOf(datos, cantidad * 2);
+            datos[cantidad++] = valor;
+        }
+
+        void invertir(int desde) {
+            for (int i = desde, j = cantidad - 1; i < j; i++, j--) {
+                int x = datos[i];
+                datos[i] = datos[j];
+                datos[j] = x;
+            }
+        }
+
+        int[] recortar() {
+            return Arrays.copyOf(datos, cantidad);
+        }
+    }
+
+    // ==============================
+    // ESTADO DE UNA BÚSQUEDA
+    // ==============================
+
+    /**
+     * Estado de una consulta. Un tramo es una parte de un viaje que se recorre en una ronda:
+     * desde la posición siguiente a la de subida hasta la primera posición ya recorrida por
+     * ese viaje o uno anterior de la misma línea.
+     *
+     * Se crea uno por hilo y se reutiliza: {@link #preparar} vuelve a su valor inicial solo
+     * los viajes y posiciones que tocó la consulta anterior.
+     */
+    private final class Busqueda {
+        private Viajes vs;
+        private int destino;
+
+        /** Primera posición ya recorrida de cada viaje; {@link #INFINITO} si no se subió. */
+        private final int[] recorrido;
+        private final IndicesModificados viajesModificados;
+        /** Segundos de caminata desde cada posición de cada línea hasta el destino; -1 si no se llega. */
+        private final int[] caminataDestino;
+        private final IndicesModificados posicionesDestino;
+
+        /** Tramos de todas las rondas. */
+        private final Arreglo tramoViaje = new Arreglo();
+        private final Arreglo tramoSubida = new Arreglo();
+        private final Arreglo tramoHasta = new Arreglo();
+        private final Arreglo tramoPadre = new Arreglo();
+        private final Arreglo tramoBajadaPadre = new Arreglo();
+        private final Arreglo tramoCaminata = new Arreglo();
+        /** Tramos de la ronda siguiente: {@code [inicioRonda, tramoViaje.cantidad)}. */
+        private int inicioRonda;
+
+        private int horaInicio;
+        private int origen;
+        private int mejor;
+        private int mejorTramo;
+        private int mejorPosicion;
+
+        Busqueda() {
+            recorrido = new int[maxViajes];
+            viajesModificados = new IndicesModificados(maxViajes);
+            caminataDestino = new int[basePosicion[red.cantidadLineas()]];
+            posicionesDestino = new IndicesModificados(caminataDestino.length);
+            Arrays.fill(recorrido, INFINITO);
+            Arrays.fill(caminataDestino, -1);
+        }
+
+        void preparar(Viajes vs, int destino) {
+            for (int k = 0; k < viajesModificados.cantidad(); k++) recorrido[viajesModificados.get(k)] = INFINITO;
+            viajesModificados.limpiar();
+            for (int k = 0; k < posicionesDestino.cantidad(); k++) caminataDestino[posicionesDestino.get(k)] = -1;
+            posicionesDestino.limpiar();
+            tramoViaje.cantidad = 0;
+            tramoSubida.cantidad = 0;
+            tramoHasta.cantidad = 0;
+            tramoPadre.cantidad = 0;
+            tramoBajadaPadre.cantidad = 0;
+            tramoCaminata.cantidad = 0;
+            inicioRonda = 0;
+            this.vs = vs;
+            this.destino = destino;
+
+            // Posiciones de las líneas desde las que se llega al destino, bajando o caminando
+            marcarDestino(destino, 0);
+            for (int e = red.inicioCaminando(destino); e < red.finCaminando(destino); e++) {
+                marcarDestino(red.vecinoCaminando(e), red.tiempoCaminando(e));
+            }
+        }
+
+        private void marcarDestino(int q, int caminata) {
+            for (int e = red.inicioPasadas(q); e < red.finPasadas(q); e++) {
+                int i = basePosicion[red.lineaPasada(e)] + red.posicionPasada(e);
+                if (caminataDestino[i] < 0 || caminata < caminataDestino[i]) {
+                    posicionesDestino.agregar(i);
+                    caminataDestino[i] = caminata;
+                }
+            }
+        }
+
+        /** Sube a los primeros viajes desde el origen y sus vecinas; si se llega caminando, es el primer resultado. */
+        void iniciar(int origen, int hora, List<List<Recorrido>> resultados) {
+            this.origen = origen;
+            this.horaInicio = hora;
+            mejor = INFINITO;
+            subirDesde(origen, 0);
+            for (int e = red.inicioCaminando(origen); e < red.finCaminando(origen); e++) {
+                int q = red.vecinoCaminando(e);
+                subirDesde(q, red.tiempoCaminando(e));
+                if (q == destino) {
+                    mejor = hora + red.tiempoCaminando(e);
+                    resultados.add(List.of(new Recorrido(null, List.of(red.getParada(origen), red.getParada(q)),
+                            Tiempo.aHora(hora), red.tiempoCaminando(e))));
+                }
+            }
+        }
+
+        private void subirDesde(int q, int caminata) {
+            for (int e = red.inicioPasadas(q); e < red.finPasadas(q); e++) {
+                int l = red.lineaPasada(e);
+                int j = red.posicionPasada(e);
+                if (j + 1 >= red.largo(l)) continue;
+                int u = vs.primeroDesde(l, j, horaInicio + caminata);
+                if (u >= 0) agregarTramo(u, j, -1, -1, caminata);
+            }
+        }
+
+        /**
+         * Agrega el tramo del viaje u desde la posición siguiente a la subida, si no se
+         * recorrió ya, y marca esas posiciones como recorridas en los viajes posteriores
+         * de la misma línea, que llegan más tarde.
+         */
+        private void agregarTramo(int u, int subida, int padre, int bajadaPadre, int caminata) {
+            int desde = subida + 1;
+            if (desde >= recorrido[u]) return;
+            int l = vs.lineaViaje[u];
+            tramoViaje.agregar(u);
+            tramoSubida.agregar(subida);
+            tramoHasta.agregar(Math.min(recorrido[u], red.largo(l)));
+            tramoPadre.agregar(padre);
+            tramoBajadaPadre.agregar(bajadaPadre);
+            tramoCaminata.agregar(caminata);
+            for (int v = u; v < vs.primerViaje[l + 1] && recorrido[v] > desde; v++) {
+                viajesModificados.agregar(v);
+                recorrido[v] = desde;
+            }
+        }
+
+        boolean hayTramos() {
+            return inicioRonda < tramoViaje.cantidad;
+        }
+
+        /**
+         * Recorre los tramos de la ronda actual: revisa si llegan al destino y agrega los
+         * trasbordos de la ronda siguiente.
+         *
+         * @return {@code true} si se mejoró la llegada al destino
+         */
+        boolean ejecutarRonda() {
+            int fin = tramoViaje.cantidad;
+            boolean mejoro = false;
+            for (int s = inicioRonda; s < fin; s++) {
+                int u = tramoViaje.datos[s];
+                int l = vs.lineaViaje[u];
+                int base = vs.basePosicion[u];
+                for (int k = tramoSubida.datos[s] + 1; k < tramoHasta.datos[s]; k++) {
+                    int llega = vs.pasa(u, k);
+                    // Las posiciones siguientes del viaje llegan aún más tarde
+                    if (llega >= mejor) break;
+
+                    int caminata = caminataDestino[basePosicion[l] + k];
+                    if (caminata >= 0 && llega + caminata < mejor) {
+                        mejor = llega + caminata;
+                        mejorTramo = s;
+                        mejorPosicion = k;
+                        mejoro = true;
+                    }
+                    for (int x = vs.inicioTrasbordo[base + k]; x < vs.inicioTrasbordo[base + k + 1]; x++) {
+                        agregarTramo(vs.trasbordoViaje[x], vs.trasbordoPosicion[x], s, k, vs.trasbordoCaminata[x]);
+                    }
+                }
+            }
+            inicioRonda = fin;
+            return mejoro;
+        }
+
+        /** Arma el viaje de la mejor llegada al destino siguiendo los tramos hacia atrás. */
+        List<Recorrido> reconstruir() {
+            List<Recorrido> viaje = new ArrayList<>();
+            int s = mejorTramo;
+            int k = mejorPosicion;
+            int u = tramoViaje.datos[s];
+            int l = vs.lineaViaje[u];
+            int llega = vs.pasa(u, k);
+            if (red.parada(l, k) != destino) {
+                viaje.add(caminata(red.parada(l, k), destino, llega, mejor - llega));
+            }
+            while (s >= 0) {
+                u = tramoViaje.datos[s];
+                l = vs.lineaViaje[u];
+                int sube = tramoSubida.datos[s];
+                int sale = vs.pasa(u, sube);
+                viaje.add(new Recorrido(red.getLinea(l),
+                        new ArrayList<>(red.getLinea(l).getParadas().subList(sube, k + 1)),
+                        Tiempo.aHora(sale), vs.pasa(u, k) - sale));
+
+                int padre = tramoPadre.datos[s];
+                int caminata = tramoCaminata.datos[s];
+                int desde = padre < 0 ? origen : red.parada(vs.lineaViaje[tramoViaje.datos[padre]], tramoBajadaPadre.datos[s]);
+                if (desde != red.parada(l, sube)) {
+                    int empieza = padre < 0 ? horaInicio : vs.pasa(tramoViaje.datos[padre], tramoBajadaPadre.datos[s]);
+                    viaje.add(caminata(desde, red.parada(l, sube), empieza, caminata));
+                }
+                k = tramoBajadaPadre.datos[s];
+                s = padre;
+            }
+            Collections.reverse(viaje);
+            return viaje;
+        }
+
+        private Recorrido caminata(int desde, int hasta, int hora, int duracion) {
+            return new Recorrido(null, List.of(red.getParada(desde), red.getParada(hasta)), Tiempo.aHora(hora), duracion);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package colectivo.negocio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.util.MapaTramos;
+import colectivo.util.Util;
+
+/**
+ * Clase GeneradorCaminatas
+ * ------------------------
+ * Genera tramos caminando entre todas las paradas que están a menos de un radio dado,
+ * a partir de sus coordenadas. El tiempo de cada tramo es la distancia en línea recta
+ * dividida por la velocidad de caminata.
+ *
+ * Las paradas se reparten en una grilla de celdas del tamaño del radio, así cada parada
+ * solo se compara con las de su celda y las ocho vecinas, en lugar de con todas.
+ */
+public class GeneradorCaminatas {
+
+    private static final Logger LOGGER = LogManager.getLogger(GeneradorCaminatas.class.getName());
+
+    /** Velocidad de caminata por defecto, en metros por segundo (unos 4,3 km/h). */
+    public static final double VELOCIDAD_POR_DEFECTO = 1.2;
+
+    /** Metros por grado de latitud. */
+    private static final double METROS_POR_GRADO = 111_320;
+
+    private final double radio;
+    private final double velocidad;
+
+    /**
+     * @param radio     distancia máxima entre paradas, en metros
+     * @param velocidad velocidad de caminata, en metros por segundo
+     */
+    public GeneradorCaminatas(double radio, double velocidad) {
+        if (radio <= 0 || velocidad <= 0) {
+            throw new IllegalArgumentException("El radio y la velocidad deben ser positivos: " + radio + ", " + velocidad);
+        }
+        this.radio = radio;
+        this.velocidad = velocidad;
+    }
+
+    /**
+     * Genera los tramos caminando entre las paradas cercanas, uno en cada sentido, como en
+     * los datos cargados a mano: la búsqueda original busca el tramo en el sentido en que se
+     * camina. No se genera ninguno si ya existe algún tramo entre las dos paradas, en
+     * cualquier sentido y de cualquier tipo.
+     *
+     * @param paradas    paradas de la red
+     * @param existentes tramos ya cargados (clave: "codigoOrigen-codigoDestino")
+     * @return tramos nuevos, con la misma clave que los existentes
+     */
+    public Map<String, Tramo> generar(Collection<Parada> paradas, Map<String, Tramo> existentes) {
+        Map<String, Tramo> generados = new LinkedHashMap<>();
+        if (paradas.isEmpty()) return generados;
+
+        // Las celdas miden al menos el radio en ambos sentidos, aun en la latitud más alejada del ecuador
+        double latitudMaxima = 0;
+        for (Parada p : paradas) latitudMaxima = Math.max(latitudMaxima, Math.abs(p.getLatitud()));
+        double altoCelda = radio / METROS_POR_GRADO;
+        double anchoCelda = radio / (METROS_POR_GRADO * Math.max(Math.cos(Math.toRadians(latitudMaxima)), 0.01));
+
+        Map<Long, List<Parada>> grilla = new HashMap<>();
+        for (Parada p : paradas) {
+            grilla.computeIfAbsent(celda(fila(p, altoCelda), columna(p, anchoCelda)), c -> new ArrayList<>()).add(p);
+        }
+
+        int comparaciones = 0;
+        for (Parada a : paradas) {
+            int fila = fila(a, altoCelda);
+            int columna = columna(a, anchoCelda);
+            for (int df = -1; df <= 1; df++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    List<Parada> vecinas = grilla.get(celda(fila + df, columna + dc));
+                    if (vecinas == null) continue;
+                    for (Parada b : vecinas) {
+                        // Cada par se evalúa una sola vez, desde la parada de menor código
+                        if (a.getCodigo() >= b.getCodigo()) continue;
+                        comparaciones++;
+                        double metros = Util.distancia(a, b);
+                        if (metros > radio) continue;
+                        if (MapaTramos.buscar(existentes, a, b) != null || MapaTramos.buscar(existentes, b, a) != null) continue;
+                        int tiempo = (int) Math.ceil(metros / velocidad);
+                        generados.put(Util.claveTramo(a, b), new Tramo(a, b, tiempo, Constantes.CAMINANDO));
+                        generados.put(Util.claveTramo(b, a), vuelta(b, a, tiempo));
+                    }
+                }
+            }
+        }
+        LOGGER.info("GeneradorCaminatas: " + generados.size() + " tramos caminando de hasta " + radio + " m entre "
+                + paradas.size() + " paradas (" + comparaciones + " pares comparados).");
+        return generados;
+    }
+
+    /**
+     * Tramo caminando de vuelta. Se arma sin el constructor completo porque el de ida ya
+     * dejó a cada parada entre las vecinas de la otra, y no deben quedar repetidas.
+     */
+    private static Tramo vuelta(Parada inicio, Parada fin, int tiempo) {
+        Tramo tramo = new Tramo();
+        tramo.setInicio(inicio);
+        tramo.setFin(fin);
+        tramo.setTiempo(tiempo);
+        tramo.setTipo(Constantes.CAMINANDO);
+        return tramo;
+    }
+
+    private static int fila(Parada p, double altoCelda) {
+        return (int) Math.floor(p.getLatitud() / altoCelda);
+    }
+
+    private static int columna(Parada p, double anchoCelda) {
+        return (int) Math.floor(p.getLongitud() / anchoCelda);
+    }
+
+    private static long celda(int fila, int columna) {
+        return ((long) fila << 32) | (columna & 0xFFFFFFFFL);
+    }
+}
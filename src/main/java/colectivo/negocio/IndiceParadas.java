@@ -0,0 +1,152 @@
+package colectivo.negocio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import colectivo.modelo.Parada;
+
+/**
+ * Clase IndiceParadas
+ * ------------------------
+ * Árbol KD sobre las coordenadas de las paradas, para buscar las más cercanas a un punto
+ * sin recorrer todas.
+ *
+ * Las coordenadas se proyectan a metros sobre un plano tangente a la latitud media de las
+ * paradas (proyección equirectangular). Para distancias dentro de una ciudad la diferencia
+ * con la distancia sobre la esfera es despreciable.
+ *
+ * El árbol se guarda en arreglos: el nodo de un rango {@code [desde, hasta)} es su elemento
+ * central, y sus hijos son las dos mitades. Es inmutable y puede compartirse entre hilos.
+ */
+public final class IndiceParadas {
+
+    /** Metros por grado de latitud. */
+    private static final double METROS_POR_GRADO = 111_320;
+
+    private final double metrosPorGradoLongitud;
+    private final Parada[] paradas;
+    private final double[] x;
+    private final double[] y;
+
+    /**
+     * @param paradas paradas a indexar
+     */
+    public IndiceParadas(Collection<Parada> paradas) {
+        int n = paradas.size();
+        double latitudMedia = 0;
+        for (Parada p : paradas) latitudMedia += p.getLatitud();
+        latitudMedia = n == 0 ? 0 : latitudMedia / n;
+        metrosPorGradoLongitud = METROS_POR_GRADO * Math.cos(Math.toRadians(latitudMedia));
+
+        this.paradas = paradas.toArray(new Parada[0]);
+        x = new double[n];
+        y = new double[n];
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) orden[i] = i;
+        construir(orden, 0, n, 0);
+
+        // Se reordenan las paradas y sus coordenadas según el árbol
+        Parada[] originales = this.paradas.clone();
+        for (int i = 0; i < n; i++) {
+            this.paradas[i] = originales[orden[i]];
+            x[i] = proyectarX(this.paradas[i].getLongitud());
+            y[i] = proyectarY(this.paradas[i].getLatitud());
+        }
+    }
+
+    private void construir(Integer[] orden, int desde, int hasta, int eje) {
+        if (hasta - desde <= 1) return;
+        Arrays.sort(orden, desde, hasta, (a, b) -> Double.compare(coordenada(paradas[a], eje), coordenada(paradas[b], eje)));
+        int medio = (desde + hasta) >>> 1;
+        construir(orden, desde, medio, 1 - eje);
+        construir(orden, medio + 1, hasta, 1 - eje);
+    }
+
+    private double coordenada(Parada p, int eje) {
+        return eje == 0 ? proyectarX(p.getLongitud()) : proyectarY(p.getLatitud());
+    }
+
+    private double proyectarX(double longitud) {
+        return longitud * metrosPorGradoLongitud;
+    }
+
+    private double proyectarY(double latitud) {
+        return latitud * METROS_POR_GRADO;
+    }
+
+    public int cantidad() {
+        return paradas.length;
+    }
+
+    /**
+     * Busca las paradas más cercanas a un punto.
+     *
+     * @param latitud   latitud del punto
+     * @param longitud  longitud del punto
+     * @param cantidad  cantidad máxima de paradas a devolver
+     * @param radio     distancia máxima en metros
+     * @return paradas dentro del radio, de la más cercana a la más lejana
+     */
+    public List<Parada> buscarCercanas(double latitud, double longitud, int cantidad, double radio) {
+        List<Parada> resultado = new ArrayList<>();
+        if (cantidad <= 0 || radio < 0 || paradas.length == 0) return resultado;
+
+        Busqueda busqueda = new Busqueda(proyectarX(longitud), proyectarY(latitud), Math.min(cantidad, paradas.length),
+                radio * radio);
+        busqueda.visitar(0, paradas.length, 0);
+        for (int i = 0; i < busqueda.encontradas; i++) resultado.add(paradas[busqueda.indices[i]]);
+        return resultado;
+    }
+
+    /** Estado de una búsqueda: las mejores paradas hasta el momento, ordenadas por distancia. */
+    private final class Busqueda {
+        private final double px;
+        private final double py;
+        private final int[] indices;
+        private final double[] distancias;
+        private int encontradas;
+        /** Distancia al cuadrado a partir de la cual una parada ya no entra en el resultado. */
+        private double limite;
+
+        Busqueda(double px, double py, int cantidad, double radioCuadrado) {
+            this.px = px;
+            this.py = py;
+            this.indices = new int[cantidad];
+            this.distancias = new double[cantidad];
+            this.limite = radioCuadrado;
+        }
+
+        void visitar(int desde, int hasta, int eje) {
+            if (desde >= hasta) return;
+            int medio = (desde + hasta) >>> 1;
+            double dx = x[medio] - px;
+            double dy = y[medio] - py;
+            agregar(medio, dx * dx + dy * dy);
+
+            // Primero el lado del punto; el otro solo si el plano divisorio está dentro del límite
+            double diferencia = eje == 0 ? px - x[medio] : py - y[medio];
+            if (diferencia < 0) {
+                visitar(desde, medio, 1 - eje);
+                if (diferencia * diferencia <= limite) visitar(medio + 1, hasta, 1 - eje);
+            } else {
+                visitar(medio + 1, hasta, 1 - eje);
+                if (diferencia * diferencia <= limite) visitar(desde, medio, 1 - eje);
+            }
+        }
+
+        private void agregar(int indice, double distancia) {
+            if (distancia > limite) return;
+            int i = encontradas < indices.length ? encontradas++ : encontradas - 1;
+            while (i > 0 && distancias[i - 1] > distancia) {
+                indices[i] = indices[i - 1];
+                distancias[i] = distancias[i - 1];
+                i--;
+            }
+            indices[i] = indice;
+            distancias[i] = distancia;
+            if (encontradas == indices.length) limite = distancias[encontradas - 1];
+        }
+    }
+}
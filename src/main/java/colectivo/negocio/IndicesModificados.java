@@ -0,0 +1,51 @@
+package colectivo.negocio;
+
+/**
+ * Clase IndicesModificados
+ * ------------------------
+ * Conjunto de índices de un arreglo que se modificaron durante una consulta.
+ *
+ * Los motores guardan el estado de cada consulta en arreglos del tamaño de la red y los
+ * reutilizan en la consulta siguiente del mismo hilo. Para dejarlos como al principio
+ * alcanza con recorrer los índices modificados, en lugar de todo el arreglo: una consulta
+ * corta toca pocas paradas aunque la red tenga miles.
+ *
+ * No es seguro para varios hilos; cada hilo usa el suyo.
+ */
+final class IndicesModificados {
+
+    private final int[] indices;
+    private final boolean[] modificado;
+    private int cantidad;
+
+    /**
+     * @param tamanio tamaño del arreglo cuyos índices se registran
+     */
+    IndicesModificados(int tamanio) {
+        indices = new int[tamanio];
+        modificado = new boolean[tamanio];
+    }
+
+    /** Registra el índice, si no estaba registrado. */
+    void agregar(int i) {
+        if (!modificado[i]) {
+            modificado[i] = true;
+            indices[cantidad++] = i;
+        }
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    /** @return el índice registrado en la posición k, en orden de registro */
+    int get(int k) {
+        return indices[k];
+    }
+
+    /** Olvida los índices registrados; los arreglos los restaura quien los usa. */
+    void limpiar() {
+        for (int k = 0; k < cantidad; k++) modificado[indices[k]] = false;
+        cantidad = 0;
+    }
+}
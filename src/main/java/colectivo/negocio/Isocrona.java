@@ -0,0 +1,143 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import colectivo.modelo.Parada;
+
+/**
+ * Clase Isocrona
+ * ------------------------
+ * Resultado de una búsqueda de uno a todos: cuánto se tarda en llegar a cada parada
+ * desde un origen, saliendo un día y a una hora dados.
+ *
+ * Las paradas se agrupan en bandas de tiempo (por defecto 10, 20, 30 y 45 minutos) que
+ * pueden exportarse como GeoJSON para dibujarlas en el mapa.
+ */
+public class Isocrona {
+
+    /** Límites superiores de las bandas por defecto, en minutos. */
+    public static final List<Integer> BANDAS_POR_DEFECTO = List.of(10, 20, 30, 45);
+
+    private final Parada origen;
+    private final int diaSemana;
+    private final LocalTime hora;
+    /** Segundos de viaje hasta cada parada alcanzable, incluido el origen con 0. */
+    private final Map<Parada, Integer> tiempos;
+
+    /**
+     * @param origen    Parada donde inicia el viaje
+     * @param diaSemana Día de la semana
+     * @param hora      Hora en que el pasajero llega a la parada de origen
+     * @param llegadas  Hora de llegada en segundos desde el inicio del día, por parada alcanzable
+     */
+    public Isocrona(Parada origen, int diaSemana, LocalTime hora, Map<Parada, Integer> llegadas) {
+        this.origen = origen;
+        this.diaSemana = diaSemana;
+        this.hora = hora;
+        int inicio = hora.toSecondOfDay();
+        Map<Parada, Integer> aux = new LinkedHashMap<>();
+        llegadas.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .forEach(e -> aux.put(e.getKey(), e.getValue() - inicio));
+        this.tiempos = Collections.unmodifiableMap(aux);
+    }
+
+    public Parada getOrigen() {
+        return origen;
+    }
+
+    public int getDiaSemana() {
+        return diaSemana;
+    }
+
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    /**
+     * @return segundos de viaje hasta cada parada alcanzable, de la más cercana a la más lejana
+     */
+    public Map<Parada, Integer> getTiempos() {
+        return tiempos;
+    }
+
+    /**
+     * @param parada parada a consultar
+     * @return segundos de viaje hasta la parada, o -1 si no se puede llegar
+     */
+    public int getTiempo(Parada parada) {
+        Integer tiempo = tiempos.get(parada);
+        return tiempo == null ? -1 : tiempo;
+    }
+
+    /**
+     * Agrupa las paradas en bandas de tiempo. Cada parada queda en la primera banda cuyo
+     * límite no supera; las que tardan más que la última banda no se incluyen.
+     *
+     * @param bandas límites superiores de las bandas en minutos, en orden creciente
+     * @return paradas de cada banda, indexadas por su límite en minutos
+     */
+    public Map<Integer, List<Parada>> getBandas(List<Integer> bandas) {
+        Map<Integer, List<Parada>> resultado = new LinkedHashMap<>();
+        for (Integer minutos : bandas) resultado.put(minutos, new ArrayList<>());
+        for (Map.Entry<Parada, Integer> e : tiempos.entrySet()) {
+            for (Integer minutos : bandas) {
+                if (e.getValue() <= minutos * 60) {
+                    resultado.get(minutos).add(e.getKey());
+                    break;
+                }
+            }
+        }
+        return resultado;
+    }
+
+    public Map<Integer, List<Parada>> getBandas() {
+        return getBandas(BANDAS_POR_DEFECTO);
+    }
+
+    /**
+     * Exporta las bandas como un FeatureCollection de GeoJSON. Cada banda es un Feature
+     * MultiPoint con las paradas que se alcanzan en ese rango, con las propiedades
+     * {@code desde} y {@code hasta} en minutos.
+     *
+     * @param bandas límites superiores de las bandas en minutos, en orden creciente
+     * @return texto GeoJSON
+     */
+    public String aGeoJson(List<Integer> bandas) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"type\":\"FeatureCollection\",\"properties\":{")
+                .append("\"origen\":").append(origen.getCodigo())
+                .append(",\"diaSemana\":").append(diaSemana)
+                .append(",\"hora\":\"").append(hora).append("\"},\"features\":[");
+        int desde = 0;
+        boolean primera = true;
+        for (Map.Entry<Integer, List<Parada>> banda : getBandas(bandas).entrySet()) {
+            if (!primera) sb.append(',');
+            primera = false;
+            sb.append("{\"type\":\"Feature\",\"properties\":{\"desde\":").append(desde)
+                    .append(",\"hasta\":").append(banda.getKey())
+                    .append(",\"paradas\":").append(banda.getValue().size())
+                    .append("},\"geometry\":{\"type\":\"MultiPoint\",\"coordinates\":[");
+            for (int i = 0; i < banda.getValue().size(); i++) {
+                Parada p = banda.getValue().get(i);
+                if (i > 0) sb.append(',');
+                // GeoJSON usa el orden [longitud, latitud]
+                sb.append(String.format(Locale.ROOT, "[%.6f,%.6f]", p.getLongitud(), p.getLatitud()));
+            }
+            sb.append("]}}");
+            desde = banda.getKey();
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    public String aGeoJson() {
+        return aGeoJson(BANDAS_POR_DEFECTO);
+    }
+}
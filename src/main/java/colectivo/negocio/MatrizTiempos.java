@@ -0,0 +1,211 @@
+package colectivo.negocio;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+
+/**
+ * Clase MatrizTiempos
+ * ------------------------
+ * Matriz de tiempos de viaje y trasbordos entre todas las paradas, para un día y una
+ * hora de salida.
+ *
+ * Se calcula con una búsqueda de uno a todos de {@link CalculoCSA} por cada parada de
+ * origen. Los orígenes se reparten entre los hilos de un {@link ForkJoinPool}; todos
+ * comparten el mismo motor y la misma {@link RedCompilada}, que no cambian durante las
+ * consultas, y cada hilo escribe solo las filas de sus orígenes.
+ *
+ * El resultado se puede guardar como CSV o en un formato binario compacto.
+ */
+public class MatrizTiempos {
+
+    private static final Logger LOGGER = LogManager.getLogger(MatrizTiempos.class.getName());
+
+    /** Valor de la matriz para los pares de paradas sin viaje posible. */
+    public static final int SIN_LLEGADA = -1;
+
+    /** Encabezado del formato binario ("MTZ1"). */
+    public static final int FORMATO_BINARIO = 0x4D545A31;
+
+    /** Cantidad de orígenes por debajo de la cual una tarea ya no se divide. */
+    private static final int ORIGENES_POR_TAREA = 8;
+
+    private final RedCompilada red;
+    private final int diaSemana;
+    private final LocalTime hora;
+    /** Segundos de viaje de cada origen a cada destino, fila por origen. */
+    private final int[] tiempos;
+    private final byte[] trasbordos;
+
+    private MatrizTiempos(RedCompilada red, int diaSemana, LocalTime hora) {
+        int n = red.cantidadParadas();
+        this.red = red;
+        this.diaSemana = diaSemana;
+        this.hora = hora;
+        this.tiempos = new int[n * n];
+        this.trasbordos = new byte[n * n];
+    }
+
+    /**
+     * Calcula la matriz usando todos los núcleos disponibles.
+     *
+     * @param red       red compilada del sistema
+     * @param motor     motor CSA construido sobre la misma red
+     * @param diaSemana Día de la semana
+     * @param hora      Hora de salida desde cada origen
+     * @return la matriz calculada
+     */
+    public static MatrizTiempos calcular(RedCompilada red, CalculoCSA motor, int diaSemana, LocalTime hora) {
+        return calcular(red, motor, diaSemana, hora, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calcula la matriz repartiendo los orígenes entre los hilos del pool indicado.
+     *
+     * @param red       red compilada del sistema
+     * @param motor     motor CSA construido sobre la misma red
+     * @param diaSemana Día de la semana
+     * @param hora      Hora de salida desde cada origen
+     * @param pool      pool de hilos donde se ejecutan las búsquedas
+     * @return la matriz calculada
+     */
+    public static MatrizTiempos calcular(RedCompilada red, CalculoCSA motor, int diaSemana, LocalTime hora,
+            ForkJoinPool pool) {
+        if (!RedCompilada.diaValido(diaSemana) || hora == null) {
+            throw new IllegalArgumentException("Día u hora inválidos: " + diaSemana + " " + hora);
+        }
+        long inicio = System.nanoTime();
+        MatrizTiempos matriz = new MatrizTiempos(red, diaSemana, hora);
+        pool.invoke(new Filas(matriz, motor, 0, red.cantidadParadas()));
+        LOGGER.info("Matriz de " + red.cantidadParadas() + " paradas calculada en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms con " + pool.getParallelism() + " hilos");
+        return matriz;
+    }
+
+    /**
+     * Calcula las filas de los orígenes del rango, dividiéndolo mientras sea grande.
+     * Las tareas solo se ejecutan en el pool, nunca se serializan.
+     */
+    @SuppressWarnings("serial")
+    private static final class Filas extends RecursiveAction {
+        private final MatrizTiempos matriz;
+        private final CalculoCSA motor;
+        private final int desde;
+        private final int hasta;
+
+        Filas(MatrizTiempos matriz, CalculoCSA motor, int desde, int hasta) {
+            this.matriz = matriz;
+            this.motor = motor;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > ORIGENES_POR_TAREA) {
+                int mitad = (desde + hasta) >>> 1;
+                invokeAll(new Filas(matriz, motor, desde, mitad), new Filas(matriz, motor, mitad, hasta));
+                return;
+            }
+            int n = matriz.red.cantidadParadas();
+            int salida = matriz.hora.toSecondOfDay();
+            int[] llegadas = new int[n];
+            int[] colectivos = new int[n];
+            for (int o = desde; o < hasta; o++) {
+                motor.calcularLlegadas(o, matriz.diaSemana, salida, llegadas, colectivos);
+                for (int d = 0; d < n; d++) {
+                    matriz.tiempos[o * n + d] = llegadas[d] < 0 ? SIN_LLEGADA : llegadas[d] - salida;
+                    matriz.trasbordos[o * n + d] = (byte) Math.max(colectivos[d] - 1, 0);
+                }
+            }
+        }
+    }
+
+    public int cantidadParadas() {
+        return red.cantidadParadas();
+    }
+
+    public int getDiaSemana() {
+        return diaSemana;
+    }
+
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    /**
+     * @return segundos de viaje entre las paradas, o {@link #SIN_LLEGADA} si no hay viaje
+     */
+    public int tiempo(Parada origen, Parada destino) {
+        int o = red.indice(origen);
+        int d = red.indice(destino);
+        if (o < 0 || d < 0) return SIN_LLEGADA;
+        return tiempos[o * red.cantidadParadas() + d];
+    }
+
+    /**
+     * @return cantidad de trasbordos del viaje más rápido entre las paradas (0 si es directo o no hay viaje)
+     */
+    public int trasbordos(Parada origen, Parada destino) {
+        int o = red.indice(origen);
+        int d = red.indice(destino);
+        if (o < 0 || d < 0) return 0;
+        return trasbordos[o * red.cantidadParadas() + d];
+    }
+
+    /**
+     * Guarda los pares con viaje posible como CSV con columnas
+     * {@code origen,destino,segundos,trasbordos} (códigos de parada).
+     *
+     * @param archivo archivo de salida
+     * @throws IOException si no se puede escribir el archivo
+     */
+    public void escribirCsv(Path archivo) throws IOException {
+        int n = red.cantidadParadas();
+        try (BufferedWriter out = Files.newBufferedWriter(archivo)) {
+            out.write("origen,destino,segundos,trasbordos");
+            out.newLine();
+            for (int o = 0; o < n; o++) {
+                int codigoOrigen = red.getParada(o).getCodigo();
+                for (int d = 0; d < n; d++) {
+                    int t = tiempos[o * n + d];
+                    if (t == SIN_LLEGADA) continue;
+                    out.write(codigoOrigen + "," + red.getParada(d).getCodigo() + "," + t + "," + trasbordos[o * n + d]);
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Guarda la matriz completa en formato binario: {@link #FORMATO_BINARIO}, cantidad de
+     * paradas, día, hora de salida en segundos, los códigos de las paradas, los tiempos
+     * ({@code int}, fila por origen) y los trasbordos ({@code byte}, mismo orden).
+     *
+     * @param archivo archivo de salida
+     * @throws IOException si no se puede escribir el archivo
+     */
+    public void escribirBinario(Path archivo) throws IOException {
+        int n = red.cantidadParadas();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo)))) {
+            out.writeInt(FORMATO_BINARIO);
+            out.writeInt(n);
+            out.writeInt(diaSemana);
+            out.writeInt(hora.toSecondOfDay());
+            for (int p = 0; p < n; p++) out.writeInt(red.getParada(p).getCodigo());
+            for (int t : tiempos) out.writeInt(t);
+            out.write(trasbordos);
+        }
+    }
+}
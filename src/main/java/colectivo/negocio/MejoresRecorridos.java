@@ -0,0 +1,161 @@
+package colectivo.negocio;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Recorrido;
+import colectivo.util.Tiempo;
+
+/**
+ * Clase MejoresRecorridos
+ * ------------------------
+ * Conserva los k mejores viajes encontrados según un criterio de orden: hora de llegada,
+ * duración (desde que sale el primer colectivo hasta que se llega) o cantidad de trasbordos.
+ * A igual valor se desempata por los otros dos criterios, en ese mismo orden.
+ *
+ * Los viajes se guardan en un montículo acotado con el peor arriba, así agregar uno cuesta
+ * O(log k) y se sabe en todo momento cuál hay que superar. La búsqueda puede consultar
+ * {@link #descartable} con cotas inferiores de un viaje a medio armar para no seguir
+ * con las combinaciones que ya no pueden entrar.
+ */
+public class MejoresRecorridos {
+
+    private final int cantidad;
+    private final String criterio;
+    private final int horaLlegaParada;
+    private final Comparator<Candidato> orden;
+
+    /** El peor candidato queda arriba. */
+    private final PriorityQueue<Candidato> candidatos;
+    private int agregados;
+
+    /**
+     * @param cantidad        cantidad máxima de viajes a conservar
+     * @param criterio        {@link Constantes#RANKING_LLEGADA}, {@link Constantes#RANKING_DURACION}
+     *                        o {@link Constantes#RANKING_TRASBORDOS}
+     * @param horaLlegaParada hora en que el pasajero llega a la parada de origen, en segundos
+     *                        desde el inicio del día de servicio
+     */
+    public MejoresRecorridos(int cantidad, String criterio, int horaLlegaParada) {
+        if (cantidad < 1) {
+            throw new IllegalArgumentException("La cantidad de recorridos debe ser al menos 1: " + cantidad);
+        }
+        this.cantidad = cantidad;
+        this.criterio = criterio;
+        this.horaLlegaParada = horaLlegaParada;
+        this.orden = comparador(criterio);
+        this.candidatos = new PriorityQueue<>(cantidad + 1, orden.reversed());
+    }
+
+    private static Comparator<Candidato> comparador(String criterio) {
+        Comparator<Candidato> llegada = Comparator.comparingInt(c -> c.llegada);
+        Comparator<Candidato> duracion = Comparator.comparingInt(c -> c.duracion);
+        Comparator<Candidato> trasbordos = Comparator.comparingInt(c -> c.trasbordos);
+        Comparator<Candidato> base;
+        if (Constantes.RANKING_LLEGADA.equals(criterio)) {
+            base = llegada.thenComparing(trasbordos).thenComparing(duracion);
+        } else if (Constantes.RANKING_DURACION.equals(criterio)) {
+            base = duracion.thenComparing(llegada).thenComparing(trasbordos);
+        } else if (Constantes.RANKING_TRASBORDOS.equals(criterio)) {
+            base = trasbordos.thenComparing(llegada).thenComparing(duracion);
+        } else {
+            throw new IllegalArgumentException("Criterio de orden desconocido: " + criterio);
+        }
+        // A igualdad total se conserva el orden en que se encontraron
+        return base.thenComparingInt(c -> c.orden);
+    }
+
+    /**
+     * Agrega un viaje si está entre los mejores hasta el momento. Los viajes con algún
+     * tramo nulo se ignoran.
+     *
+     * @param viaje tramos del viaje, en orden
+     * @return {@code true} si el viaje quedó entre los mejores
+     */
+    public boolean agregar(List<Recorrido> viaje) {
+        Candidato candidato = evaluar(viaje);
+        if (candidato == null) return false;
+        if (candidatos.size() == cantidad) {
+            if (orden.compare(candidato, candidatos.peek()) >= 0) return false;
+            candidatos.poll();
+        }
+        candidatos.add(candidato);
+        return true;
+    }
+
+    /** Agrega todos los viajes de la lista. */
+    public void agregarTodos(List<List<Recorrido>> viajes) {
+        for (List<Recorrido> viaje : viajes) agregar(viaje);
+    }
+
+    /**
+     * Indica si un viaje del que solo se conocen cotas inferiores ya no puede entrar entre
+     * los mejores. Un viaje que empata con el peor en las cotas todavía puede entrar.
+     *
+     * @param llegada    hora mínima de llegada, en segundos desde el inicio del día de servicio
+     * @param duracion   duración mínima en segundos
+     * @param trasbordos cantidad mínima de trasbordos
+     * @return {@code true} si ningún viaje con esas cotas puede superar al peor conservado
+     */
+    public boolean descartable(int llegada, int duracion, int trasbordos) {
+        if (candidatos.size() < cantidad) return false;
+        Candidato cota = new Candidato(null, llegada, duracion, trasbordos, Integer.MIN_VALUE);
+        return orden.compare(cota, candidatos.peek()) > 0;
+    }
+
+    /** @return cantidad de viajes conservados */
+    public int tamanio() {
+        return candidatos.size();
+    }
+
+    public String getCriterio() {
+        return criterio;
+    }
+
+    /** @return los viajes conservados, del mejor al peor */
+    public List<List<Recorrido>> getMejores() {
+        List<Candidato> ordenados = new ArrayList<>(candidatos);
+        ordenados.sort(orden);
+        List<List<Recorrido>> mejores = new ArrayList<>(ordenados.size());
+        for (Candidato c : ordenados) mejores.add(c.viaje);
+        return mejores;
+    }
+
+    /**
+     * Calcula llegada, duración y trasbordos del viaje. Cada tramo sale la primera vez que
+     * el reloj marca su hora de salida después de terminar el anterior.
+     */
+    private Candidato evaluar(List<Recorrido> viaje) {
+        int hora = horaLlegaParada;
+        int primeraSalida = -1;
+        int colectivos = 0;
+        for (Recorrido r : viaje) {
+            if (r == null) return null;
+            int sale = Tiempo.segundosDesde(r.getHoraSalida(), hora);
+            if (primeraSalida < 0) primeraSalida = sale;
+            hora = sale + r.getDuracion();
+            if (r.getLinea() != null) colectivos++;
+        }
+        int duracion = primeraSalida < 0 ? 0 : hora - primeraSalida;
+        return new Candidato(viaje, hora, duracion, Math.max(colectivos - 1, 0), agregados++);
+    }
+
+    private static final class Candidato {
+        private final List<Recorrido> viaje;
+        private final int llegada;
+        private final int duracion;
+        private final int trasbordos;
+        private final int orden;
+
+        Candidato(List<Recorrido> viaje, int llegada, int duracion, int trasbordos, int orden) {
+            this.viaje = viaje;
+            this.llegada = llegada;
+            this.duracion = duracion;
+            this.trasbordos = trasbordos;
+            this.orden = orden;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package colectivo.negocio;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+
+/**
+ * Interfaz MotorRecorridos
+ * ------------------------
+ * Define un algoritmo de búsqueda de recorridos que puede reemplazar
+ * al cálculo original de {@link Calculo}.
+ *
+ * Cada elemento de la lista devuelta es un viaje completo: una lista de
+ * {@link Recorrido} en orden, donde los tramos caminando tienen la línea en {@code null}.
+ */
+public interface MotorRecorridos {
+
+    /**
+     * Calcula los recorridos entre una parada origen y una parada destino.
+     *
+     * @param paradaOrigen     Parada donde inicia el viaje
+     * @param paradaDestino    Parada donde termina el viaje
+     * @param diaSemana        Día de la semana (para determinar frecuencias)
+     * @param horaLlegaParada  Hora en que el pasajero llega a la parada
+     * @param tramos           Mapa de tramos (clave: "codigoOrigen-codigoDestino")
+     * @return Lista de listas de recorridos posibles
+     */
+    List<List<Recorrido>> calcularRecorrido(
+            Parada paradaOrigen,
+            Parada paradaDestino,
+            int diaSemana,
+            LocalTime horaLlegaParada,
+            Map<String, Tramo> tramos);
+}
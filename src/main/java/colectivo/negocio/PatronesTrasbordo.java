@@ -0,0 +1,906 @@
+package colectivo.negocio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Clase PatronesTrasbordo
+ * ------------------------
+ * Patrones de trasbordo precalculados entre todas las paradas: para cada par origen-destino,
+ * las secuencias de tramos en colectivo (línea, parada de subida y parada de bajada) que
+ * son óptimas para alguna hora de salida y cantidad de colectivos. Una consulta solo evalúa
+ * esas pocas secuencias con las salidas del día (ver {@link CalculoPatrones}).
+ *
+ * Los patrones de cada origen salen de un perfil completo de {@link CalculoPerfil} sobre
+ * todas las horas del día. Los orígenes se reparten entre los hilos de un {@link ForkJoinPool}.
+ *
+ * Se guardan por horario de día: los días con los mismos horarios en todas las líneas
+ * comparten patrones, y cada horario se identifica con una huella de la red de ese día.
+ * Al cargar el archivo se reutilizan los horarios cuya huella no cambió y solo se calculan
+ * los demás. Si en el archivo hay un horario de la misma red con otras salidas en algunas
+ * líneas, se recalculan solo los orígenes desde los que se puede subir a alguna de esas
+ * líneas con hasta {@link #getMaxRondas()} colectivos, sin mirar la hora; los demás no
+ * pueden usarlas y se copian del horario guardado. En una red bien conectada esto incluye
+ * a casi todos los orígenes, así que cambiar una línea céntrica cuesta casi como recalcular
+ * el día entero; lo que se ahorra es en las líneas de los extremos. Un cambio en las
+ * paradas, el recorrido de una línea o las caminatas cambia todas las huellas y obliga a
+ * recalcular todo.
+ *
+ * La aplicación solo lee el archivo; lo escribe el proceso {@code GenerarPatrones}, que
+ * conserva los horarios guardados que no son de la red actual (por ejemplo, los de otro
+ * radio de caminata) para no tener que calcularlos de nuevo al volver a usarlos.
+ */
+public class PatronesTrasbordo {
+
+    private static final Logger LOGGER = LogManager.getLogger(PatronesTrasbordo.class.getName());
+
+    /** Encabezado del formato binario ("TPT2"). */
+    public static final int FORMATO_BINARIO = 0x54505432;
+
+    /** Cantidad de orígenes por debajo de la cual una tarea ya no se divide. */
+    private static final int ORIGENES_POR_TAREA = 4;
+
+    private final RedCompilada red;
+    private final int maxRondas;
+
+    /** Horario que usa cada día de la semana (posición 0 = lunes). */
+    private final int[] horarioPorDia = new int[RedCompilada.DIAS];
+    private final long[] huellas;
+
+    /** Huella de la red sin las salidas; es la misma para todos los horarios. */
+    private final long estructura;
+    /** Huella de las salidas de cada línea en cada horario: {@code salidasPorHorario[h][l]}. */
+    private final long[][] salidasPorHorario;
+
+    /** Patrones de cada par y horario: {@code [inicio[h][o * n + d], inicio[h][o * n + d + 1])} en {@code patronesPar[h]}. */
+    private final int[][] inicio;
+    private final int[][] patronesPar;
+
+    /** Patrones distintos: tramos {@code [inicioPatron[i], inicioPatron[i + 1])}, tres valores por tramo. */
+    private int[] inicioPatron;
+    private int[] tramosPatron;
+
+    /** Horarios leídos del archivo que no son de esta red; se vuelven a guardar junto a los demás. */
+    private final List<HorarioGuardado> conservados = new ArrayList<>();
+    /** Horarios leídos del archivo que son de esta red; sirven de base para calcular los demás. */
+    private final List<HorarioGuardado> leidos = new ArrayList<>();
+
+    private int horariosCalculados;
+    private int horariosReutilizados;
+    private int origenesCalculados;
+
+    private PatronesTrasbordo(RedCompilada red, int maxRondas) {
+        this.red = red;
+        this.maxRondas = maxRondas;
+
+        estructura = huellaEstructura(red, maxRondas);
+
+        // Días con la misma huella comparten horario
+        List<Long> distintas = new ArrayList<>();
+        List<long[]> salidas = new ArrayList<>();
+        for (int dia = 1; dia <= RedCompilada.DIAS; dia++) {
+            long[] delDia = new long[red.cantidadLineas()];
+            for (int l = 0; l < delDia.length; l++) delDia[l] = huellaSalidas(red, l, dia);
+            long huella = huella(red, estructura, delDia);
+            int h = distintas.indexOf(huella);
+            if (h < 0) {
+                h = distintas.size();
+                distintas.add(huella);
+                salidas.add(delDia);
+            }
+            horarioPorDia[dia - 1] = h;
+        }
+        huellas = distintas.stream().mapToLong(Long::longValue).toArray();
+        salidasPorHorario = salidas.toArray(new long[0][]);
+        inicio = new int[huellas.length][];
+        patronesPar = new int[huellas.length][];
+    }
+
+    /**
+     * Calcula los patrones de todos los días usando todos los núcleos disponibles.
+     *
+     * @param red red compilada del sistema
+     * @return los patrones calculados
+     */
+    public static PatronesTrasbordo calcular(RedCompilada red) {
+        PatronesTrasbordo patrones = new PatronesTrasbordo(red, CalculoPerfil.RONDAS_POR_DEFECTO);
+        patrones.completar(new Acumulador(), ForkJoinPool.commonPool());
+        return patrones;
+    }
+
+    /**
+     * Carga los patrones guardados en el archivo y calcula en memoria los horarios que
+     * faltan o que cambiaron. Si el archivo no existe o no se puede leer, se calcula todo.
+     * El archivo no se modifica: para actualizarlo se usa {@link #generar(RedCompilada, Path)}.
+     *
+     * @param red     red compilada del sistema
+     * @param archivo archivo de patrones, junto a los datos de la ciudad
+     * @return los patrones de la red
+     */
+    public static PatronesTrasbordo cargarOCalcular(RedCompilada red, Path archivo) {
+        PatronesTrasbordo patrones = cargar(red, archivo, ForkJoinPool.commonPool());
+        if (patrones.horariosCalculados > 0) {
+            LOGGER.warn("Faltaban " + patrones.horariosCalculados + " horarios en " + archivo
+                    + ". Ejecute GenerarPatrones para guardarlos.");
+        }
+        return patrones;
+    }
+
+    /**
+     * Como {@link #cargarOCalcular(RedCompilada, Path)}, pero si se calculó algún horario
+     * vuelve a guardar el archivo, conservando los horarios que no son de esta red.
+     *
+     * @param red     red compilada del sistema
+     * @param archivo archivo de patrones
+     * @return los patrones de la red
+     * @throws IOException si no se puede escribir el archivo
+     */
+    public static PatronesTrasbordo generar(RedCompilada red, Path archivo) throws IOException {
+        return generar(red, archivo, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Como {@link #generar(RedCompilada, Path)}, repartiendo los orígenes entre los hilos
+     * del pool indicado.
+     */
+    public static PatronesTrasbordo generar(RedCompilada red, Path archivo, ForkJoinPool pool) throws IOException {
+        PatronesTrasbordo patrones = cargar(red, archivo, pool);
+        if (patrones.horariosCalculados > 0) {
+            patrones.escribir(archivo);
+            LOGGER.info("Patrones de trasbordo guardados en " + archivo.toAbsolutePath());
+        }
+        return patrones;
+    }
+
+    private static PatronesTrasbordo cargar(RedCompilada red, Path archivo, ForkJoinPool pool) {
+        PatronesTrasbordo patrones = new PatronesTrasbordo(red, CalculoPerfil.RONDAS_POR_DEFECTO);
+        Acumulador acumulador = new Acumulador();
+        if (Files.exists(archivo)) {
+            try {
+                patrones.leer(archivo, acumulador);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("No se pudieron leer los patrones de " + archivo + ": " + e.getMessage()
+                        + ". Se calculan de nuevo.");
+                Arrays.fill(patrones.inicio, null);
+                Arrays.fill(patrones.patronesPar, null);
+                patrones.conservados.clear();
+                patrones.leidos.clear();
+                acumulador = new Acumulador();
+            }
+        }
+        patrones.completar(acumulador, pool);
+        return patrones;
+    }
+
+    /** Calcula los horarios que no se cargaron y arma los arreglos de patrones. */
+    private void completar(Acumulador acumulador, ForkJoinPool pool) {
+        int n = red.cantidadParadas();
+        CalculoPerfil perfil = new CalculoPerfil(red, maxRondas);
+        for (int h = 0; h < huellas.length; h++) {
+            if (inicio[h] != null) {
+                horariosReutilizados++;
+                continue;
+            }
+            long comienzo = System.nanoTime();
+            int dia = primerDia(h);
+            int[][][][] porOrigen = new int[n][][][];
+            boolean[] calcular = new boolean[n];
+            Arrays.fill(calcular, true);
+            HorarioGuardado base = base(h);
+            if (base != null) {
+                calcular = origenesQueAlcanzan(lineasCambiadas(base, h));
+                copiar(base, calcular, porOrigen);
+            }
+            int[] origenes = new int[n];
+            int cantidad = 0;
+            for (int o = 0; o < n; o++) {
+                if (calcular[o]) origenes[cantidad++] = o;
+            }
+            pool.invoke(new Origenes(red, perfil, dia, porOrigen, origenes, 0, cantidad));
+            origenesCalculados += cantidad;
+
+            // Se numeran los patrones en un solo hilo para que el archivo no dependa del reparto
+            int[] inicioH = new int[n * n + 1];
+            Arreglo ids = new Arreglo();
+            for (int o = 0; o < n; o++) {
+                for (int d = 0; d < n; d++) {
+                    inicioH[o * n + d] = ids.cantidad;
+                    for (int[] patron : porOrigen[o][d]) ids.agregar(acumulador.id(patron));
+                }
+            }
+            inicioH[n * n] = ids.cantidad;
+            inicio[h] = inicioH;
+            patronesPar[h] = ids.recortar();
+            horariosCalculados++;
+            LOGGER.info("Patrones de trasbordo del día " + dia + " calculados en "
+                    + (System.nanoTime() - comienzo) / 1_000_000 + " ms con " + pool.getParallelism() + " hilos ("
+                    + cantidad + " de " + n + " orígenes)");
+        }
+        leidos.clear();
+        inicioPatron = acumulador.inicios.recortar();
+        tramosPatron = acumulador.tramos.recortar();
+        LOGGER.info("Patrones de trasbordo: " + cantidadPatrones() + " patrones distintos, " + horariosCalculados
+                + " horarios calculados y " + horariosReutilizados + " reutilizados");
+    }
+
+    private int primerDia(int horario) {
+        for (int d = 0; d < RedCompilada.DIAS; d++) {
+            if (horarioPorDia[d] == horario) return d + 1;
+        }
+        throw new IllegalStateException("Horario sin días: " + horario);
+    }
+
+    /**
+     * Horario del archivo con la misma red salvo las salidas, del que se pueden copiar los
+     * orígenes que no cambian: uno conservado o uno leído para otros días. Si hay varios, el
+     * que difiere en menos líneas.
+     *
+     * @return el horario guardado, o {@code null} si no hay ninguno
+     */
+    private HorarioGuardado base(int horario) {
+        HorarioGuardado base = null;
+        int menosCambiadas = Integer.MAX_VALUE;
+        List<HorarioGuardado> candidatos = new ArrayList<>(leidos);
+        candidatos.addAll(conservados);
+        for (HorarioGuardado guardado : candidatos) {
+            if (guardado.estructura != estructura) continue;
+            int cambiadas = 0;
+            for (boolean cambiada : lineasCambiadas(guardado, horario)) {
+                if (cambiada) cambiadas++;
+            }
+            if (cambiadas < menosCambiadas) {
+                base = guardado;
+                menosCambiadas = cambiadas;
+            }
+        }
+        return base;
+    }
+
+    /** Líneas de la red cuyas salidas en el horario no son las del horario guardado. */
+    private boolean[] lineasCambiadas(HorarioGuardado guardado, int horario) {
+        Map<String, Long> guardadas = new HashMap<>();
+        for (int i = 0; i < guardado.lineas.length; i++) {
+            guardadas.put(guardado.tablas.lineas[guardado.lineas[i]], guardado.salidas[i]);
+        }
+        boolean[] cambiadas = new boolean[red.cantidadLineas()];
+        for (int l = 0; l < cambiadas.length; l++) {
+            Long salidas = guardadas.get(red.getLinea(l).getCodigo());
+            cambiadas[l] = salidas == null || salidas != salidasPorHorario[horario][l];
+        }
+        return cambiadas;
+    }
+
+    /**
+     * Paradas desde las que se puede subir a alguna de las líneas con hasta {@link #maxRondas}
+     * colectivos, caminando antes de cada uno, sin mirar horarios. Desde las demás ningún
+     * viaje usa esas líneas, así que sus patrones no dependen de sus salidas.
+     */
+    private boolean[] origenesQueAlcanzan(boolean[] lineas) {
+        boolean[] alcanzan = new boolean[red.cantidadParadas()];
+        for (int l = 0; l < lineas.length; l++) {
+            if (!lineas[l]) continue;
+            for (int i = 0; i < red.largo(l); i++) alcanzan[red.parada(l, i)] = true;
+        }
+        caminarHaciaAtras(alcanzan);
+        for (int ronda = 1; ronda < maxRondas; ronda++) {
+            // Paradas desde las que un colectivo lleva a alguna de la ronda anterior
+            boolean[] anteriores = alcanzan.clone();
+            for (int l = 0; l < red.cantidadLineas(); l++) {
+                boolean llega = false;
+                for (int i = red.largo(l) - 1; i >= 0; i--) {
+                    int p = red.parada(l, i);
+                    if (llega) alcanzan[p] = true;
+                    llega |= anteriores[p];
+                }
+            }
+            caminarHaciaAtras(alcanzan);
+        }
+        return alcanzan;
+    }
+
+    /** Agrega las paradas desde las que se camina a alguna de las marcadas. */
+    private void caminarHaciaAtras(boolean[] marcadas) {
+        for (int p = 0; p < marcadas.length; p++) {
+            for (int e = red.inicioCaminando(p); e < red.finCaminando(p) && !marcadas[p]; e++) {
+                marcadas[p] = marcadas[red.vecinoCaminando(e)];
+            }
+        }
+    }
+
+    /** Copia del horario guardado los patrones de los orígenes que no hay que calcular. */
+    private void copiar(HorarioGuardado guardado, boolean[] calcular, int[][][][] porOrigen) {
+        int n = red.cantidadParadas();
+        Map<Integer, Integer> paradaPorCodigo = new HashMap<>();
+        for (int p = 0; p < n; p++) paradaPorCodigo.put(red.getParada(p).getCodigo(), p);
+        Map<String, Integer> lineaPorCodigo = new HashMap<>();
+        for (int l = 0; l < red.cantidadLineas(); l++) lineaPorCodigo.put(red.getLinea(l).getCodigo(), l);
+
+        for (int o = 0; o < n; o++) {
+            if (calcular[o]) continue;
+            porOrigen[o] = new int[n][][];
+            Arrays.fill(porOrigen[o], new int[0][]);
+        }
+        // Con la misma estructura, las paradas y líneas del horario guardado son las de la red
+        TablasArchivo tablas = guardado.tablas;
+        for (int i = 0; i < guardado.origenes.length; i++) {
+            int o = paradaPorCodigo.get(tablas.paradas[guardado.origenes[i]]);
+            if (calcular[o]) continue;
+            int d = paradaPorCodigo.get(tablas.paradas[guardado.destinos[i]]);
+            int[][] delPar = new int[guardado.patrones[i].length][];
+            for (int j = 0; j < delPar.length; j++) {
+                int[] tramos = tablas.patrones[guardado.patrones[i][j]].clone();
+                for (int t = 0; t < tramos.length; t += 3) tramos[t] = lineaPorCodigo.get(tablas.lineas[tramos[t]]);
+                delPar[j] = tramos;
+            }
+            porOrigen[o][d] = delPar;
+        }
+    }
+
+    /**
+     * Calcula los patrones de los orígenes {@code origenes[desde..hasta)}, dividiendo el rango
+     * mientras sea grande. Las tareas solo se ejecutan en el pool, nunca se serializan.
+     */
+    @SuppressWarnings("serial")
+    private static final class Origenes extends RecursiveAction {
+        private final RedCompilada red;
+        private final CalculoPerfil perfil;
+        private final int dia;
+        /** Patrones de cada origen hacia cada destino. */
+        private final int[][][][] porOrigen;
+        private final int[] origenes;
+        private final int desde;
+        private final int hasta;
+
+        Origenes(RedCompilada red, CalculoPerfil perfil, int dia, int[][][][] porOrigen, int[] origenes, int desde,
+                int hasta) {
+            this.red = red;
+            this.perfil = perfil;
+            this.dia = dia;
+            this.porOrigen = porOrigen;
+            this.origenes = origenes;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > ORIGENES_POR_TAREA) {
+                int mitad = (desde + hasta) >>> 1;
+                invokeAll(new Origenes(red, perfil, dia, porOrigen, origenes, desde, mitad),
+                        new Origenes(red, perfil, dia, porOrigen, origenes, mitad, hasta));
+                return;
+            }
+            int n = red.cantidadParadas();
+            for (int i = desde; i < hasta; i++) {
+                int o = origenes[i];
+                List<Set<Patron>> destinos = new ArrayList<>(n);
+                for (int d = 0; d < n; d++) destinos.add(new LinkedHashSet<>());
+                perfil.recorrerPatrones(o, dia, (d, tramos) -> destinos.get(d).add(new Patron(tramos)));
+
+                int[][][] fila = new int[n][][];
+                for (int d = 0; d < n; d++) {
+                    fila[d] = destinos.get(d).stream().map(p -> p.tramos).toArray(int[][]::new);
+                }
+                porOrigen[o] = fila;
+            }
+        }
+    }
+
+    // ==============================
+    // CONSULTA
+    // ==============================
+
+    public RedCompilada getRed() {
+        return red;
+    }
+
+    /** @return cantidad máxima de colectivos de los patrones */
+    public int getMaxRondas() {
+        return maxRondas;
+    }
+
+    /** @return cantidad de patrones distintos entre todos los pares y horarios */
+    public int cantidadPatrones() {
+        return inicioPatron.length - 1;
+    }
+
+    /** @return horarios de día distintos de la red */
+    public int cantidadHorarios() {
+        return huellas.length;
+    }
+
+    /** @return horarios que se calcularon al crear este objeto */
+    public int getHorariosCalculados() {
+        return horariosCalculados;
+    }
+
+    /** @return horarios que se tomaron del archivo sin recalcular */
+    public int getHorariosReutilizados() {
+        return horariosReutilizados;
+    }
+
+    /** @return orígenes que se calcularon, sumando los de todos los horarios calculados */
+    public int getOrigenesCalculados() {
+        return origenesCalculados;
+    }
+
+    /** Primer patrón del par en el día; los del par son {@code [primero, fin)} en {@link #patronDelPar}. */
+    int primero(int dia, int origen, int destino) {
+        return inicio[horarioPorDia[dia - 1]][origen * red.cantidadParadas() + destino];
+    }
+
+    int fin(int dia, int origen, int destino) {
+        return inicio[horarioPorDia[dia - 1]][origen * red.cantidadParadas() + destino + 1];
+    }
+
+    int patronDelPar(int dia, int i) {
+        return patronesPar[horarioPorDia[dia - 1]][i];
+    }
+
+    /** Cantidad de colectivos del patrón. */
+    int colectivos(int patron) {
+        return (inicioPatron[patron + 1] - inicioPatron[patron]) / 3;
+    }
+
+    /** Línea, posición de subida y posición de bajada del tramo t del patrón. */
+    int linea(int patron, int t) {
+        return tramosPatron[inicioPatron[patron] + 3 * t];
+    }
+
+    int subida(int patron, int t) {
+        return tramosPatron[inicioPatron[patron] + 3 * t + 1];
+    }
+
+    int bajada(int patron, int t) {
+        return tramosPatron[inicioPatron[patron] + 3 * t + 2];
+    }
+
+    // ==============================
+    // HUELLAS Y ARCHIVO
+    // ==============================
+
+    /**
+     * Huella de la red sin las salidas: paradas, caminatas y recorrido y tiempos de las
+     * líneas. No depende del orden de las paradas ni de las líneas en la red.
+     */
+    static long huellaEstructura(RedCompilada red, int maxRondas) {
+        Huella h = new Huella();
+        h.agregar(maxRondas);
+        Integer[] paradas = ordenadas(red.cantidadParadas(), p -> red.getParada(p).getCodigo());
+        for (int p : paradas) {
+            h.agregar(red.getParada(p).getCodigo());
+            List<long[]> vecinas = new ArrayList<>();
+            for (int e = red.inicioCaminando(p); e < red.finCaminando(p); e++) {
+                vecinas.add(new long[] { red.getParada(red.vecinoCaminando(e)).getCodigo(), red.tiempoCaminando(e) });
+            }
+            vecinas.sort((a, b) -> Long.compare(a[0], b[0]));
+            for (long[] v : vecinas) {
+                h.agregar(v[0]);
+                h.agregar(v[1]);
+            }
+        }
+        for (int l : lineasOrdenadas(red)) {
+            h.agregar(red.getLinea(l).getCodigo().hashCode());
+            for (int i = 0; i < red.largo(l); i++) {
+                h.agregar(red.getParada(red.parada(l, i)).getCodigo());
+                h.agregar(red.tiempo(l, i));
+            }
+        }
+        return h.valor;
+    }
+
+    /** Huella de las salidas de la línea en el día. */
+    static long huellaSalidas(RedCompilada red, int l, int dia) {
+        Huella h = new Huella();
+        for (int v = 0; v < red.cantidadSalidas(l, dia); v++) h.agregar(red.salida(l, dia, v));
+        return h.valor;
+    }
+
+    /** Huella de la red en un día, a partir de la estructura y de las salidas de cada línea ese día. */
+    private static long huella(RedCompilada red, long estructura, long[] salidas) {
+        Huella h = new Huella();
+        h.agregar(estructura);
+        for (int l : lineasOrdenadas(red)) {
+            h.agregar(red.getLinea(l).getCodigo().hashCode());
+            h.agregar(salidas[l]);
+        }
+        return h.valor;
+    }
+
+    private static Integer[] lineasOrdenadas(RedCompilada red) {
+        Integer[] lineas = new Integer[red.cantidadLineas()];
+        for (int l = 0; l < lineas.length; l++) lineas[l] = l;
+        Arrays.sort(lineas, (a, b) -> red.getLinea(a).getCodigo().compareTo(red.getLinea(b).getCodigo()));
+        return lineas;
+    }
+
+    private interface Clave {
+        int de(int i);
+    }
+
+    private static Integer[] ordenadas(int cantidad, Clave clave) {
+        Integer[] indices = new Integer[cantidad];
+        for (int i = 0; i < cantidad; i++) indices[i] = i;
+        Arrays.sort(indices, (a, b) -> Integer.compare(clave.de(a), clave.de(b)));
+        return indices;
+    }
+
+    /** Hash FNV-1a de 64 bits sobre valores enteros. */
+    private static final class Huella {
+        long valor = 0xcbf29ce484222325L;
+
+        void agregar(long x) {
+            for (int i = 0; i < 8; i++) {
+                valor ^= (x >>> (8 * i)) & 0xff;
+                valor *= 0x100000001b3L;
+            }
+        }
+    }
+
+    /**
+     * Guarda los patrones en formato binario comprimido con GZIP: {@link #FORMATO_BINARIO}, máximo de colectivos,
+     * códigos de las paradas y de las líneas, los patrones distintos (cantidad de tramos y,
+     * por tramo, línea, subida y bajada) y por cada horario su huella, los días que lo usan,
+     * la huella de la estructura, la de las salidas de cada línea (línea y huella) y los
+     * pares con patrones (origen, destino, cantidad y patrones). Después de los
+     * horarios de la red se guardan los conservados del archivo leído.
+     *
+     * @param archivo archivo de salida
+     * @throws IOException si no se puede escribir el archivo
+     */
+    public void escribir(Path archivo) throws IOException {
+        int n = red.cantidadParadas();
+
+        // Las paradas, líneas y patrones de la red van primero, con sus mismos índices; los que
+        // solo usan los horarios conservados se agregan al final de cada tabla
+        List<Integer> paradas = new ArrayList<>();
+        Map<Integer, Integer> indiceParada = new HashMap<>();
+        for (int p = 0; p < n; p++) indice(red.getParada(p).getCodigo(), paradas, indiceParada);
+        List<String> lineas = new ArrayList<>();
+        Map<String, Integer> indiceLinea = new HashMap<>();
+        for (int l = 0; l < red.cantidadLineas(); l++) indice(red.getLinea(l).getCodigo(), lineas, indiceLinea);
+        List<Patron> patrones = new ArrayList<>();
+        Map<Patron, Integer> indicePatron = new HashMap<>();
+        for (int i = 0; i < cantidadPatrones(); i++) {
+            indice(new Patron(Arrays.copyOfRange(tramosPatron, inicioPatron[i], inicioPatron[i + 1])), patrones,
+                    indicePatron);
+        }
+        int[][][] paresConservados = new int[conservados.size()][][];
+        int[][] lineasConservados = new int[conservados.size()][];
+        for (int c = 0; c < conservados.size(); c++) {
+            HorarioGuardado guardado = conservados.get(c);
+            TablasArchivo tablas = guardado.tablas;
+            lineasConservados[c] = new int[guardado.lineas.length];
+            for (int i = 0; i < guardado.lineas.length; i++) {
+                lineasConservados[c][i] = indice(tablas.lineas[guardado.lineas[i]], lineas, indiceLinea);
+            }
+            int[][] pares = new int[guardado.patrones.length][];
+            for (int i = 0; i < pares.length; i++) {
+                int[] par = new int[2 + guardado.patrones[i].length];
+                par[0] = indice(tablas.paradas[guardado.origenes[i]], paradas, indiceParada);
+                par[1] = indice(tablas.paradas[guardado.destinos[i]], paradas, indiceParada);
+                for (int j = 0; j < guardado.patrones[i].length; j++) {
+                    int[] tramos = tablas.patrones[guardado.patrones[i][j]].clone();
+                    for (int t = 0; t < tramos.length; t += 3) {
+                        tramos[t] = indice(tablas.lineas[tramos[t]], lineas, indiceLinea);
+                    }
+                    par[2 + j] = indice(new Patron(tramos), patrones, indicePatron);
+                }
+                pares[i] = par;
+            }
+            paresConservados[c] = pares;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(archivo))))) {
+            out.writeInt(FORMATO_BINARIO);
+            out.writeByte(maxRondas);
+            out.writeShort(paradas.size());
+            for (int codigo : paradas) out.writeInt(codigo);
+            out.writeShort(lineas.size());
+            for (String codigo : lineas) out.writeUTF(codigo);
+
+            out.writeInt(patrones.size());
+            for (Patron patron : patrones) {
+                out.writeByte(patron.tramos.length / 3);
+                for (int x : patron.tramos) out.writeShort(x);
+            }
+
+            out.writeByte(huellas.length + conservados.size());
+            for (int h = 0; h < huellas.length; h++) {
+                out.writeLong(huellas[h]);
+                int dias = 0;
+                for (int d = 0; d < RedCompilada.DIAS; d++) {
+                    if (horarioPorDia[d] == h) dias |= 1 << d;
+                }
+                out.writeByte(dias);
+                out.writeLong(estructura);
+                out.writeShort(red.cantidadLineas());
+                for (int l = 0; l < red.cantidadLineas(); l++) {
+                    out.writeShort(l);
+                    out.writeLong(salidasPorHorario[h][l]);
+                }
+                int pares = 0;
+                for (int i = 0; i < n * n; i++) {
+                    if (inicio[h][i + 1] > inicio[h][i]) pares++;
+                }
+                out.writeInt(pares);
+                for (int i = 0; i < n * n; i++) {
+                    int cantidad = inicio[h][i + 1] - inicio[h][i];
+                    if (cantidad == 0) continue;
+                    out.writeShort(i / n);
+                    out.writeShort(i % n);
+                    out.writeShort(cantidad);
+                    for (int j = inicio[h][i]; j < inicio[h][i + 1]; j++) out.writeInt(patronesPar[h][j]);
+                }
+            }
+            for (int c = 0; c < conservados.size(); c++) {
+                out.writeLong(conservados.get(c).huella);
+                out.writeByte(conservados.get(c).dias);
+                out.writeLong(conservados.get(c).estructura);
+                out.writeShort(lineasConservados[c].length);
+                for (int i = 0; i < lineasConservados[c].length; i++) {
+                    out.writeShort(lineasConservados[c][i]);
+                    out.writeLong(conservados.get(c).salidas[i]);
+                }
+                out.writeInt(paresConservados[c].length);
+                for (int[] par : paresConservados[c]) {
+                    out.writeShort(par[0]);
+                    out.writeShort(par[1]);
+                    out.writeShort(par.length - 2);
+                    for (int j = 2; j < par.length; j++) out.writeInt(par[j]);
+                }
+            }
+        }
+    }
+
+    /** Índice de la clave en la tabla, agregándola al final si no estaba. */
+    private static <K> int indice(K clave, List<K> tabla, Map<K, Integer> indices) {
+        Integer i = indices.get(clave);
+        if (i == null) {
+            i = tabla.size();
+            tabla.add(clave);
+            indices.put(clave, i);
+        }
+        return i;
+    }
+
+    /**
+     * Lee los horarios del archivo cuya huella coincide con alguno de la red. Las paradas y
+     * líneas se buscan por código, así que no importa el orden en que estén en la red. Los
+     * horarios con otra huella se guardan en {@link #conservados}.
+     */
+    private void leer(Path archivo, Acumulador acumulador) throws IOException {
+        int n = red.cantidadParadas();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(archivo))))) {
+            if (in.readInt() != FORMATO_BINARIO) {
+                throw new IOException("Formato desconocido");
+            }
+            if (in.readByte() != maxRondas) {
+                LOGGER.info("Los patrones guardados usan otra cantidad de colectivos. Se calculan de nuevo.");
+                return;
+            }
+
+            int[] codigosParada = new int[in.readUnsignedShort()];
+            for (int p = 0; p < codigosParada.length; p++) codigosParada[p] = in.readInt();
+            String[] codigosLinea = new String[in.readUnsignedShort()];
+            for (int l = 0; l < codigosLinea.length; l++) codigosLinea[l] = in.readUTF();
+            // Patrones con las líneas del archivo
+            int[][] crudos = new int[in.readInt()][];
+            for (int i = 0; i < crudos.length; i++) {
+                int[] tramos = new int[3 * in.readUnsignedByte()];
+                for (int t = 0; t < tramos.length; t++) tramos[t] = in.readUnsignedShort();
+                crudos[i] = tramos;
+            }
+            TablasArchivo tablas = new TablasArchivo(codigosParada, codigosLinea, crudos);
+
+            Map<Integer, Integer> paradaPorCodigo = new HashMap<>();
+            for (int p = 0; p < n; p++) paradaPorCodigo.put(red.getParada(p).getCodigo(), p);
+            int[] parada = new int[codigosParada.length];
+            for (int p = 0; p < parada.length; p++) parada[p] = paradaPorCodigo.getOrDefault(codigosParada[p], -1);
+
+            Map<String, Integer> lineaPorCodigo = new HashMap<>();
+            for (int l = 0; l < red.cantidadLineas(); l++) lineaPorCodigo.put(red.getLinea(l).getCodigo(), l);
+            int[] linea = new int[codigosLinea.length];
+            for (int l = 0; l < linea.length; l++) linea[l] = lineaPorCodigo.getOrDefault(codigosLinea[l], -1);
+
+            int[] ids = new int[crudos.length];
+            Arrays.fill(ids, -1);
+
+            int horarios = in.readUnsignedByte();
+            for (int k = 0; k < horarios; k++) {
+                long huella = in.readLong();
+                int dias = in.readUnsignedByte();
+                int h = -1;
+                boolean repetido = false;
+                for (int j = 0; j < huellas.length; j++) {
+                    if (huellas[j] == huella) {
+                        h = j;
+                        repetido = inicio[j] != null;
+                    }
+                }
+                for (HorarioGuardado guardado : conservados) repetido |= guardado.huella == huella;
+                long estructuraGuardada = in.readLong();
+                int[] lineasGuardadas = new int[in.readUnsignedShort()];
+                long[] salidasGuardadas = new long[lineasGuardadas.length];
+                for (int i = 0; i < lineasGuardadas.length; i++) {
+                    lineasGuardadas[i] = in.readUnsignedShort();
+                    salidasGuardadas[i] = in.readLong();
+                }
+                int pares = in.readInt();
+                if (repetido) {
+                    for (int i = 0; i < pares; i++) {
+                        in.readUnsignedShort();
+                        in.readUnsignedShort();
+                        for (int j = in.readUnsignedShort(); j > 0; j--) in.readInt();
+                    }
+                    continue;
+                }
+                int[] origenes = new int[pares];
+                int[] destinos = new int[pares];
+                int[][] patronesLeidos = new int[pares][];
+                for (int i = 0; i < pares; i++) {
+                    origenes[i] = in.readUnsignedShort();
+                    destinos[i] = in.readUnsignedShort();
+                    patronesLeidos[i] = new int[in.readUnsignedShort()];
+                    for (int j = 0; j < patronesLeidos[i].length; j++) patronesLeidos[i][j] = in.readInt();
+                }
+                HorarioGuardado guardado = new HorarioGuardado(tablas, huella, dias, estructuraGuardada,
+                        lineasGuardadas, salidasGuardadas, origenes, destinos, patronesLeidos);
+                if (h < 0) {
+                    // Horario de otra red: se conserva para volver a guardarlo
+                    conservados.add(guardado);
+                    continue;
+                }
+                leidos.add(guardado);
+
+                // Con la misma huella, las paradas y líneas del archivo son las de la red
+                int[][] porPar = new int[n * n][];
+                for (int i = 0; i < pares; i++) {
+                    int o = parada[origenes[i]];
+                    int d = parada[destinos[i]];
+                    int[] delPar = new int[patronesLeidos[i].length];
+                    for (int j = 0; j < delPar.length; j++) {
+                        int leido = patronesLeidos[i][j];
+                        if (ids[leido] < 0) {
+                            int[] tramos = crudos[leido].clone();
+                            for (int t = 0; t < tramos.length; t += 3) tramos[t] = linea[tramos[t]];
+                            ids[leido] = acumulador.id(tramos);
+                        }
+                        delPar[j] = ids[leido];
+                    }
+                    porPar[o * n + d] = delPar;
+                }
+                int[] inicioH = new int[n * n + 1];
+                Arreglo delHorario = new Arreglo();
+                for (int i = 0; i < n * n; i++) {
+                    inicioH[i] = delHorario.cantidad;
+                    if (porPar[i] != null) for (int id : porPar[i]) delHorario.agregar(id);
+                }
+                inicioH[n * n] = delHorario.cantidad;
+                inicio[h] = inicioH;
+                patronesPar[h] = delHorario.recortar();
+            }
+        }
+    }
+
+    // ==============================
+    // AUXILIARES
+    // ==============================
+
+    /** Secuencia de tramos comparable por contenido. */
+    private static final class Patron {
+        final int[] tramos;
+
+        Patron(int[] tramos) {
+            this.tramos = tramos;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Patron && Arrays.equals(tramos, ((Patron) o).tramos);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(tramos);
+        }
+    }
+
+    /** Códigos de paradas y líneas, y patrones, con los índices de un archivo leído. */
+    private static final class TablasArchivo {
+        final int[] paradas;
+        final String[] lineas;
+        final int[][] patrones;
+
+        TablasArchivo(int[] paradas, String[] lineas, int[][] patrones) {
+            this.paradas = paradas;
+            this.lineas = lineas;
+            this.patrones = patrones;
+        }
+    }
+
+    /**
+     * Horario leído del archivo: sus huellas, las salidas de cada línea y sus pares y
+     * patrones, con los índices del archivo.
+     */
+    private static final class HorarioGuardado {
+        final TablasArchivo tablas;
+        final long huella;
+        final int dias;
+        final long estructura;
+        final int[] lineas;
+        final long[] salidas;
+        final int[] origenes;
+        final int[] destinos;
+        final int[][] patrones;
+
+        HorarioGuardado(TablasArchivo tablas, long huella, int dias, long estructura, int[] lineas, long[] salidas,
+                int[] origenes, int[] destinos, int[][] patrones) {
+            this.tablas = tablas;
+            this.huella = huella;
+            this.dias = dias;
+            this.estructura = estructura;
+            this.lineas = lineas;
+            this.salidas = salidas;
+            this.origenes = origenes;
+            this.destinos = destinos;
+            this.patrones = patrones;
+        }
+    }
+
+    /** Numera los patrones distintos a medida que aparecen. */
+    private static final class Acumulador {
+        final Map<Patron, Integer> ids = new HashMap<>();
+        final Arreglo inicios = new Arreglo();
+        final Arreglo tramos = new Arreglo();
+
+        Acumulador() {
+            inicios.agregar(0);
+        }
+
+        int id(int[] patron) {
+            Integer id = ids.get(new Patron(patron));
+            if (id == null) {
+                id = ids.size();
+                ids.put(new Patron(patron), id);
+                for (int x : patron) tramos.agregar(x);
+                inicios.agregar(tramos.cantidad);
+            }
+            return id;
+        }
+    }
+
+    /** Arreglo de enteros que crece a medida que se agregan valores. */
+    private static final class Arreglo {
+        int[] datos = new int[64];
+        int cantidad;
+
+        void agregar(int valor) {
+            if (cantidad == datos.length) datos = Arrays.copyOf(datos, cantidad * 2);
+            datos[cantidad++] = valor;
+        }
+
+        int[] recortar() {
+            return Arrays.copyOf(datos, cantidad);
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package colectivo.negocio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Clase RedCompilada
+ * ------------------------
+ * Representación de la red de colectivos pensada para los motores de búsqueda.
+ *
+ * Se arma una única vez a partir de las líneas, paradas y tramos del sistema.
+ * Cada parada y cada línea recibe un número denso (0..n-1) y toda la información
+ * que se consulta al buscar recorridos se guarda en arreglos {@code int[]} planos:
+ * <ul>
+ *   <li>paradas de cada línea y tiempo acumulado desde el inicio hasta cada una,</li>
+ *   <li>líneas que pasan por cada parada y en qué posición,</li>
+ *   <li>paradas a las que se puede llegar caminando y el tiempo de la caminata más corta,</li>
+ *   <li>salidas ordenadas de cada línea para cada día de la semana.</li>
+ * </ul>
+ * Los datos de una línea o parada ocupan un rango contiguo de su arreglo: el rango
+ * de la línea {@code l} va de {@code lineaInicio[l]} a {@code lineaInicio[l + 1]}
+ * (exclusivo), y lo mismo para paradas y días.
+ *
+ * Es inmutable, por lo que puede compartirse entre consultas e hilos.
+ */
+public final class RedCompilada {
+
+    private static final Logger LOGGER = LogManager.getLogger(RedCompilada.class.getName());
+
+    /** Cantidad de días de la semana con salidas (1 = lunes ... 7 = domingo). */
+    public static final int DIAS = 7;
+
+    /** Duración máxima por defecto de una caminata que encadena varios tramos caminando, en segundos. */
+    public static final int CAMINATA_MAXIMA_POR_DEFECTO = 10 * 60;
+
+    private final Parada[] paradas;
+    private final Map<Integer, Integer> indicePorCodigo;
+    private final Linea[] lineas;
+    private final Map<Linea, Integer> indicePorLinea;
+
+    /** Paradas de cada línea (índices densos) y segundos desde el inicio de la línea. */
+    private final int[] lineaInicio;
+    private final int[] lineaParadas;
+    private final int[] lineaTiempos;
+
+    /** Pasadas de líneas por cada parada: línea y posición de la parada en ella. */
+    private final int[] pasadaInicio;
+    private final int[] pasadaLinea;
+    private final int[] pasadaPosicion;
+
+    /**
+     * Caminatas desde cada parada: cierre transitivo de los tramos caminando (en ambos
+     * sentidos) con el tiempo más corto, hasta la duración máxima de caminata.
+     */
+    private final int[] caminandoInicio;
+    private final int[] caminandoVecino;
+    private final int[] caminandoTiempo;
+
+    /** Salidas ordenadas de cada línea, por día (posición 0 = lunes). */
+    private final int[][] salidaInicio;
+    private final int[][] salidas;
+
+    /**
+     * Compila la red del sistema.
+     *
+     * @param sistema sistema con las líneas, paradas y tramos cargados
+     */
+    public RedCompilada(SistemaColectivo sistema) {
+        this(sistema.getLineas(), sistema.getParadas(), sistema.getTramos());
+    }
+
+    /**
+     * Compila una red con la duración máxima de caminata por defecto.
+     *
+     * @see #RedCompilada(Map, Map, Map, int)
+     */
+    public RedCompilada(Map<String, Linea> lineas, Map<Integer, Parada> paradas, Map<String, Tramo> tramos) {
+        this(lineas, paradas, tramos, CAMINATA_MAXIMA_POR_DEFECTO);
+    }
+
+    /**
+     * Compila una red. Las líneas a las que les falta algún tramo se omiten.
+     *
+     * @param lineas líneas de la red
+     * @param paradas paradas de la red; las que aparecen en líneas o tramos se agregan aunque no estén
+     * @param tramos tramos de la red (clave: "codigoOrigen-codigoDestino")
+     * @param caminataMaxima segundos máximos de una caminata que encadena varios tramos caminando;
+     *        los tramos caminando sueltos se incluyen aunque duren más
+     */
+    public RedCompilada(Map<String, Linea> lineas, Map<Integer, Parada> paradas, Map<String, Tramo> tramos,
+            int caminataMaxima) {
+        if (caminataMaxima < 0) {
+            throw new IllegalArgumentException("La caminata máxima no puede ser negativa: " + caminataMaxima);
+        }
+        List<Parada> listaParadas = new ArrayList<>(paradas.values());
+        indicePorCodigo = new HashMap<>();
+        for (int i = 0; i < listaParadas.size(); i++) {
+            indicePorCodigo.put(listaParadas.get(i).getCodigo(), i);
+        }
+
+        // Líneas que se pueden recorrer completas
+        List<Linea> listaLineas = new ArrayList<>();
+        List<int[]> tiempos = new ArrayList<>();
+        for (Linea linea : lineas.values()) {
+            int[] t = linea.getTiemposAcumulados(tramos);
+            if (t == null) {
+                LOGGER.error("RedCompilada: Faltan tramos para recorrer la línea " + linea.getCodigo() + ". Se omite.");
+                continue;
+            }
+            listaLineas.add(linea);
+            tiempos.add(t);
+        }
+        this.lineas = listaLineas.toArray(new Linea[0]);
+        indicePorLinea = new HashMap<>();
+        for (int l = 0; l < this.lineas.length; l++) {
+            indicePorLinea.put(this.lineas[l], l);
+        }
+
+        // Secuencias de paradas y tiempos acumulados
+        int totalParadas = 0;
+        for (Linea linea : this.lineas) totalParadas += linea.getParadas().size();
+        lineaInicio = new int[this.lineas.length + 1];
+        lineaParadas = new int[totalParadas];
+        lineaTiempos = new int[totalParadas];
+        int k = 0;
+        for (int l = 0; l < this.lineas.length; l++) {
+            lineaInicio[l] = k;
+            List<Parada> ps = this.lineas[l].getParadas();
+            int[] t = tiempos.get(l);
+            for (int i = 0; i < ps.size(); i++, k++) {
+                lineaParadas[k] = indice(ps.get(i), listaParadas);
+                lineaTiempos[k] = t[i];
+            }
+        }
+        lineaInicio[this.lineas.length] = k;
+
+        // Tramos caminando: se agregan las paradas que no estén en ninguna línea
+        List<Tramo> caminando = new ArrayList<>();
+        for (Tramo t : tramos.values()) {
+            if (t.getTipo() != Constantes.CAMINANDO) continue;
+            indice(t.getInicio(), listaParadas);
+            indice(t.getFin(), listaParadas);
+            caminando.add(t);
+        }
+        this.paradas = listaParadas.toArray(new Parada[0]);
+        int n = this.paradas.length;
+
+        // Pasadas de líneas por cada parada
+        pasadaInicio = new int[n + 1];
+        for (int p : lineaParadas) pasadaInicio[p + 1]++;
+        acumular(pasadaInicio);
+        pasadaLinea = new int[totalParadas];
+        pasadaPosicion = new int[totalParadas];
+        int[] siguiente = Arrays.copyOf(pasadaInicio, n);
+        for (int l = 0; l < this.lineas.length; l++) {
+            for (int j = lineaInicio[l]; j < lineaInicio[l + 1]; j++) {
+                int e = siguiente[lineaParadas[j]]++;
+                pasadaLinea[e] = l;
+                pasadaPosicion[e] = j - lineaInicio[l];
+            }
+        }
+
+        // Tramos caminando directos, en ambos sentidos
+        int[] directoInicio = new int[n + 1];
+        for (Tramo t : caminando) {
+            directoInicio[indicePorCodigo.get(t.getInicio().getCodigo()) + 1]++;
+            directoInicio[indicePorCodigo.get(t.getFin().getCodigo()) + 1]++;
+        }
+        acumular(directoInicio);
+        int[] directoVecino = new int[directoInicio[n]];
+        int[] directoTiempo = new int[directoInicio[n]];
+        siguiente = Arrays.copyOf(directoInicio, n);
+        for (Tramo t : caminando) {
+            int a = indicePorCodigo.get(t.getInicio().getCodigo());
+            int b = indicePorCodigo.get(t.getFin().getCodigo());
+            int e = siguiente[a]++;
+            directoVecino[e] = b;
+            directoTiempo[e] = t.getTiempo();
+            e = siguiente[b]++;
+            directoVecino[e] = a;
+            directoTiempo[e] = t.getTiempo();
+        }
+
+        // Cierre transitivo: desde cada parada, caminata más corta a cada parada alcanzable
+        caminandoInicio = new int[n + 1];
+        int[] vecinos = new int[directoVecino.length];
+        int[] tiemposCaminata = new int[directoVecino.length];
+        int cantidad = 0;
+        CaminataMinima caminata = new CaminataMinima(n);
+        for (int p = 0; p < n; p++) {
+            caminandoInicio[p] = cantidad;
+            int alcanzadas = caminata.calcular(p, caminataMaxima, directoInicio, directoVecino, directoTiempo);
+            if (cantidad + alcanzadas > vecinos.length) {
+                int largo = Math.max(vecinos.length * 2, cantidad + alcanzadas);
+                vecinos = Arrays.copyOf(vecinos, largo);
+                tiemposCaminata = Arrays.copyOf(tiemposCaminata, largo);
+            }
+            for (int i = 0; i < alcanzadas; i++, cantidad++) {
+                vecinos[cantidad] = caminata.alcanzadas[i];
+                tiemposCaminata[cantidad] = caminata.duracionAlcanzada[i];
+            }
+        }
+        caminandoInicio[n] = cantidad;
+        caminandoVecino = Arrays.copyOf(vecinos, cantidad);
+        caminandoTiempo = Arrays.copyOf(tiemposCaminata, cantidad);
+
+        // Salidas de cada día
+        salidaInicio = new int[DIAS][];
+        salidas = new int[DIAS][];
+        for (int d = 0; d < DIAS; d++) {
+            int[] inicio = new int[this.lineas.length + 1];
+            int total = 0;
+            for (int l = 0; l < this.lineas.length; l++) {
+                inicio[l] = total;
+                total += this.lineas[l].getSalidas(d + 1).length;
+            }
+            inicio[this.lineas.length] = total;
+            int[] sal = new int[total];
+            for (int l = 0; l < this.lineas.length; l++) {
+                int[] s = this.lineas[l].getSalidas(d + 1);
+                System.arraycopy(s, 0, sal, inicio[l], s.length);
+            }
+            salidaInicio[d] = inicio;
+            salidas[d] = sal;
+        }
+
+        LOGGER.info("RedCompilada: " + n + " paradas, " + this.lineas.length + " líneas, "
+                + caminando.size() + " tramos caminando, " + cantidad + " caminatas de hasta "
+                + caminataMaxima + " s.");
+    }
+
+    /**
+     * Dijkstra acotado sobre los tramos caminando directos. Sus arreglos se reutilizan
+     * de una parada de origen a la siguiente mientras se compila la red.
+     */
+    private static final class CaminataMinima {
+        final int[] alcanzadas;
+        final int[] duracionAlcanzada;
+        private final int[] tiempo;
+        private final boolean[] cerrada;
+        private final int[] cola;
+
+        CaminataMinima(int n) {
+            tiempo = new int[n];
+            alcanzadas = new int[n];
+            duracionAlcanzada = new int[n];
+            cerrada = new boolean[n];
+            cola = new int[n];
+            Arrays.fill(tiempo, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Calcula las paradas a las que se llega caminando desde el origen. Los vecinos
+         * directos se incluyen siempre; las demás solo si se llega en {@code maxima}
+         * segundos o menos.
+         *
+         * @return cantidad de paradas alcanzadas, guardadas en {@link #alcanzadas}
+         *         (sin el origen) con su tiempo en {@link #duracionAlcanzada}
+         */
+        int calcular(int origen, int maxima, int[] inicio, int[] vecino, int[] duracion) {
+            // Las redes tienen pocos tramos caminando por parada: una cola sin orden alcanza
+            int enCola = 0;
+            int cantidad = 0;
+            tiempo[origen] = 0;
+            cola[enCola++] = origen;
+            alcanzadas[cantidad++] = origen;
+            while (enCola > 0) {
+                int mejor = 0;
+                for (int i = 1; i < enCola; i++) {
+                    if (tiempo[cola[i]] < tiempo[cola[mejor]]) mejor = i;
+                }
+                int p = cola[mejor];
+                cola[mejor] = cola[--enCola];
+                cerrada[p] = true;
+                for (int e = inicio[p]; e < inicio[p + 1]; e++) {
+                    int q = vecino[e];
+                    int t = tiempo[p] + duracion[e];
+                    if (cerrada[q] || t >= tiempo[q]) continue;
+                    if (t > maxima && p != origen) continue;
+                    if (tiempo[q] == Integer.MAX_VALUE) {
+                        alcanzadas[cantidad++] = q;
+                        cola[enCola++] = q;
+                    }
+                    tiempo[q] = t;
+                }
+            }
+
+            // El origen se quita de la lista y se limpian los arreglos para la próxima parada
+            int resultado = 0;
+            for (int i = 0; i < cantidad; i++) {
+                int q = alcanzadas[i];
+                if (q != origen) {
+                    alcanzadas[resultado] = q;
+                    duracionAlcanzada[resultado++] = tiempo[q];
+                }
+                tiempo[q] = Integer.MAX_VALUE;
+                cerrada[q] = false;
+            }
+            return resultado;
+        }
+    }
+
+    private int indice(Parada p, List<Parada> lista) {
+        Integer i = indicePorCodigo.get(p.getCodigo());
+        if (i == null) {
+            i = lista.size();
+            indicePorCodigo.put(p.getCodigo(), i);
+            lista.add(p);
+        }
+        return i;
+    }
+
+    /** Convierte cantidades por posición (desplazadas en uno) en inicios de rango. */
+    private static void acumular(int[] inicios) {
+        for (int i = 1; i < inicios.length; i++) inicios[i] += inicios[i - 1];
+    }
+
+    // ==============================
+    // PARADAS Y LÍNEAS
+    // ==============================
+
+    public int cantidadParadas() {
+        return paradas.length;
+    }
+
+    public int cantidadLineas() {
+        return lineas.length;
+    }
+
+    public Parada getParada(int p) {
+        return paradas[p];
+    }
+
+    public Linea getLinea(int l) {
+        return lineas[l];
+    }
+
+    /**
+     * @return índice denso de la parada, o -1 si no pertenece a la red
+     */
+    public int indice(Parada parada) {
+        Integer i = parada == null ? null : indicePorCodigo.get(parada.getCodigo());
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return índice denso de la línea, o -1 si no pertenece a la red
+     */
+    public int indice(Linea linea) {
+        Integer l = linea == null ? null : indicePorLinea.get(linea);
+        return l == null ? -1 : l;
+    }
+
+    // ==============================
+    // RECORRIDO DE LAS LÍNEAS
+    // ==============================
+
+    /** Cantidad de paradas (posiciones) de la línea. */
+    public int largo(int l) {
+        return lineaInicio[l + 1] - lineaInicio[l];
+    }
+
+    /** Parada en la posición indicada de la línea. */
+    public int parada(int l, int posicion) {
+        return lineaParadas[lineaInicio[l] + posicion];
+    }
+
+    /** Segundos desde el inicio de la línea hasta la posición indicada. */
+    public int tiempo(int l, int posicion) {
+        return lineaTiempos[lineaInicio[l] + posicion];
+    }
+
+    /** Comienzo del rango de pasadas de líneas por la parada. */
+    public int inicioPasadas(int p) {
+        return pasadaInicio[p];
+    }
+
+    /** Fin (exclusivo) del rango de pasadas de líneas por la parada. */
+    public int finPasadas(int p) {
+        return pasadaInicio[p + 1];
+    }
+
+    public int lineaPasada(int e) {
+        return pasadaLinea[e];
+    }
+
+    public int posicionPasada(int e) {
+        return pasadaPosicion[e];
+    }
+
+    // ==============================
+    // CAMINATAS
+    // ==============================
+
+    /** Comienzo del rango de vecinos caminando de la parada. */
+    public int inicioCaminando(int p) {
+        return caminandoInicio[p];
+    }
+
+    /** Fin (exclusivo) del rango de vecinos caminando de la parada. */
+    public int finCaminando(int p) {
+        return caminandoInicio[p + 1];
+    }
+
+    public int vecinoCaminando(int e) {
+        return caminandoVecino[e];
+    }
+
+    public int tiempoCaminando(int e) {
+        return caminandoTiempo[e];
+    }
+
+    // ==============================
+    // SALIDAS
+    // ==============================
+
+    /** @return {@code true} si el día está entre 1 (lunes) y {@link #DIAS} */
+    public static boolean diaValido(int dia) {
+        return dia >= 1 && dia <= DIAS;
+    }
+
+    /** Cantidad de salidas de la línea en el día. */
+    public int cantidadSalidas(int l, int dia) {
+        int[] inicio = salidaInicio[dia - 1];
+        return inicio[l + 1] - inicio[l];
+    }
+
+    /** Hora de la salida número {@code v} de la línea, en segundos desde el inicio del día. */
+    public int salida(int l, int dia, int v) {
+        return salidas[dia - 1][salidaInicio[dia - 1][l] + v];
+    }
+
+    /**
+     * Busca la primera salida de la línea a la hora indicada o después.
+     *
+     * @return número de salida, o -1 si no quedan salidas ese día
+     */
+    public int buscarSalida(int l, int dia, int segundos) {
+        int[] sal = salidas[dia - 1];
+        int desde = salidaInicio[dia - 1][l];
+        int hasta = salidaInicio[dia - 1][l + 1];
+        int lo = desde;
+        int hi = hasta;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sal[mid] < segundos) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < hasta ? lo - desde : -1;
+    }
+
+    /**
+     * Busca la última salida de la línea a la hora indicada o antes.
+     *
+     * @return número de salida, o -1 si no hay salidas hasta esa hora
+     */
+    public int buscarSalidaAnterior(int l, int dia, int segundos) {
+        int[] sal = salidas[dia - 1];
+        int desde = salidaInicio[dia - 1][l];
+        int lo = desde;
+        int hi = salidaInicio[dia - 1][l + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sal[mid] <= segundos) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1 - desde;
+    }
+}
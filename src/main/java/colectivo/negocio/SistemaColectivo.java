@@ -10,6 +10,7 @@ import colectivo.modelo.Tramo;
 import colectivo.servicio.LineaService;
 import colectivo.servicio.ParadaService;
 import colectivo.servicio.TramoService;
+import colectivo.util.MapaTramos;
 
 /**
  * Clase que representa el sistema de colectivos.
@@ -24,7 +25,13 @@ public class SistemaColectivo implements Coordinable{
     /** Colecciones de datos cargados desde los servicios. */
     private Map<String, Linea> lineas;
     private Map<Integer, Parada> paradas;
-    private Map<String, Tramo> tramos;
+    private MapaTramos tramos;
+
+    /** Red compilada para los motores de búsqueda; se arma la primera vez que se pide. */
+    private RedCompilada red;
+
+    /** Índice espacial de las paradas, para buscar las más cercanas a un punto. */
+    private final IndiceParadas indiceParadas;
 
     private CoordinadorApp coordinador;
 
@@ -35,7 +42,15 @@ public class SistemaColectivo implements Coordinable{
     public SistemaColectivo(Map<String, Linea> lineas, Map<Integer, Parada> paradas, Map<String, Tramo> tramos) {
         this.lineas = lineas;
         this.paradas = paradas;
-        this.tramos = tramos;
+        // Índice con clave numérica: buscar un tramo no construye cadenas
+        this.tramos = MapaTramos.de(tramos);
+
+        // Los tiempos acumulados y las salidas de cada línea se preparan una sola vez al cargar los datos
+        for (Linea linea : lineas.values()) {
+            linea.calcularTiemposAcumulados(this.tramos);
+            linea.ordenarSalidas();
+        }
+        this.indiceParadas = new IndiceParadas(paradas.values());
         
         instancia = this;
     }
@@ -77,6 +92,36 @@ public class SistemaColectivo implements Coordinable{
         return tramos;
     }
 
+    /**
+     * Devuelve los tramos del sistema con acceso por código de paradas.
+     *
+     * @return los mismos tramos que {@link #getTramos()}, indexados por clave numérica
+     */
+    public MapaTramos getIndiceTramos() {
+        return tramos;
+    }
+
+    /**
+     * Devuelve la red compilada del sistema, armándola la primera vez.
+     *
+     * @return red con paradas y líneas numeradas y sus datos en arreglos planos
+     */
+    public synchronized RedCompilada getRed() {
+        if (red == null) {
+            red = new RedCompilada(this);
+        }
+        return red;
+    }
+
+    /**
+     * Devuelve el índice espacial de las paradas, armado al crear el sistema.
+     *
+     * @return índice para buscar las paradas más cercanas a un punto
+     */
+    public IndiceParadas getIndiceParadas() {
+        return indiceParadas;
+    }
+
     public void setCoordinador(CoordinadorApp coordinador){
         this.coordinador = coordinador;
     }
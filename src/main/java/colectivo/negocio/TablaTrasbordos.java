@@ -0,0 +1,144 @@
+package colectivo.negocio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+
+/**
+ * Clase TablaTrasbordos
+ * ------------------------
+ * Puntos de trasbordo de cada línea hacia las demás, calculados una sola vez.
+ *
+ * Para cada línea se guardan, ordenados por posición en la línea, los lugares donde se
+ * puede pasar a otra: en la misma parada ({@link #directos}) o caminando hasta una parada
+ * vecina ({@link #caminando}). Cada punto indica la posición en la primera línea, la
+ * segunda línea y la posición en ella. Así la búsqueda de conexiones recorre solo paradas
+ * donde de verdad hay trasbordo, en el mismo orden en que las recorría antes.
+ *
+ * Los puntos de una línea se calculan la primera vez que se piden, o todos juntos con
+ * {@link #precalcular}. La tabla supone que las líneas y paradas ya no cambian.
+ */
+public class TablaTrasbordos {
+
+    private static final Trasbordo[] VACIO = new Trasbordo[0];
+
+    private final Map<Linea, Trasbordo[]> directos = new ConcurrentHashMap<>();
+    private final Map<Linea, Trasbordo[]> caminando = new ConcurrentHashMap<>();
+
+    /**
+     * Calcula los puntos de trasbordo de todas las líneas.
+     * @param lineas líneas del sistema
+     */
+    public void precalcular(Collection<Linea> lineas) {
+        for (Linea linea : lineas) {
+            directos(linea);
+            caminando(linea);
+        }
+    }
+
+    /**
+     * @return trasbordos en la misma parada hacia otra línea, por posición en la línea
+     *         y en el orden de {@link Parada#getLineas()}. El arreglo no debe modificarse.
+     */
+    public Trasbordo[] directos(Linea linea) {
+        return directos.computeIfAbsent(linea, TablaTrasbordos::calcularDirectos);
+    }
+
+    /**
+     * @return trasbordos caminando a una parada vecina, por posición en la línea, luego en el
+     *         orden de {@link Parada#getParadaCaminando()} y de las líneas de la parada vecina.
+     *         El arreglo no debe modificarse.
+     */
+    public Trasbordo[] caminando(Linea linea) {
+        return caminando.computeIfAbsent(linea, TablaTrasbordos::calcularCaminando);
+    }
+
+    /**
+     * @return índice del primer trasbordo con posición mayor a la indicada, o el largo del arreglo
+     */
+    public static int primeroDespues(Trasbordo[] trasbordos, int posicion) {
+        int lo = 0;
+        int hi = trasbordos.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (trasbordos[mid].getPosicion() <= posicion) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static Trasbordo[] calcularDirectos(Linea linea) {
+        List<Trasbordo> puntos = new ArrayList<>();
+        List<Parada> paradas = linea.getParadas();
+        for (int i = 0; i < paradas.size(); i++) {
+            Parada parada = paradas.get(i);
+            for (Linea otra : parada.getLineas()) {
+                if (otra.equals(linea)) continue;
+                puntos.add(new Trasbordo(i, parada, otra, otra.getPosicion(parada), -1));
+            }
+        }
+        return puntos.isEmpty() ? VACIO : puntos.toArray(VACIO);
+    }
+
+    private static Trasbordo[] calcularCaminando(Linea linea) {
+        List<Trasbordo> puntos = new ArrayList<>();
+        List<Parada> paradas = linea.getParadas();
+        for (int i = 0; i < paradas.size(); i++) {
+            List<Parada> vecinas = paradas.get(i).getParadaCaminando();
+            for (int v = 0; v < vecinas.size(); v++) {
+                for (Linea otra : vecinas.get(v).getLineas()) {
+                    puntos.add(new Trasbordo(i, vecinas.get(v), otra, otra.getPosicion(vecinas.get(v)), v));
+                }
+            }
+        }
+        return puntos.isEmpty() ? VACIO : puntos.toArray(VACIO);
+    }
+
+    /** Punto donde se puede pasar de una línea a otra. */
+    public static final class Trasbordo {
+        private final int posicion;
+        private final Parada parada;
+        private final Linea linea;
+        private final int posicionLinea;
+        /** Índice de la parada vecina en {@link Parada#getParadaCaminando()}; -1 si no se camina. */
+        private final int vecina;
+
+        Trasbordo(int posicion, Parada parada, Linea linea, int posicionLinea, int vecina) {
+            this.posicion = posicion;
+            this.parada = parada;
+            this.linea = linea;
+            this.posicionLinea = posicionLinea;
+            this.vecina = vecina;
+        }
+
+        /** @return posición en la primera línea de la parada donde se baja */
+        public int getPosicion() {
+            return posicion;
+        }
+
+        /** @return parada donde se sube a la segunda línea (la misma, o la vecina si se camina) */
+        public Parada getParada() {
+            return parada;
+        }
+
+        /** @return segunda línea */
+        public Linea getLinea() {
+            return linea;
+        }
+
+        /** @return primera posición de {@link #getParada()} en la segunda línea */
+        public int getPosicionLinea() {
+            return posicionLinea;
+        }
+
+        /** @return índice de la parada vecina entre las paradas a las que se camina; -1 si no se camina */
+        public int getVecina() {
+            return vecina;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Map;
-import java.util.TreeMap;
 
 import colectivo.conexion.ConexionBD;
 import colectivo.configuracion.Factory;
@@ -16,7 +15,7 @@ import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
 import colectivo.persistencia.dao.ParadaDAO;
 import colectivo.persistencia.dao.TramoDAO;
-import colectivo.util.Util;
+import colectivo.util.MapaTramos;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,7 +42,7 @@ public class TramoBdDAO implements TramoDAO{
 	}
 	
 	private Map<String, Tramo> leerBD() {
-		Map<String, Tramo> tramosBd = new TreeMap<>();
+		MapaTramos tramosBd = new MapaTramos();
 		Map<Integer,Parada> paradas;
 		
 		String query = """
@@ -63,10 +62,12 @@ public class TramoBdDAO implements TramoDAO{
 				
 				Parada paradaInicio = paradas.get(codigoParadaInicio);
 				Parada paradaFin = paradas.get(codigoParadaFin);
-				String clave = Util.claveTramo(paradaInicio, paradaFin);
+				if (paradaInicio == null || paradaFin == null) {
+					throw new IllegalArgumentException("Las paradas de inicio y fin no pueden ser nulas.");
+				}
 				
 				Tramo tramo = new Tramo(paradaInicio, paradaFin, tiempo, tipo);
-				tramosBd.put(clave, tramo);
+				tramosBd.agregar(tramo);
 			}
 			LOGGER.info("Tramos cargados desde base de datos.");
 			return tramosBd;
@@ -8,7 +8,6 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.ResourceBundle;
 import java.util.Scanner;
-import java.util.TreeMap;
 
 import colectivo.configuracion.ConfiguracionGlobal;
 import colectivo.configuracion.Factory;
@@ -19,7 +18,7 @@ import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
 import colectivo.persistencia.dao.ParadaDAO;
 import colectivo.persistencia.dao.TramoDAO;
-import colectivo.util.Util;
+import colectivo.util.MapaTramos;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -71,7 +70,7 @@ public class TramoSecuencialDAO implements TramoDAO {
      * codParadaInicio;codParadaFin;tiempo;tipo
      */
     private Map<String, Tramo> readFromFile(String file) {
-        Map<String, Tramo> map = new TreeMap<>();
+        MapaTramos map = new MapaTramos();
         Scanner inFile = null;
         try {
 
@@ -90,7 +89,7 @@ public class TramoSecuencialDAO implements TramoDAO {
                 
                 Tramo tramo = new Tramo(inicio, fin, tiempo, tipo);
                 
-                map.put(Util.claveTramo(inicio, fin), tramo);
+                map.agregar(tramo);
             }
             LOGGER.info("Tramos cargados desde archivo: " + file);
             return map;
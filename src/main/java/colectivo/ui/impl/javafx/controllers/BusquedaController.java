@@ -126,6 +126,12 @@ public class BusquedaController {
                 LOGGER.info("Iniciando cálculo de ruta en background...");
                 // Simulamos delay si quieres probar el spinner (opcional)
                 try { Thread.sleep(2000); } catch (InterruptedException e) {} 
+                // Si está configurado, solo los mejores viajes y ya ordenados
+                int cantidad = coordinador.getRankingCantidad();
+                if (cantidad > 0) {
+                    return coordinador.calcularMejoresRecorridos(origen, destino, dia, hora, cantidad,
+                            coordinador.getRankingCriterio());
+                }
                 return coordinador.calcularRecorrido(origen, destino, dia, hora);
             },
             
@@ -0,0 +1,271 @@
+package colectivo.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Mapa de tramos indexado por los códigos de sus dos paradas empaquetados en un {@code long}.
+ *
+ * <p>Usa direccionamiento abierto con sondeo lineal sobre arreglos primitivos, por lo que
+ * buscar un tramo con {@link #get(Parada, Parada)} no crea objetos ni compara cadenas.</p>
+ *
+ * <p>Por compatibilidad también es un {@code Map<String, Tramo>} con claves "inicio-fin"
+ * (ver {@link Util#claveTramo(Parada, Parada)}): el código que usa claves de texto sigue
+ * funcionando sin cambios, incluido borrar con {@code remove}, {@code clear} o las vistas.
+ * Como en un {@code HashMap}, el orden de iteración es el de la tabla y no el de inserción,
+ * y cambia cuando la tabla crece.</p>
+ */
+public class MapaTramos extends AbstractMap<String, Tramo> {
+
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private long[] claves;
+    private Tramo[] valores;
+    private int cantidad;
+
+    public MapaTramos() {
+        claves = new long[CAPACIDAD_INICIAL];
+        valores = new Tramo[CAPACIDAD_INICIAL];
+    }
+
+    /**
+     * Crea un mapa con los tramos de otro mapa. Si ya es un {@code MapaTramos} lo devuelve tal cual.
+     */
+    public static MapaTramos de(Map<String, Tramo> tramos) {
+        if (tramos instanceof MapaTramos) return (MapaTramos) tramos;
+        MapaTramos mapa = new MapaTramos();
+        for (Tramo t : tramos.values()) mapa.agregar(t);
+        return mapa;
+    }
+
+    /**
+     * Busca un tramo en cualquier mapa de tramos, usando la clave numérica si es posible.
+     */
+    public static Tramo buscar(Map<String, Tramo> tramos, Parada inicio, Parada fin) {
+        if (tramos instanceof MapaTramos) return ((MapaTramos) tramos).get(inicio, fin);
+        return tramos.get(Util.claveTramo(inicio, fin));
+    }
+
+    /** Empaqueta los códigos de las dos paradas en una clave numérica. */
+    public static long clave(int codigoInicio, int codigoFin) {
+        return ((long) codigoInicio << 32) | (codigoFin & 0xFFFFFFFFL);
+    }
+
+    public Tramo get(int codigoInicio, int codigoFin) {
+        int i = buscarPosicion(clave(codigoInicio, codigoFin));
+        return i < 0 ? null : valores[i];
+    }
+
+    public Tramo get(Parada inicio, Parada fin) {
+        return get(inicio.getCodigo(), fin.getCodigo());
+    }
+
+    /**
+     * Agrega un tramo usando como clave los códigos de sus paradas.
+     * @return el tramo reemplazado, o {@code null}
+     */
+    public Tramo agregar(Tramo tramo) {
+        return guardar(clave(tramo.getInicio().getCodigo(), tramo.getFin().getCodigo()), tramo);
+    }
+
+    // ---------------------------------------------------
+    // Vista Map<String, Tramo>
+    // ---------------------------------------------------
+
+    @Override
+    public Tramo get(Object clave) {
+        Long k = parsear(clave);
+        if (k == null) return null;
+        int i = buscarPosicion(k);
+        return i < 0 ? null : valores[i];
+    }
+
+    @Override
+    public boolean containsKey(Object clave) {
+        Long k = parsear(clave);
+        return k != null && buscarPosicion(k) >= 0;
+    }
+
+    @Override
+    public Tramo put(String clave, Tramo tramo) {
+        Long k = parsear(clave);
+        if (k == null) throw new IllegalArgumentException("Clave de tramo inválida: " + clave);
+        return guardar(k, tramo);
+    }
+
+    @Override
+    public Tramo remove(Object clave) {
+        Long k = parsear(clave);
+        if (k == null) return null;
+        int i = buscarPosicion(k);
+        if (i < 0) return null;
+        Tramo anterior = valores[i];
+        eliminar(i, null);
+        return anterior;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(valores, null);
+        cantidad = 0;
+    }
+
+    @Override
+    public int size() {
+        return cantidad;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Tramo>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Tramo>>() {
+            @Override
+            public Iterator<Map.Entry<String, Tramo>> iterator() {
+                return new Iterator<Map.Entry<String, Tramo>>() {
+                    /** Claves ya devueltas que un borrado corrió a una posición que falta recorrer. */
+                    private Set<Long> devueltas;
+                    private int siguiente = avanzar(0);
+                    private int actual = -1;
+
+                    private int avanzar(int desde) {
+                        while (desde < valores.length
+                                && (valores[desde] == null || devueltas != null && devueltas.contains(claves[desde]))) {
+                            desde++;
+                        }
+                        return desde;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return siguiente < valores.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Tramo> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        actual = siguiente;
+                        long k = claves[actual];
+                        Tramo t = valores[actual];
+                        siguiente = avanzar(actual + 1);
+                        return new SimpleImmutableEntry<>((int) (k >> 32) + "-" + (int) k, t);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (actual < 0) throw new IllegalStateException();
+                        if (devueltas == null) devueltas = new HashSet<>();
+                        eliminar(actual, devueltas);
+                        // Un tramo que todavía no se recorrió puede haber pasado a la posición borrada
+                        siguiente = avanzar(actual);
+                        actual = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return cantidad;
+            }
+        };
+    }
+
+    // ---------------------------------------------------
+    // Tabla hash
+    // ---------------------------------------------------
+
+    private int indice(long clave, int largo) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (largo - 1);
+    }
+
+    private int buscarPosicion(long clave) {
+        int mascara = claves.length - 1;
+        for (int i = indice(clave, claves.length); valores[i] != null; i = (i + 1) & mascara) {
+            if (claves[i] == clave) return i;
+        }
+        return -1;
+    }
+
+    private Tramo guardar(long clave, Tramo tramo) {
+        if (tramo == null) throw new IllegalArgumentException("El tramo no puede ser nulo.");
+        int mascara = claves.length - 1;
+        int i = indice(clave, claves.length);
+        while (valores[i] != null) {
+            if (claves[i] == clave) {
+                Tramo anterior = valores[i];
+                valores[i] = tramo;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = tramo;
+        // Factor de carga máximo 0,5 para que las búsquedas sigan siendo cortas
+        if (++cantidad * 2 > claves.length) agrandar();
+        return null;
+    }
+
+    /**
+     * Borra la posición indicada corriendo hacia atrás los tramos siguientes del grupo que
+     * pueden ocupar el hueco, para que las búsquedas no se corten antes de encontrarlos.
+     *
+     * @param borrada  posición a borrar
+     * @param movidas  si no es {@code null}, recibe las claves que estaban antes de la posición
+     *                 borrada (la búsqueda dio la vuelta a la tabla) y pasaron a estar después
+     */
+    private void eliminar(int borrada, Set<Long> movidas) {
+        int mascara = claves.length - 1;
+        int hueco = borrada;
+        valores[hueco] = null;
+        for (int j = (hueco + 1) & mascara; valores[j] != null; j = (j + 1) & mascara) {
+            // Se mueve si su posición ideal no queda entre el hueco y j
+            int ideal = indice(claves[j], claves.length);
+            if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                if (movidas != null && j < borrada && hueco >= borrada) movidas.add(claves[j]);
+                claves[hueco] = claves[j];
+                valores[hueco] = valores[j];
+                valores[j] = null;
+                hueco = j;
+            }
+        }
+        cantidad--;
+    }
+
+    private void agrandar() {
+        long[] viejasClaves = claves;
+        Tramo[] viejosValores = valores;
+        claves = new long[viejasClaves.length * 2];
+        valores = new Tramo[viejosValores.length * 2];
+        int mascara = claves.length - 1;
+        for (int j = 0; j < viejasClaves.length; j++) {
+            if (viejosValores[j] == null) continue;
+            int i = indice(viejasClaves[j], claves.length);
+            while (valores[i] != null) i = (i + 1) & mascara;
+            claves[i] = viejasClaves[j];
+            valores[i] = viejosValores[j];
+        }
+    }
+
+    /**
+     * Convierte una clave "inicio-fin" a su forma numérica, o {@code null} si no es válida.
+     */
+    private static Long parsear(Object clave) {
+        if (!(clave instanceof String)) return null;
+        String s = (String) clave;
+        int guion = s.indexOf('-', 1);
+        if (guion < 0) return null;
+        try {
+            return clave(Integer.parseInt(s, 0, guion, 10), Integer.parseInt(s, guion + 1, s.length(), 10));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
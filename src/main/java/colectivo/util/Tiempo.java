@@ -1,6 +1,5 @@
 package colectivo.util;
 
-import java.time.Duration;
 import java.time.LocalTime;
 
 import org.apache.logging.log4j.LogManager;
@@ -18,6 +17,38 @@ import colectivo.modelo.Recorrido;
 public class Tiempo {
 
     private static final Logger LOGGER = LogManager.getLogger(Tiempo.class.getName());
+
+    /** Segundos de un día. */
+    public static final int SEGUNDOS_DIA = 24 * 60 * 60;
+
+    /**
+     * Convierte segundos desde el inicio del día de servicio a la hora del reloj.
+     *
+     * <p>Los motores de búsqueda cuentan el tiempo como segundos enteros desde el inicio
+     * del día de servicio; un viaje que termina después de medianoche tiene valores
+     * mayores a 24 h. La conversión a {@link LocalTime} se hace solo al armar el
+     * {@link Recorrido}. Por ejemplo, 90000 segundos se convierte en {@code 01:00}.</p>
+     *
+     * @param segundos segundos desde el inicio del día de servicio
+     * @return la hora del reloj correspondiente
+     */
+    public static LocalTime aHora(int segundos) {
+        return LocalTime.ofSecondOfDay(Math.floorMod(segundos, SEGUNDOS_DIA));
+    }
+
+    /**
+     * Convierte una hora del reloj en segundos desde el inicio del día de servicio, tomando
+     * la primera vez que el reloj marca esa hora a partir de una referencia.
+     *
+     * <p>Por ejemplo, con referencia 23:50 (85800) la hora {@code 00:10} es 87000.</p>
+     *
+     * @param hora hora del reloj
+     * @param referencia segundos desde el inicio del día de servicio
+     * @return segundos mayores o iguales a la referencia y menores a la referencia más un día
+     */
+    public static int segundosDesde(LocalTime hora, int referencia) {
+        return referencia + Math.floorMod(hora.toSecondOfDay() - referencia, SEGUNDOS_DIA);
+    }
     /**
      * Convierte una cantidad total de segundos a un objeto {@link LocalTime}.
      * 
@@ -58,15 +89,11 @@ public class Tiempo {
             return null;
         }
 
-        // Hora en que llega el colectivo al destino
-        LocalTime horaLlegada = r.getHoraSalida().plusSeconds(r.getDuracion());
-
-        Duration diferencia = Duration.between(horaLLegadaParada, horaLlegada);
-
-        // Si la diferencia es negativa, la duración es cero (por ejemplo, si el pasajero llegó después)
-        if (diferencia.isNegative()) diferencia = Duration.ZERO;
+        // El colectivo sale después de que el pasajero llega, aunque sea pasada la medianoche
+        int llegaParada = horaLLegadaParada.toSecondOfDay();
+        int horaLlegada = segundosDesde(r.getHoraSalida(), llegaParada) + r.getDuracion();
 
-        LocalTime duracionTotal = Tiempo.segundosATiempo((int) diferencia.getSeconds());
+        LocalTime duracionTotal = Tiempo.segundosATiempo(Math.floorMod(horaLlegada - llegaParada, SEGUNDOS_DIA));
 
         return duracionTotal;
     }
@@ -3,6 +3,10 @@ package colectivo.util;
 import colectivo.modelo.Parada;
 
 public final class Util {
+
+    /** Radio medio de la Tierra en metros. */
+    private static final double RADIO_TIERRA = 6_371_000;
+
      // Constructor privado para evitar instanciación
     private Util() { }
 
@@ -14,12 +18,13 @@ public final class Util {
      * @param inicio parada de inicio del tramo
      * @param fin parada de fin del tramo
      * @return cadena con formato "inicio-fin"
+     * @see MapaTramos#clave(int, int) clave numérica equivalente, sin crear cadenas
      */
     public static String claveTramo(Parada inicio, Parada fin) {
         if (inicio == null || fin == null) {
             throw new IllegalArgumentException("Las paradas de inicio y fin no pueden ser nulas.");
         }
-        return String.format("%d-%d", inicio.getCodigo(), fin.getCodigo());
+        return inicio.getCodigo() + "-" + fin.getCodigo();
     }
     /**
      * Parsea un número decimal que usa coma (",") como separador
@@ -35,4 +40,28 @@ public final class Util {
         String reemplazado = decimalConComa.replace(',', '.');
         return Double.parseDouble(reemplazado);
     }
+
+    /**
+     * Calcula la distancia en línea recta sobre la superficie terrestre (fórmula de haversine)
+     * entre dos puntos.
+     *
+     * @return distancia en metros
+     */
+    public static double distancia(double latitud1, double longitud1, double latitud2, double longitud2) {
+        double dLat = Math.toRadians(latitud2 - latitud1);
+        double dLon = Math.toRadians(longitud2 - longitud1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitud1)) * Math.cos(Math.toRadians(latitud2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Calcula la distancia en línea recta entre dos paradas.
+     *
+     * @return distancia en metros
+     */
+    public static double distancia(Parada a, Parada b) {
+        return distancia(a.getLatitud(), a.getLongitud(), b.getLatitud(), b.getLongitud());
+    }
 }
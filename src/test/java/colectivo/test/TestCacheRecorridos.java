@@ -0,0 +1,137 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.controlador.CoordinadorApp;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.CacheRecorridos;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.SistemaColectivo;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+import colectivo.util.Util;
+
+class TestCacheRecorridos {
+
+	private Map<Integer, Parada> paradas;
+	private Object datos;
+
+	private CacheRecorridos cache;
+	private List<LocalTime> calculadas;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		datos = new Object();
+		cache = new CacheRecorridos(2, 60, 0);
+		calculadas = new ArrayList<>();
+	}
+
+	private List<List<Recorrido>> consultar(Object datos, int origen, int destino, LocalTime hora) {
+		return cache.obtener(datos, paradas.get(origen), paradas.get(destino), 1, hora, h -> {
+			calculadas.add(h);
+			return new ArrayList<>();
+		});
+	}
+
+	@Test
+	void testIntervalo() {
+		List<List<Recorrido>> primero = consultar(datos, 31, 66, LocalTime.of(10, 35, 20));
+		List<List<Recorrido>> segundo = consultar(datos, 31, 66, LocalTime.of(10, 36));
+		consultar(datos, 31, 66, LocalTime.of(10, 36, 1));
+
+		// 10:35:20 y 10:36 comparten el intervalo, calculado con la hora redondeada hacia arriba
+		assertSame(primero, segundo);
+		assertEquals(List.of(LocalTime.of(10, 36), LocalTime.of(10, 37)), calculadas);
+		assertEquals(1, cache.getAciertos());
+		assertEquals(2, cache.getFallos());
+	}
+
+	@Test
+	void testDescartaLaMenosUsada() {
+		LocalTime hora = LocalTime.of(10, 35);
+		consultar(datos, 31, 66, hora);
+		consultar(datos, 44, 47, hora);
+		consultar(datos, 31, 66, hora);
+		consultar(datos, 88, 13, hora);
+
+		assertEquals(2, cache.tamanio());
+		consultar(datos, 31, 66, hora);
+		consultar(datos, 44, 47, hora);
+		assertEquals(2, cache.getAciertos());
+		assertEquals(4, cache.getFallos());
+	}
+
+	@Test
+	void testDatosNuevos() {
+		LocalTime hora = LocalTime.of(10, 35);
+		consultar(datos, 31, 66, hora);
+		consultar(new Object(), 31, 66, hora);
+		consultar(datos, 31, 66, hora);
+
+		assertEquals(0, cache.getAciertos());
+		assertEquals(3, cache.getFallos());
+		assertEquals(2, cache.getInvalidaciones());
+	}
+
+	@Test
+	void testRecargarDatosRehaceLosMotores() throws Exception {
+		Map<String, Tramo> tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+		Map<String, Linea> lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+		SistemaColectivo sistema = new SistemaColectivo(lineas, paradas, tramos);
+
+		CoordinadorApp coordinador = new CoordinadorApp();
+		coordinador.setSistema(sistema);
+		Calculo calculo = new Calculo();
+		calculo.setMotor(new CalculoCSA(sistema.getRed()));
+		coordinador.setCalculo(calculo);
+		coordinador.setCache(new CacheRecorridos(10, 60, 0));
+
+		LocalTime hora = LocalTime.of(10, 35);
+		List<List<Recorrido>> antes = coordinador.calcularRecorrido(paradas.get(44), paradas.get(47), 1, hora);
+		assertEquals(lineas.get("L5R"), antes.get(0).get(0).getLinea());
+
+		// Otra red con las mismas paradas, unidas solo por una línea nueva
+		Parada p44 = new Parada(44, "Cuarenta y cuatro", -42.770, -65.040);
+		Parada p47 = new Parada(47, "Cuarenta y siete", -42.771, -65.041);
+		Linea nueva = new Linea("N", "Nueva");
+		nueva.agregarParadas(List.of(p44, p47));
+		nueva.agregarFrecuencia(1, LocalTime.of(11, 0));
+		Tramo tramo = new Tramo(p44, p47, 240, Constantes.COLECTIVO);
+		Map<Integer, Parada> paradasNuevas = new HashMap<>(Map.of(44, p44, 47, p47));
+		Map<String, Tramo> tramosNuevos = new HashMap<>(Map.of(Util.claveTramo(p44, p47), tramo));
+		coordinador.setSistema(new SistemaColectivo(new HashMap<>(Map.of("N", nueva)), paradasNuevas, tramosNuevos));
+
+		// El cálculo se arma de nuevo sobre la red cargada, con el mismo tipo de motor
+		assertNotSame(calculo, coordinador.getCalculo());
+		assertTrue(coordinador.getCalculo().getMotor() instanceof CalculoCSA);
+		assertEquals(1, coordinador.getCache().getInvalidaciones());
+
+		List<List<Recorrido>> despues = coordinador.calcularRecorrido(p44, p47, 1, hora);
+		assertEquals(1, despues.size());
+		assertSame(nueva, despues.get(0).get(0).getLinea());
+		assertEquals(LocalTime.of(11, 0), despues.get(0).get(0).getHoraSalida());
+		assertEquals(240, despues.get(0).get(0).getDuracion());
+	}
+}
@@ -0,0 +1,111 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoAEstrella;
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestCalculoAEstrella {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private RedCompilada red;
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		red = new RedCompilada(lineas, paradas, tramos);
+		calculo = new Calculo();
+		calculo.setMotor(new CalculoAEstrella(red));
+	}
+
+	private static int llegada(List<Recorrido> viaje) {
+		Recorrido ultimo = viaje.get(viaje.size() - 1);
+		return ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion();
+	}
+
+	@Test
+	void testConCaminata() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(1, recorridos.size());
+		List<Recorrido> viaje = recorridos.get(0);
+		assertEquals(3, viaje.size());
+		assertEquals(lineas.get("L2R"), viaje.get(0).getLinea());
+		assertNull(viaje.get(1).getLinea());
+		assertEquals(lineas.get("L6I"), viaje.get(2).getLinea());
+		assertEquals(LocalTime.of(11, 12).toSecondOfDay(), llegada(viaje));
+	}
+
+	@Test
+	void testMismaLlegadaQueCSA() {
+		Calculo csa = new Calculo();
+		csa.setMotor(new CalculoCSA(red));
+
+		int[][] pares = { { 31, 66 }, { 66, 31 }, { 88, 13 }, { 44, 47 } };
+		for (int[] par : pares) {
+			List<List<Recorrido>> esperado = csa.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]),
+					diaSemana, horaLlegaParada, tramos);
+			List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]),
+					diaSemana, horaLlegaParada, tramos);
+
+			assertTrue(!esperado.isEmpty() && !recorridos.isEmpty());
+			assertEquals(llegada(esperado.get(0)), llegada(recorridos.get(0)));
+		}
+	}
+
+	@Test
+	void testConsultasSeguidasEnElMismoHilo() {
+		// El estado de la búsqueda se reutiliza entre consultas: las anteriores no deben influir
+		List<List<Recorrido>> primera = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+		calculo.calcularRecorrido(paradas.get(88), paradas.get(13), 3, LocalTime.of(7, 0), tramos);
+		calculo.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana, LocalTime.of(18, 20), tramos);
+		List<List<Recorrido>> segunda = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(primera.size(), segunda.size());
+		assertEquals(primera.get(0).size(), segunda.get(0).size());
+		for (int i = 0; i < primera.get(0).size(); i++) {
+			assertEquals(primera.get(0).get(i).getLinea(), segunda.get(0).get(i).getLinea());
+			assertEquals(primera.get(0).get(i).getHoraSalida(), segunda.get(0).get(i).getHoraSalida());
+			assertEquals(primera.get(0).get(i).getParadas(), segunda.get(0).get(i).getParadas());
+		}
+	}
+}
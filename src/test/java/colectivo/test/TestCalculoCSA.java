@@ -0,0 +1,199 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestCalculoCSA {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private RedCompilada red;
+	private CalculoCSA csa;
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		red = new RedCompilada(lineas, paradas, tramos);
+		csa = new CalculoCSA(red);
+		calculo = new Calculo();
+		calculo.setMotor(csa);
+	}
+
+	private List<Parada> paradas(int... codigos) {
+		return Arrays.stream(codigos).mapToObj(paradas::get).toList();
+	}
+
+	private static int llegada(List<Recorrido> viaje) {
+		Recorrido ultimo = viaje.get(viaje.size() - 1);
+		return ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion();
+	}
+
+	@Test
+	void testDirecto() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(44), paradas.get(47), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(1, recorridos.size());
+		assertEquals(1, recorridos.get(0).size());
+
+		Recorrido recorrido = recorridos.get(0).get(0);
+		assertEquals(lineas.get("L5R"), recorrido.getLinea());
+		assertIterableEquals(paradas(44, 43, 47), recorrido.getParadas());
+		assertEquals(LocalTime.of(10, 47, 30), recorrido.getHoraSalida());
+		assertEquals(180, recorrido.getDuracion());
+	}
+
+	@Test
+	void testConexion() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(88), paradas.get(13), diaSemana,
+				horaLlegaParada, tramos);
+
+		// Llega a la misma hora que el viaje de RAPTOR con dos colectivos, pero CSA no
+		// minimiza los trasbordos: baja del L4R apenas otra conexión mejora la llegada
+		assertEquals(1, recorridos.size());
+		assertEquals(3, recorridos.get(0).size());
+
+		Recorrido recorrido1 = recorridos.get(0).get(0);
+		Recorrido recorrido2 = recorridos.get(0).get(1);
+		Recorrido recorrido3 = recorridos.get(0).get(2);
+
+		assertEquals(lineas.get("L4R"), recorrido1.getLinea());
+		assertIterableEquals(paradas(88, 63, 65, 64, 77, 25), recorrido1.getParadas());
+		assertEquals(LocalTime.of(10, 36), recorrido1.getHoraSalida());
+		assertEquals(600, recorrido1.getDuracion());
+
+		assertEquals(lineas.get("L2R"), recorrido2.getLinea());
+		assertIterableEquals(paradas(25, 24), recorrido2.getParadas());
+
+		assertEquals(lineas.get("L5R"), recorrido3.getLinea());
+		assertIterableEquals(paradas(24, 5, 54, 28, 101, 18, 78, 13), recorrido3.getParadas());
+		assertEquals(LocalTime.of(11, 6), recorrido3.getHoraSalida().plusSeconds(recorrido3.getDuracion()));
+	}
+
+	@Test
+	void testConexionCaminando() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(1), paradas.get(2), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(1, recorridos.size());
+		assertEquals(3, recorridos.get(0).size());
+
+		Recorrido recorrido1 = recorridos.get(0).get(0);
+		Recorrido recorrido2 = recorridos.get(0).get(1);
+		Recorrido recorrido3 = recorridos.get(0).get(2);
+
+		assertEquals(lineas.get("L4I"), recorrido1.getLinea());
+		assertIterableEquals(paradas(1, 6, 75), recorrido1.getParadas());
+		assertEquals(LocalTime.of(10, 38), recorrido1.getHoraSalida());
+		assertEquals(120, recorrido1.getDuracion());
+
+		assertNull(recorrido2.getLinea()); // Caminando
+		assertIterableEquals(paradas(75, 24), recorrido2.getParadas());
+		assertEquals(LocalTime.of(10, 40), recorrido2.getHoraSalida());
+		assertEquals(120, recorrido2.getDuracion());
+
+		assertEquals(lineas.get("L2R"), recorrido3.getLinea());
+		assertIterableEquals(paradas(24, 5, 54, 2), recorrido3.getParadas());
+		assertEquals(LocalTime.of(10, 47), recorrido3.getHoraSalida());
+		assertEquals(180, recorrido3.getDuracion());
+	}
+
+	@Test
+	void testVariosTrasbordos() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana,
+				horaLlegaParada, tramos);
+
+		// Solo el viaje que llega primero, aunque use más colectivos
+		assertEquals(1, recorridos.size());
+		Recorrido ultimo = recorridos.get(0).get(recorridos.get(0).size() - 1);
+		assertEquals(lineas.get("L2I"), ultimo.getLinea());
+		assertEquals(LocalTime.of(11, 44, 30), ultimo.getHoraSalida().plusSeconds(ultimo.getDuracion()));
+	}
+
+	@Test
+	void testLlegadas() {
+		Parada origen = paradas.get(44);
+		Map<Parada, Integer> llegadas = csa.calcularLlegadas(origen, diaSemana, horaLlegaParada);
+
+		assertEquals(horaLlegaParada.toSecondOfDay(), (int) llegadas.get(origen));
+		assertEquals(LocalTime.of(10, 50, 30).toSecondOfDay(), (int) llegadas.get(paradas.get(47)));
+
+		// Cada llegada es la del viaje que llega primero a esa parada
+		for (Parada destino : paradas.values()) {
+			if (destino.equals(origen)) continue;
+			List<List<Recorrido>> recorridos = csa.calcularRecorrido(origen, destino, diaSemana, horaLlegaParada,
+					tramos);
+			if (recorridos.isEmpty()) {
+				assertFalse(llegadas.containsKey(destino));
+			} else {
+				assertEquals(llegada(recorridos.get(0)), (int) llegadas.get(destino));
+			}
+		}
+	}
+
+	@Test
+	void testLlegadasPorIndice() {
+		Parada origen = paradas.get(88);
+		Map<Parada, Integer> llegadas = csa.calcularLlegadas(origen, diaSemana, horaLlegaParada);
+
+		int n = red.cantidadParadas();
+		int[] porIndice = new int[n];
+		int[] colectivos = new int[n];
+		csa.calcularLlegadas(red.indice(origen), diaSemana, horaLlegaParada.toSecondOfDay(), porIndice, colectivos);
+
+		for (int i = 0; i < n; i++) {
+			Integer esperada = llegadas.get(red.getParada(i));
+			assertEquals(esperada == null ? -1 : (int) esperada, porIndice[i]);
+			if (esperada == null) assertEquals(0, colectivos[i]);
+		}
+		assertEquals(0, colectivos[red.indice(origen)]);
+		// Los colectivos del viaje que devuelve calcularRecorrido
+		assertEquals(3, colectivos[red.indice(paradas.get(13))]);
+	}
+
+	@Test
+	void testDiaInvalido() {
+		assertTrue(csa.calcularLlegadas(paradas.get(44), 0, horaLlegaParada).isEmpty());
+		assertTrue(csa.calcularLlegadas(paradas.get(44), 8, horaLlegaParada).isEmpty());
+		assertTrue(calculo.calcularRecorrido(paradas.get(44), paradas.get(47), 0, horaLlegaParada, tramos).isEmpty());
+	}
+}
@@ -0,0 +1,115 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoMultiCriterio;
+import colectivo.negocio.CalculoRaptor;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestCalculoMultiCriterio {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		calculo = new Calculo();
+		calculo.setMotor(new CalculoMultiCriterio(new RedCompilada(lineas, paradas, tramos)));
+	}
+
+	private static int llegada(List<Recorrido> viaje) {
+		Recorrido ultimo = viaje.get(viaje.size() - 1);
+		return ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion();
+	}
+
+	private static long colectivos(List<Recorrido> viaje) {
+		return viaje.stream().filter(r -> r.getLinea() != null).count();
+	}
+
+	private static int caminata(List<Recorrido> viaje) {
+		return viaje.stream().filter(r -> r.getLinea() == null).mapToInt(Recorrido::getDuracion).sum();
+	}
+
+	@Test
+	void testMenosTrasbordosOSinCaminar() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+
+		// Ambos llegan 11:12: uno con dos colectivos y una caminata, otro con tres colectivos sin caminar
+		assertEquals(2, recorridos.size());
+
+		List<Recorrido> conCaminata = recorridos.get(0);
+		assertEquals(3, conCaminata.size());
+		assertNull(conCaminata.get(1).getLinea());
+		assertEquals(120, caminata(conCaminata));
+
+		List<Recorrido> sinCaminata = recorridos.get(1);
+		assertEquals(3, sinCaminata.size());
+		assertEquals(lineas.get("L2R"), sinCaminata.get(0).getLinea());
+		assertEquals(lineas.get("L4R"), sinCaminata.get(1).getLinea());
+		assertEquals(lineas.get("L6I"), sinCaminata.get(2).getLinea());
+		assertEquals(0, caminata(sinCaminata));
+
+		assertEquals(LocalTime.of(11, 12).toSecondOfDay(), llegada(conCaminata));
+		assertEquals(LocalTime.of(11, 12).toSecondOfDay(), llegada(sinCaminata));
+	}
+
+	@Test
+	void testIncluyeElMasRapido() {
+		Calculo raptor = new Calculo();
+		raptor.setMotor(new CalculoRaptor(new RedCompilada(lineas, paradas, tramos)));
+
+		List<List<Recorrido>> rapidos = raptor.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana,
+				horaLlegaParada, tramos);
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertFalse(recorridos.isEmpty());
+		int masRapido = rapidos.stream().mapToInt(TestCalculoMultiCriterio::llegada).min().getAsInt();
+		assertEquals(masRapido, recorridos.stream().mapToInt(TestCalculoMultiCriterio::llegada).min().getAsInt());
+
+		// Ningún viaje devuelto es peor que otro en los tres criterios
+		for (List<Recorrido> a : recorridos) {
+			for (List<Recorrido> b : recorridos) {
+				if (a == b) continue;
+				boolean domina = llegada(a) <= llegada(b) && colectivos(a) <= colectivos(b) && caminata(a) <= caminata(b);
+				assertFalse(domina);
+			}
+		}
+	}
+}
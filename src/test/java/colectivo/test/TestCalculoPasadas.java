@@ -0,0 +1,201 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.util.Util;
+
+/**
+ * Viajes del algoritmo original sobre una red chica: cada tramo de colectivo se arma con
+ * {@code Calculo.Pasada} y se convierte en {@link Recorrido} solo al devolverlo.
+ */
+class TestCalculoPasadas {
+
+	private Parada p1, p2, p3, p4, p5, p6, p7, p8;
+
+	/** Línea 1 - 2 - 3. */
+	private Linea a;
+	/** Línea 3 - 4 - 5, que comparte la parada 3 con la A. */
+	private Linea b;
+	/** Línea 6 - 8. */
+	private Linea c;
+	/** Línea 7 - 8. */
+	private Linea d;
+
+	private Map<String, Tramo> tramos;
+
+	private final int diaSemana = 1; // lunes
+	private final LocalTime horaLlegaParada = LocalTime.of(9, 55);
+
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() {
+		p1 = new Parada(1, "Uno", -42.770, -65.040);
+		p2 = new Parada(2, "Dos", -42.771, -65.041);
+		p3 = new Parada(3, "Tres", -42.772, -65.042);
+		p4 = new Parada(4, "Cuatro", -42.773, -65.043);
+		p5 = new Parada(5, "Cinco", -42.774, -65.044);
+		p6 = new Parada(6, "Seis", -42.7721, -65.0421);
+		p7 = new Parada(7, "Siete", -42.7722, -65.0419);
+		p8 = new Parada(8, "Ocho", -42.775, -65.045);
+
+		a = linea("A", List.of(p1, p2, p3), LocalTime.of(10, 0));
+		b = linea("B", List.of(p3, p4, p5), LocalTime.of(10, 0), LocalTime.of(10, 20));
+		c = linea("C", List.of(p6, p8), LocalTime.of(10, 0), LocalTime.of(10, 30));
+		d = linea("D", List.of(p7, p8), LocalTime.of(10, 0), LocalTime.of(10, 30));
+
+		tramos = new HashMap<>();
+		agregar(new Tramo(p1, p2, 300, Constantes.COLECTIVO));
+		agregar(new Tramo(p2, p3, 300, Constantes.COLECTIVO));
+		agregar(new Tramo(p3, p4, 200, Constantes.COLECTIVO));
+		agregar(new Tramo(p4, p5, 200, Constantes.COLECTIVO));
+		agregar(new Tramo(p6, p8, 300, Constantes.COLECTIVO));
+		agregar(new Tramo(p7, p8, 300, Constantes.COLECTIVO));
+		// Desde la 3 se camina a la 6 (línea C) y a la 7 (línea D), que llegan las dos a la 8
+		agregar(new Tramo(p3, p6, 60, Constantes.CAMINANDO));
+		agregar(new Tramo(p3, p7, 90, Constantes.CAMINANDO));
+
+		calculo = new Calculo();
+	}
+
+	private Linea linea(String codigo, List<Parada> paradas, LocalTime... salidas) {
+		Linea linea = new Linea(codigo, "Línea " + codigo);
+		linea.agregarParadas(paradas);
+		for (LocalTime salida : salidas) linea.agregarFrecuencia(diaSemana, salida);
+		return linea;
+	}
+
+	private void agregar(Tramo tramo) {
+		tramos.put(Util.claveTramo(tramo.getInicio(), tramo.getFin()), tramo);
+	}
+
+	private void assertTramoEnA(Recorrido recorrido) {
+		assertSame(a, recorrido.getLinea());
+		assertIterableEquals(List.of(p1, p2, p3), recorrido.getParadas());
+		assertEquals(LocalTime.of(10, 0), recorrido.getHoraSalida());
+		assertEquals(600, recorrido.getDuracion());
+		// Las paradas del recorrido son una copia, no una vista de las de la línea
+		assertNotSame(a.getParadas(), recorrido.getParadas());
+	}
+
+	@Test
+	void testDirecto() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(p1, p3, diaSemana, horaLlegaParada, tramos);
+
+		assertEquals(1, recorridos.size());
+		assertEquals(1, recorridos.get(0).size());
+		assertTramoEnA(recorridos.get(0).get(0));
+
+		// Desde una parada intermedia se sube más tarde y se viaja menos
+		Recorrido desdeDos = calculo.calcularRecorrido(p2, p3, diaSemana, horaLlegaParada, tramos).get(0).get(0);
+		assertIterableEquals(List.of(p2, p3), desdeDos.getParadas());
+		assertEquals(LocalTime.of(10, 5), desdeDos.getHoraSalida());
+		assertEquals(300, desdeDos.getDuracion());
+	}
+
+	@Test
+	void testConexion() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(p1, p5, diaSemana, horaLlegaParada, tramos);
+
+		assertEquals(1, recorridos.size());
+		assertEquals(2, recorridos.get(0).size());
+
+		assertTramoEnA(recorridos.get(0).get(0));
+
+		// La A llega a la 3 a las 10:10: el B de las 10:00 ya pasó y se toma el de las 10:20
+		Recorrido recorrido2 = recorridos.get(0).get(1);
+		assertSame(b, recorrido2.getLinea());
+		assertIterableEquals(List.of(p3, p4, p5), recorrido2.getParadas());
+		assertEquals(LocalTime.of(10, 20), recorrido2.getHoraSalida());
+		assertEquals(400, recorrido2.getDuracion());
+	}
+
+	@Test
+	void testConexionCaminandoCompartePrimerTramo() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(p1, p8, diaSemana, horaLlegaParada, tramos);
+
+		// Una combinación por cada parada vecina de la 3
+		assertEquals(2, recorridos.size());
+		List<Recorrido> porSeis = recorridos.get(0).get(1).getParadas().contains(p6) ? recorridos.get(0) : recorridos.get(1);
+		List<Recorrido> porSiete = porSeis == recorridos.get(0) ? recorridos.get(1) : recorridos.get(0);
+		assertEquals(3, porSeis.size());
+		assertEquals(3, porSiete.size());
+
+		// Las dos combinaciones comparten el mismo primer tramo, armado una sola vez
+		assertSame(porSeis.get(0), porSiete.get(0));
+		assertTramoEnA(porSeis.get(0));
+
+		Recorrido caminata6 = porSeis.get(1);
+		assertNull(caminata6.getLinea());
+		assertIterableEquals(List.of(p3, p6), caminata6.getParadas());
+		assertEquals(LocalTime.of(10, 10), caminata6.getHoraSalida());
+		assertEquals(60, caminata6.getDuracion());
+
+		Recorrido enC = porSeis.get(2);
+		assertSame(c, enC.getLinea());
+		assertIterableEquals(List.of(p6, p8), enC.getParadas());
+		assertEquals(LocalTime.of(10, 30), enC.getHoraSalida());
+		assertEquals(300, enC.getDuracion());
+
+		Recorrido caminata7 = porSiete.get(1);
+		assertNull(caminata7.getLinea());
+		assertIterableEquals(List.of(p3, p7), caminata7.getParadas());
+		assertEquals(LocalTime.of(10, 10), caminata7.getHoraSalida());
+		assertEquals(90, caminata7.getDuracion());
+
+		Recorrido enD = porSiete.get(2);
+		assertSame(d, enD.getLinea());
+		assertIterableEquals(List.of(p7, p8), enD.getParadas());
+		assertEquals(LocalTime.of(10, 30), enD.getHoraSalida());
+		assertEquals(300, enD.getDuracion());
+	}
+
+	@Test
+	void testConexionCaminandoSinColectivoDesdeLaVecina() {
+		// Desde la 3 también se camina a la 9 y a la 10. En la 9 la línea E ya no sale pero la F sí;
+		// en la 10 solo pasa la G, que tampoco sale
+		Parada p9 = new Parada(9, "Nueve", -42.7723, -65.0422);
+		Parada p10 = new Parada(10, "Diez", -42.7724, -65.0418);
+		linea("E", List.of(p9, p8), LocalTime.of(8, 0));
+		Linea f = linea("F", List.of(p9, p8), LocalTime.of(10, 40));
+		linea("G", List.of(p10, p8), LocalTime.of(8, 0));
+		agregar(new Tramo(p9, p8, 300, Constantes.COLECTIVO));
+		agregar(new Tramo(p10, p8, 300, Constantes.COLECTIVO));
+		agregar(new Tramo(p3, p9, 30, Constantes.CAMINANDO));
+		agregar(new Tramo(p3, p10, 30, Constantes.CAMINANDO));
+
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(p1, p8, diaSemana, horaLlegaParada, tramos);
+
+		// Por la 6, por la 7 y por la 9 con la F; ningún viaje queda con un tramo sin colectivo
+		assertEquals(3, recorridos.size());
+		List<Recorrido> porNueve = null;
+		for (List<Recorrido> viaje : recorridos) {
+			assertEquals(3, viaje.size());
+			viaje.forEach(r -> assertNotNull(r));
+			if (viaje.get(1).getParadas().contains(p9)) porNueve = viaje;
+		}
+		assertNotNull(porNueve);
+		assertSame(f, porNueve.get(2).getLinea());
+		assertIterableEquals(List.of(p9, p8), porNueve.get(2).getParadas());
+		assertEquals(LocalTime.of(10, 40), porNueve.get(2).getHoraSalida());
+	}
+}
@@ -0,0 +1,86 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoPerfil;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestCalculoPerfil {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+
+		calculo = new Calculo();
+		calculo.setPerfil(new CalculoPerfil(new RedCompilada(lineas, paradas, tramos)));
+	}
+
+	@Test
+	void testDirectosEnLaFranja() {
+		List<List<Recorrido>> recorridos = calculo.calcularPerfil(paradas.get(44), paradas.get(47), diaSemana,
+				LocalTime.of(10, 30), LocalTime.of(11, 30));
+
+		// Todas las salidas directas de la franja, alternando L5R y L1I
+		assertEquals(5, recorridos.size());
+		List<LocalTime> salidas = recorridos.stream().map(v -> v.get(0).getHoraSalida()).toList();
+		assertIterableEquals(List.of(LocalTime.of(10, 47, 30), LocalTime.of(10, 50), LocalTime.of(11, 7, 30),
+				LocalTime.of(11, 12), LocalTime.of(11, 27, 30)), salidas);
+		assertEquals(lineas.get("L5R"), recorridos.get(0).get(0).getLinea());
+		assertEquals(lineas.get("L1I"), recorridos.get(1).get(0).getLinea());
+	}
+
+	@Test
+	void testConCaminata() {
+		List<List<Recorrido>> recorridos = calculo.calcularPerfil(paradas.get(31), paradas.get(66), diaSemana,
+				LocalTime.of(10, 0), LocalTime.of(11, 0));
+
+		assertEquals(3, recorridos.size());
+		for (List<Recorrido> viaje : recorridos) {
+			assertEquals(3, viaje.size());
+			assertEquals(lineas.get("L6I"), viaje.get(2).getLinea());
+		}
+		// Saliendo 10:39 se llega igual que en la consulta puntual de las 10:35
+		Recorrido ultimo = recorridos.get(1).get(2);
+		assertEquals(LocalTime.of(11, 12), ultimo.getHoraSalida().plusSeconds(ultimo.getDuracion()));
+	}
+
+	@Test
+	void testFranjaInvalida() {
+		assertTrue(calculo.calcularPerfil(paradas.get(44), paradas.get(47), diaSemana,
+				LocalTime.of(11, 0), LocalTime.of(10, 0)).isEmpty());
+	}
+}
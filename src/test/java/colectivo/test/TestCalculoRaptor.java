@@ -0,0 +1,160 @@
+package colectivo.test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoRaptor;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestCalculoRaptor {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		calculo = new Calculo();
+		calculo.setMotor(new CalculoRaptor(new RedCompilada(lineas, paradas, tramos)));
+	}
+
+	private List<Parada> paradas(int... codigos) {
+		return Arrays.stream(codigos).mapToObj(paradas::get).toList();
+	}
+
+	@Test
+	void testDirecto() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(44), paradas.get(47), diaSemana,
+				horaLlegaParada, tramos);
+
+		// Solo se devuelve el directo que llega primero
+		assertEquals(1, recorridos.size());
+		assertEquals(1, recorridos.get(0).size());
+
+		Recorrido recorrido = recorridos.get(0).get(0);
+		assertEquals(lineas.get("L5R"), recorrido.getLinea());
+		assertIterableEquals(paradas(44, 43, 47), recorrido.getParadas());
+		assertEquals(LocalTime.of(10, 47, 30), recorrido.getHoraSalida());
+		assertEquals(180, recorrido.getDuracion());
+	}
+
+	@Test
+	void testConexion() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(88), paradas.get(13), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(1, recorridos.size());
+		assertEquals(2, recorridos.get(0).size());
+
+		Recorrido recorrido1 = recorridos.get(0).get(0);
+		Recorrido recorrido2 = recorridos.get(0).get(1);
+
+		assertEquals(lineas.get("L4R"), recorrido1.getLinea());
+		assertIterableEquals(paradas(88, 63, 65, 64, 77, 25, 5), recorrido1.getParadas());
+		assertEquals(LocalTime.of(10, 36), recorrido1.getHoraSalida());
+		assertEquals(720, recorrido1.getDuracion());
+
+		assertEquals(lineas.get("L5R"), recorrido2.getLinea());
+		assertIterableEquals(paradas(5, 54, 28, 101, 18, 78, 13), recorrido2.getParadas());
+		assertEquals(LocalTime.of(10, 55), recorrido2.getHoraSalida());
+		assertEquals(660, recorrido2.getDuracion());
+	}
+
+	@Test
+	void testConexionCaminando() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(1, recorridos.size());
+		assertEquals(3, recorridos.get(0).size());
+
+		Recorrido recorrido1 = recorridos.get(0).get(0);
+		Recorrido recorrido2 = recorridos.get(0).get(1);
+		Recorrido recorrido3 = recorridos.get(0).get(2);
+
+		assertEquals(lineas.get("L2R"), recorrido1.getLinea());
+		assertIterableEquals(paradas(31, 8, 33, 20, 25, 24), recorrido1.getParadas());
+		assertEquals(LocalTime.of(10, 39), recorrido1.getHoraSalida());
+
+		assertNull(recorrido2.getLinea()); // Caminando
+		assertIterableEquals(paradas(24, 75), recorrido2.getParadas());
+		assertEquals(LocalTime.of(10, 47), recorrido2.getHoraSalida());
+		assertEquals(120, recorrido2.getDuracion());
+
+		assertEquals(lineas.get("L6I"), recorrido3.getLinea());
+		assertIterableEquals(paradas(75, 76, 38, 40, 66), recorrido3.getParadas());
+		assertEquals(LocalTime.of(11, 02), recorrido3.getHoraSalida());
+	}
+
+	@Test
+	void testVariosTrasbordos() {
+		// El algoritmo original no encuentra recorridos entre estas paradas
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana,
+				horaLlegaParada, tramos);
+
+		// Un viaje con 3 colectivos y otro más rápido con 4
+		assertEquals(2, recorridos.size());
+		assertEquals(3, recorridos.get(0).size());
+		assertEquals(4, recorridos.get(1).size());
+
+		Recorrido ultimo = recorridos.get(1).get(3);
+		assertEquals(lineas.get("L2I"), ultimo.getLinea());
+		assertEquals(LocalTime.of(11, 44, 30), ultimo.getHoraSalida().plusSeconds(ultimo.getDuracion()));
+	}
+
+	@Test
+	void testConsultasSeguidasEnElMismoHilo() {
+		// El estado de la búsqueda se reutiliza entre consultas: las anteriores no deben influir
+		List<List<Recorrido>> primera = calculo.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana,
+				horaLlegaParada, tramos);
+		calculo.calcularRecorrido(paradas.get(88), paradas.get(13), 3, LocalTime.of(7, 0), tramos);
+		calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana, LocalTime.of(18, 20), tramos);
+		List<List<Recorrido>> segunda = calculo.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(primera.size(), segunda.size());
+		for (int v = 0; v < primera.size(); v++) {
+			assertEquals(primera.get(v).size(), segunda.get(v).size());
+			for (int i = 0; i < primera.get(v).size(); i++) {
+				assertEquals(primera.get(v).get(i).getLinea(), segunda.get(v).get(i).getLinea());
+				assertEquals(primera.get(v).get(i).getHoraSalida(), segunda.get(v).get(i).getHoraSalida());
+				assertEquals(primera.get(v).get(i).getDuracion(), segunda.get(v).get(i).getDuracion());
+				assertEquals(primera.get(v).get(i).getParadas(), segunda.get(v).get(i).getParadas());
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoRaptorInverso;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestCalculoRaptorInverso {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+
+		calculo = new Calculo();
+		calculo.setInverso(new CalculoRaptorInverso(new RedCompilada(lineas, paradas, tramos)));
+	}
+
+	private List<Parada> paradas(int... codigos) {
+		return Arrays.stream(codigos).mapToObj(paradas::get).toList();
+	}
+
+	@Test
+	void testDirecto() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorridoLlegada(paradas.get(44), paradas.get(47),
+				diaSemana, LocalTime.of(11, 0));
+
+		// El último colectivo que llega antes de las 11:00 es el L1I de las 10:50
+		assertEquals(1, recorridos.size());
+		Recorrido recorrido = recorridos.get(0).get(0);
+		assertEquals(lineas.get("L1I"), recorrido.getLinea());
+		assertIterableEquals(paradas(44, 43, 47), recorrido.getParadas());
+		assertEquals(LocalTime.of(10, 50), recorrido.getHoraSalida());
+	}
+
+	@Test
+	void testConexionCaminando() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorridoLlegada(paradas.get(31), paradas.get(66),
+				diaSemana, LocalTime.of(11, 15));
+
+		assertEquals(1, recorridos.size());
+		List<Recorrido> viaje = recorridos.get(0);
+		assertEquals(3, viaje.size());
+		assertEquals(lineas.get("L2R"), viaje.get(0).getLinea());
+		assertEquals(LocalTime.of(10, 39), viaje.get(0).getHoraSalida());
+		assertNull(viaje.get(1).getLinea());
+		assertIterableEquals(paradas(24, 75), viaje.get(1).getParadas());
+		assertEquals(lineas.get("L6I"), viaje.get(2).getLinea());
+		assertTrue(!viaje.get(2).getHoraSalida().plusSeconds(viaje.get(2).getDuracion()).isAfter(LocalTime.of(11, 15)));
+	}
+}
@@ -0,0 +1,124 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.CalculoTripBased;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestCalculoTripBased {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private RedCompilada red;
+	private CalculoTripBased motor;
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		red = new RedCompilada(lineas, paradas, tramos);
+		motor = new CalculoTripBased(red);
+		calculo = new Calculo();
+		calculo.setMotor(motor);
+	}
+
+	private static int llegada(List<Recorrido> viaje) {
+		Recorrido ultimo = viaje.get(viaje.size() - 1);
+		return ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion();
+	}
+
+	private static int colectivos(List<Recorrido> viaje) {
+		return (int) viaje.stream().filter(r -> r.getLinea() != null).count();
+	}
+
+	@Test
+	void testTrasbordosReducidos() {
+		assertTrue(motor.getTrasbordosConservados() > 0);
+		assertTrue(motor.getTrasbordosConservados() < motor.getTrasbordosGenerados());
+	}
+
+	@Test
+	void testMismaLlegadaQueCSA() {
+		Calculo csa = new Calculo();
+		csa.setMotor(new CalculoCSA(red));
+
+		int[][] pares = { { 31, 66 }, { 66, 31 }, { 88, 13 }, { 44, 47 } };
+		for (int[] par : pares) {
+			List<List<Recorrido>> esperado = csa.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]),
+					diaSemana, horaLlegaParada, tramos);
+			List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]),
+					diaSemana, horaLlegaParada, tramos);
+
+			assertFalse(esperado.isEmpty() || recorridos.isEmpty());
+			// El último viaje es el que llega primero
+			assertEquals(llegada(esperado.get(0)), llegada(recorridos.get(recorridos.size() - 1)));
+		}
+	}
+
+	@Test
+	void testMasColectivosSoloSiLleganAntes() {
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(LocalTime.of(11, 12).toSecondOfDay(), llegada(recorridos.get(recorridos.size() - 1)));
+		for (int i = 1; i < recorridos.size(); i++) {
+			assertTrue(colectivos(recorridos.get(i)) > colectivos(recorridos.get(i - 1)));
+			assertTrue(llegada(recorridos.get(i)) < llegada(recorridos.get(i - 1)));
+		}
+	}
+
+	@Test
+	void testConsultasSeguidasEnElMismoHilo() {
+		// El estado de la búsqueda se reutiliza entre consultas: las anteriores no deben influir
+		List<List<Recorrido>> primera = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+		calculo.calcularRecorrido(paradas.get(88), paradas.get(13), 3, LocalTime.of(7, 0), tramos);
+		calculo.calcularRecorrido(paradas.get(66), paradas.get(31), diaSemana, LocalTime.of(18, 20), tramos);
+		List<List<Recorrido>> segunda = calculo.calcularRecorrido(paradas.get(31), paradas.get(66), diaSemana,
+				horaLlegaParada, tramos);
+
+		assertEquals(primera.size(), segunda.size());
+		for (int v = 0; v < primera.size(); v++) {
+			assertEquals(primera.get(v).size(), segunda.get(v).size());
+			for (int i = 0; i < primera.get(v).size(); i++) {
+				assertEquals(primera.get(v).get(i).getLinea(), segunda.get(v).get(i).getLinea());
+				assertEquals(primera.get(v).get(i).getHoraSalida(), segunda.get(v).get(i).getHoraSalida());
+				assertEquals(primera.get(v).get(i).getParadas(), segunda.get(v).get(i).getParadas());
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.controlador.CoordinadorApp;
+import colectivo.modelo.Consulta;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.ResultadoConsulta;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoRaptor;
+import colectivo.negocio.SistemaColectivo;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestConsultasLote {
+
+	private Map<Integer, Parada> paradas;
+
+	private CoordinadorApp coordinador;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		Map<String, Tramo> tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		Map<String, Linea> lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		SistemaColectivo sistema = new SistemaColectivo(lineas, paradas, tramos);
+		Calculo calculo = new Calculo();
+		calculo.setMotor(new CalculoRaptor(sistema.getRed()));
+
+		coordinador = new CoordinadorApp();
+		coordinador.setSistema(sistema);
+		coordinador.setCalculo(calculo);
+	}
+
+	private List<Consulta> consultas() {
+		List<Integer> codigos = new ArrayList<>(paradas.keySet());
+		List<Consulta> consultas = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			Parada origen = paradas.get(codigos.get(i * 7 % codigos.size()));
+			Parada destino = paradas.get(codigos.get((i * 13 + 5) % codigos.size()));
+			consultas.add(new Consulta(origen, destino, 1 + i % 7, LocalTime.of(6 + i % 15, i % 60)));
+		}
+		return consultas;
+	}
+
+	@Test
+	void testResultadosEnOrdenDeLasConsultas() {
+		List<Consulta> consultas = consultas();
+
+		List<ResultadoConsulta> resultados = coordinador.calcularRecorridos(consultas);
+
+		assertEquals(consultas.size(), resultados.size());
+		for (int i = 0; i < consultas.size(); i++) {
+			assertSame(consultas.get(i), resultados.get(i).getConsulta());
+			assertTrue(resultados.get(i).isExitosa());
+		}
+	}
+
+	@Test
+	void testErroresNoInterrumpenElLote() {
+		Consulta primera = new Consulta(paradas.get(44), paradas.get(47), 1, LocalTime.of(10, 35));
+		Consulta invalida = new Consulta(null, paradas.get(47), 1, LocalTime.of(10, 35));
+		Consulta ultima = new Consulta(paradas.get(88), paradas.get(13), 1, LocalTime.of(10, 35));
+
+		List<ResultadoConsulta> resultados = coordinador.calcularRecorridos(Arrays.asList(primera, null, invalida, ultima));
+
+		assertEquals(4, resultados.size());
+		assertTrue(resultados.get(0).isExitosa());
+		assertFalse(resultados.get(0).getRecorridos().isEmpty());
+
+		// Consulta nula
+		assertFalse(resultados.get(1).isExitosa());
+		assertNull(resultados.get(1).getConsulta());
+		assertNotNull(resultados.get(1).getError());
+
+		// Consulta que no pasa la validación del coordinador
+		assertFalse(resultados.get(2).isExitosa());
+		assertSame(invalida, resultados.get(2).getConsulta());
+		assertNotNull(resultados.get(2).getError());
+		assertTrue(resultados.get(2).getRecorridos().isEmpty());
+
+		assertTrue(resultados.get(3).isExitosa());
+		assertFalse(resultados.get(3).getRecorridos().isEmpty());
+	}
+
+	@Test
+	void testFinDeSemana() {
+		Consulta sabado = new Consulta(paradas.get(44), paradas.get(47), 6, LocalTime.of(10, 35));
+		Consulta domingo = new Consulta(paradas.get(44), paradas.get(47), 7, LocalTime.of(10, 35));
+		Consulta diaCero = new Consulta(paradas.get(44), paradas.get(47), 0, LocalTime.of(10, 35));
+
+		List<ResultadoConsulta> resultados = coordinador.calcularRecorridos(List.of(sabado, domingo, diaCero));
+
+		// Los días van de 1 (lunes) a 7 (domingo), como en los horarios
+		assertTrue(resultados.get(0).isExitosa());
+		assertTrue(resultados.get(1).isExitosa());
+		assertFalse(resultados.get(2).isExitosa());
+		assertNotNull(resultados.get(2).getError());
+	}
+
+	@Test
+	void testParaleloIgualASecuencial() {
+		List<Consulta> consultas = consultas();
+
+		List<ResultadoConsulta> resultados = coordinador.calcularRecorridos(consultas);
+
+		for (int i = 0; i < consultas.size(); i++) {
+			Consulta consulta = consultas.get(i);
+			List<List<Recorrido>> esperados = coordinador.calcularRecorrido(consulta.getOrigen(),
+					consulta.getDestino(), consulta.getDia(), consulta.getHora());
+			List<List<Recorrido>> obtenidos = resultados.get(i).getRecorridos();
+
+			assertEquals(esperados.size(), obtenidos.size(), consulta.toString());
+			for (int v = 0; v < esperados.size(); v++) {
+				assertEquals(esperados.get(v).size(), obtenidos.get(v).size(), consulta.toString());
+				for (int t = 0; t < esperados.get(v).size(); t++) {
+					Recorrido esperado = esperados.get(v).get(t);
+					Recorrido obtenido = obtenidos.get(v).get(t);
+					assertEquals(esperado.getLinea(), obtenido.getLinea());
+					assertEquals(esperado.getParadas(), obtenido.getParadas());
+					assertEquals(esperado.getHoraSalida(), obtenido.getHoraSalida());
+					assertEquals(esperado.getDuracion(), obtenido.getDuracion());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.GeneradorCaminatas;
+import colectivo.util.Util;
+
+class TestGeneradorCaminatas {
+
+	private List<Parada> paradas;
+
+	@BeforeEach
+	void setUp() {
+		// Paradas al azar en un área de unos 4 x 4 km alrededor de Puerto Madryn
+		Random azar = new Random(42);
+		paradas = new ArrayList<>();
+		for (int i = 1; i <= 400; i++) {
+			paradas.add(new Parada(i, "Parada " + i, -42.77 + azar.nextDouble() * 0.036,
+					-65.04 + azar.nextDouble() * 0.049));
+		}
+	}
+
+	@Test
+	void testIgualQueCompararTodosLosPares() {
+		double radio = 250;
+		Map<String, Tramo> tramos = new GeneradorCaminatas(radio, 1.2).generar(paradas, new HashMap<>());
+
+		int esperados = 0;
+		for (Parada a : paradas) {
+			for (Parada b : paradas) {
+				if (a.getCodigo() >= b.getCodigo()) continue;
+				double metros = Util.distancia(a, b);
+				Tramo ida = tramos.get(Util.claveTramo(a, b));
+				Tramo vuelta = tramos.get(Util.claveTramo(b, a));
+				if (metros <= radio) {
+					esperados += 2;
+					assertEquals(Constantes.CAMINANDO, ida.getTipo());
+					assertEquals(Constantes.CAMINANDO, vuelta.getTipo());
+					assertEquals((int) Math.ceil(metros / 1.2), ida.getTiempo());
+					assertEquals(ida.getTiempo(), vuelta.getTiempo());
+					assertSame(b, vuelta.getInicio());
+					assertSame(a, vuelta.getFin());
+					// Cada vecina figura una sola vez, aunque haya tramo en los dos sentidos
+					assertEquals(1, a.getParadaCaminando().stream().filter(p -> p == b).count());
+					assertEquals(1, b.getParadaCaminando().stream().filter(p -> p == a).count());
+				} else {
+					assertNull(ida);
+					assertNull(vuelta);
+				}
+			}
+		}
+		assertFalse(tramos.isEmpty());
+		assertEquals(esperados, tramos.size());
+	}
+
+	@Test
+	void testNoReemplazaTramosExistentes() {
+		Parada a = new Parada(1000, "A", -42.77, -65.04);
+		Parada b = new Parada(1001, "B", -42.7701, -65.0401);
+		Tramo colectivo = new Tramo(b, a, 30, Constantes.COLECTIVO);
+		Map<String, Tramo> existentes = new HashMap<>();
+		existentes.put(Util.claveTramo(b, a), colectivo);
+
+		Map<String, Tramo> tramos = new GeneradorCaminatas(100, 1.2).generar(List.of(a, b), existentes);
+
+		assertTrue(tramos.isEmpty());
+		assertSame(colectivo, existentes.get(Util.claveTramo(b, a)));
+	}
+
+	@Test
+	void testCalculoOriginalCaminaDeMayorAMenorCodigo() {
+		// La línea A baja en la parada 4 y la B sale de la 2, a unos 40 m: se camina de 4 a 2
+		Parada p1 = new Parada(1, "Parada 1", -42.760, -65.040);
+		Parada p2 = new Parada(2, "Parada 2", -42.7703, -65.0403);
+		Parada p4 = new Parada(4, "Parada 4", -42.770, -65.040);
+		Parada p5 = new Parada(5, "Parada 5", -42.780, -65.050);
+
+		Linea a = new Linea("A", "Línea A");
+		a.agregarParada(p1);
+		a.agregarParada(p4);
+		a.agregarFrecuencia(1, LocalTime.of(10, 0));
+		Linea b = new Linea("B", "Línea B");
+		b.agregarParada(p2);
+		b.agregarParada(p5);
+		b.agregarFrecuencia(1, LocalTime.of(10, 15));
+
+		Map<String, Tramo> tramos = new HashMap<>();
+		tramos.put(Util.claveTramo(p1, p4), new Tramo(p1, p4, 600, Constantes.COLECTIVO));
+		tramos.put(Util.claveTramo(p2, p5), new Tramo(p2, p5, 300, Constantes.COLECTIVO));
+		tramos.putAll(new GeneradorCaminatas(100, 1.2).generar(List.of(p1, p2, p4, p5), tramos));
+
+		Calculo calculo = new Calculo(Map.of(Constantes.LINEA, Map.of("A", a, "B", b)));
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(p1, p5, 1, LocalTime.of(9, 55), tramos);
+
+		assertEquals(1, recorridos.size());
+		List<Recorrido> viaje = recorridos.get(0);
+		assertEquals(3, viaje.size());
+		assertSame(a, viaje.get(0).getLinea());
+		assertNull(viaje.get(1).getLinea());
+		assertEquals(List.of(p4, p2), viaje.get(1).getParadas());
+		assertEquals(LocalTime.of(10, 10), viaje.get(1).getHoraSalida());
+		assertSame(b, viaje.get(2).getLinea());
+		assertEquals(LocalTime.of(10, 15), viaje.get(2).getHoraSalida());
+	}
+}
@@ -0,0 +1,74 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Parada;
+import colectivo.negocio.IndiceParadas;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.util.Util;
+
+class TestIndiceParadas {
+
+	private Map<Integer, Parada> paradas;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+	}
+
+	@Test
+	void testParadaMasCercana() {
+		IndiceParadas indice = new IndiceParadas(paradas.values());
+
+		assertEquals(paradas.size(), indice.cantidad());
+		for (Parada p : paradas.values()) {
+			List<Parada> cercanas = indice.buscarCercanas(p.getLatitud(), p.getLongitud(), 1, 10);
+			assertEquals(1, cercanas.size());
+			assertEquals(0, Util.distancia(p, cercanas.get(0)), 0.01);
+		}
+	}
+
+	@Test
+	void testIgualQueRecorrerTodas() {
+		Random azar = new Random(7);
+		List<Parada> lista = new ArrayList<>();
+		for (int i = 1; i <= 1000; i++) {
+			lista.add(new Parada(i, "Parada " + i, -42.77 + azar.nextDouble() * 0.05, -65.04 + azar.nextDouble() * 0.07));
+		}
+		IndiceParadas indice = new IndiceParadas(lista);
+
+		for (int q = 0; q < 200; q++) {
+			double latitud = -42.77 + azar.nextDouble() * 0.05;
+			double longitud = -65.04 + azar.nextDouble() * 0.07;
+			int cantidad = 1 + azar.nextInt(10);
+			double radio = 100 + azar.nextInt(400);
+
+			List<Double> esperadas = lista.stream()
+					.map(p -> Util.distancia(latitud, longitud, p.getLatitud(), p.getLongitud()))
+					.filter(d -> d <= radio)
+					.sorted(Comparator.naturalOrder())
+					.limit(cantidad)
+					.toList();
+			List<Parada> cercanas = indice.buscarCercanas(latitud, longitud, cantidad, radio);
+
+			assertEquals(esperadas.size(), cercanas.size());
+			for (int i = 0; i < cercanas.size(); i++) {
+				double d = Util.distancia(latitud, longitud, cercanas.get(i).getLatitud(), cercanas.get(i).getLongitud());
+				assertTrue(Math.abs(d - esperadas.get(i)) < 0.5);
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.Isocrona;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestIsocrona {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		CalculoCSA csa = new CalculoCSA(new RedCompilada(lineas, paradas, tramos));
+		calculo = new Calculo();
+		calculo.setMotor(csa);
+		calculo.setLlegadas(csa);
+	}
+
+	@Test
+	void testMismoTiempoQueCadaRecorrido() {
+		Isocrona isocrona = calculo.calcularIsocrona(paradas.get(31), diaSemana, horaLlegaParada);
+
+		assertEquals(0, isocrona.getTiempo(paradas.get(31)));
+		for (Parada destino : paradas.values()) {
+			if (destino.equals(paradas.get(31))) continue;
+			List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(31), destino, diaSemana,
+					horaLlegaParada, tramos);
+			if (recorridos.isEmpty()) {
+				assertEquals(-1, isocrona.getTiempo(destino));
+				continue;
+			}
+			Recorrido ultimo = recorridos.get(0).get(recorridos.get(0).size() - 1);
+			int llegada = ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion();
+			assertEquals(llegada - horaLlegaParada.toSecondOfDay(), isocrona.getTiempo(destino));
+		}
+	}
+
+	@Test
+	void testBandasYGeoJson() {
+		Isocrona isocrona = calculo.calcularIsocrona(paradas.get(31), diaSemana, horaLlegaParada);
+		Map<Integer, List<Parada>> bandas = isocrona.getBandas();
+
+		assertEquals(Isocrona.BANDAS_POR_DEFECTO, List.copyOf(bandas.keySet()));
+		assertTrue(bandas.get(10).contains(paradas.get(31)));
+		for (Map.Entry<Integer, List<Parada>> banda : bandas.entrySet()) {
+			for (Parada p : banda.getValue()) {
+				assertTrue(isocrona.getTiempo(p) <= banda.getKey() * 60);
+			}
+		}
+
+		String geoJson = isocrona.aGeoJson();
+		assertTrue(geoJson.startsWith("{\"type\":\"FeatureCollection\""));
+		assertEquals(Isocrona.BANDAS_POR_DEFECTO.size(), geoJson.split("\"type\":\"Feature\"", -1).length - 1);
+	}
+
+	@Test
+	void testSinMotor() {
+		assertNull(new Calculo().calcularIsocrona(paradas.get(31), diaSemana, horaLlegaParada));
+	}
+}
@@ -0,0 +1,195 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.util.Util;
+
+class TestLinea {
+
+	private Parada p1, p2, p3, p4;
+
+	/** Línea circular 1 - 2 - 3 - 1. */
+	private Linea circular;
+	/** Línea que vuelve a la parada 1 a mitad de recorrido: 1 - 2 - 1 - 3. */
+	private Linea ocho;
+
+	@BeforeEach
+	void setUp() {
+		p1 = new Parada(1, "Uno", -42.770, -65.040);
+		p2 = new Parada(2, "Dos", -42.771, -65.041);
+		p3 = new Parada(3, "Tres", -42.772, -65.042);
+		p4 = new Parada(4, "Cuatro", -42.773, -65.043);
+
+		circular = new Linea("C", "Circular");
+		circular.agregarParadas(List.of(p1, p2, p3, p1));
+		ocho = new Linea("O", "Ocho");
+		ocho.agregarParadas(List.of(p1, p2, p1, p3));
+	}
+
+	@Test
+	void testPosicionesEnLineaCircular() {
+		assertArrayEquals(new int[] { 0, 3 }, circular.getPosiciones(p1));
+		assertArrayEquals(new int[] { 1 }, circular.getPosiciones(p2));
+		assertArrayEquals(new int[] { 2 }, circular.getPosiciones(p3));
+		assertArrayEquals(new int[0], circular.getPosiciones(p4));
+
+		assertEquals(0, circular.getPosicion(p1));
+		assertEquals(-1, circular.getPosicion(p4));
+		assertEquals(circular.getParadas().indexOf(p3), circular.getPosicion(p3));
+
+		assertEquals(0, circular.getPosicionDesde(p1, 0));
+		assertEquals(3, circular.getPosicionDesde(p1, 1));
+		assertEquals(3, circular.getPosicionDesde(p1, 3));
+		assertEquals(-1, circular.getPosicionDesde(p1, 4));
+		assertEquals(-1, circular.getPosicionDesde(p4, 0));
+
+		assertTrue(circular.contieneParada(p1));
+		assertFalse(circular.contieneParada(p4));
+	}
+
+	@Test
+	void testPosicionesAlAgregarParadas() {
+		Linea linea = new Linea("L", "Linea");
+		linea.agregarParada(p2);
+		assertArrayEquals(new int[] { 0 }, linea.getPosiciones(p2));
+
+		linea.agregarParada(p3);
+		linea.agregarParada(p2);
+		assertArrayEquals(new int[] { 0, 2 }, linea.getPosiciones(p2));
+		assertTrue(p2.getLineas().contains(linea));
+		// La parada registra la línea una sola vez aunque pase dos veces
+		assertEquals(1, p2.getLineas().stream().filter(l -> l == linea).count());
+	}
+
+	@Test
+	void testPasaDespuesEnLineaCircular() {
+		assertTrue(circular.pasaDespues(p1, p2));
+		assertTrue(circular.pasaDespues(p2, p3));
+		// Después de la 2 y la 3 la circular vuelve a la 1
+		assertTrue(circular.pasaDespues(p2, p1));
+		assertTrue(circular.pasaDespues(p3, p1));
+		// La vuelta completa desde la 1 hasta la 1
+		assertTrue(circular.pasaDespues(p1, p1));
+
+		assertFalse(circular.pasaDespues(p3, p2));
+		assertFalse(circular.pasaDespues(p2, p2));
+		assertFalse(circular.pasaDespues(p1, p4));
+		assertFalse(circular.pasaDespues(p4, p1));
+	}
+
+	@Test
+	void testPasaDespuesConParadaRepetidaAMitadDeRecorrido() {
+		assertTrue(ocho.pasaDespues(p2, p1));
+		assertTrue(ocho.pasaDespues(p1, p3));
+		assertTrue(ocho.pasaDespues(p2, p3));
+
+		assertFalse(ocho.pasaDespues(p3, p1));
+		assertFalse(ocho.pasaDespues(p3, p2));
+	}
+
+	@Test
+	void testSalidasDesordenadas() {
+		Linea linea = new Linea("L", "Linea");
+		linea.agregarFrecuencia(1, LocalTime.of(12, 0));
+		linea.agregarFrecuencia(1, LocalTime.of(8, 0));
+		linea.agregarFrecuencia(1, LocalTime.of(10, 0));
+
+		int ocho = LocalTime.of(8, 0).toSecondOfDay();
+		int diez = LocalTime.of(10, 0).toSecondOfDay();
+		int doce = LocalTime.of(12, 0).toSecondOfDay();
+		assertArrayEquals(new int[] { ocho, diez, doce }, linea.getSalidas(1));
+
+		assertEquals(0, linea.buscarSalida(1, 0));
+		assertEquals(1, linea.buscarSalida(1, ocho + 1));
+		// Una salida justo a la hora pedida cuenta
+		assertEquals(1, linea.buscarSalida(1, diez));
+		assertEquals(-1, linea.buscarSalida(1, doce + 1));
+
+		assertEquals(diez, linea.getProximaSalida(1, LocalTime.of(9, 0).toSecondOfDay()));
+		assertEquals(-1, linea.getProximaSalida(1, doce + 1));
+
+		// Una salida nueva se tiene en cuenta aunque ya se hayan pedido las salidas
+		linea.agregarFrecuencia(1, LocalTime.of(9, 0));
+		assertEquals(LocalTime.of(9, 0).toSecondOfDay(), linea.getProximaSalida(1, ocho + 1));
+	}
+
+	@Test
+	void testSalidasDesordenadasDesdeMapa() {
+		Linea linea = new Linea("L", "Linea");
+		linea.agregarFrecuencias(Map.of(2, List.of(LocalTime.of(18, 30), LocalTime.of(6, 15), LocalTime.of(6, 0))));
+
+		assertEquals(List.of(LocalTime.of(6, 0), LocalTime.of(6, 15), LocalTime.of(18, 30)), linea.getFrecuencias(2));
+		assertEquals(LocalTime.of(6, 15).toSecondOfDay(), linea.getProximaSalida(2, LocalTime.of(6, 1).toSecondOfDay()));
+	}
+
+	@Test
+	void testSalidasEnLosLimitesDelDia() {
+		Linea linea = new Linea("L", "Linea");
+		linea.agregarFrecuencia(1, LocalTime.MAX.withNano(0));
+		linea.agregarFrecuencia(1, LocalTime.MIDNIGHT);
+		linea.agregarFrecuencia(7, LocalTime.of(7, 0));
+
+		int ultimoSegundo = LocalTime.MAX.withNano(0).toSecondOfDay();
+		assertEquals(0, linea.getProximaSalida(1, 0));
+		assertEquals(ultimoSegundo, linea.getProximaSalida(1, 1));
+		assertEquals(ultimoSegundo, linea.getProximaSalida(1, ultimoSegundo));
+		// No se pasa a las salidas del día siguiente
+		assertEquals(-1, linea.getProximaSalida(1, ultimoSegundo + 1));
+
+		// Cada día tiene sus salidas, incluido el domingo (7)
+		assertEquals(LocalTime.of(7, 0).toSecondOfDay(), linea.getProximaSalida(7, 0));
+		assertEquals(-1, linea.getProximaSalida(2, 0));
+
+		// Días fuera de rango: sin salidas
+		assertEquals(0, linea.getSalidas(8).length);
+		assertEquals(0, linea.getSalidas(-1).length);
+		assertEquals(-1, linea.buscarSalida(8, 0));
+		assertEquals(-1, linea.getProximaSalida(-1, 0));
+	}
+
+	private static Map<String, Tramo> tramos(Tramo... tramos) {
+		Map<String, Tramo> mapa = new HashMap<>();
+		for (Tramo t : tramos) mapa.put(Util.claveTramo(t.getInicio(), t.getFin()), t);
+		return mapa;
+	}
+
+	@Test
+	void testTiemposAcumuladosSegunLosTramos() {
+		Linea linea = new Linea("L", "Linea");
+		linea.agregarParadas(List.of(p1, p2, p3));
+		Map<String, Tramo> lentos = tramos(new Tramo(p1, p2, 300, Constantes.COLECTIVO),
+				new Tramo(p2, p3, 200, Constantes.COLECTIVO));
+		Map<String, Tramo> rapidos = tramos(new Tramo(p1, p2, 120, Constantes.COLECTIVO),
+				new Tramo(p2, p3, 60, Constantes.COLECTIVO));
+
+		int[] conLentos = linea.getTiemposAcumulados(lentos);
+		assertArrayEquals(new int[] { 0, 300, 500 }, conLentos);
+		// Con el mismo mapa se reutiliza el arreglo calculado
+		assertSame(conLentos, linea.getTiemposAcumulados(lentos));
+
+		// Con otro mapa se calculan de nuevo, aunque ya se hayan pedido
+		assertArrayEquals(new int[] { 0, 120, 180 }, linea.getTiemposAcumulados(rapidos));
+		assertArrayEquals(new int[] { 0, 300, 500 }, linea.getTiemposAcumulados(lentos));
+
+		// Si cambian las paradas también se calculan de nuevo: falta el tramo 3-4
+		linea.agregarParada(p4);
+		assertNull(linea.getTiemposAcumulados(lentos));
+	}
+}
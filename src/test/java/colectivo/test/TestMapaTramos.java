@@ -0,0 +1,204 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.util.MapaTramos;
+import colectivo.util.Util;
+
+class TestMapaTramos {
+
+	private final Map<Integer, Parada> paradas = new HashMap<>();
+
+	private Parada parada(int codigo) {
+		return paradas.computeIfAbsent(codigo, c -> new Parada(c, "Parada " + c, -42.77, -65.04));
+	}
+
+	private Tramo tramo(int inicio, int fin) {
+		return new Tramo(parada(inicio), parada(fin), inicio + fin, Constantes.COLECTIVO);
+	}
+
+	/** Tramos entre paradas al azar, sin repetir el par. */
+	private List<Tramo> tramos(int cantidad, long semilla) {
+		Random azar = new Random(semilla);
+		Set<String> claves = new HashSet<>();
+		List<Tramo> tramos = new ArrayList<>();
+		while (tramos.size() < cantidad) {
+			Tramo t = tramo(1 + azar.nextInt(500), 1 + azar.nextInt(500));
+			if (claves.add(Util.claveTramo(t.getInicio(), t.getFin()))) tramos.add(t);
+		}
+		return tramos;
+	}
+
+	@Test
+	void testPutYGetConClavesDeTexto() {
+		MapaTramos mapa = new MapaTramos();
+		Tramo ida = tramo(12, 34);
+		Tramo vuelta = tramo(34, 12);
+
+		assertNull(mapa.put("12-34", ida));
+		assertNull(mapa.put("34-12", vuelta));
+
+		assertEquals(2, mapa.size());
+		assertSame(ida, mapa.get("12-34"));
+		assertSame(vuelta, mapa.get("34-12"));
+		assertSame(ida, mapa.get(parada(12), parada(34)));
+		assertSame(ida, MapaTramos.buscar(mapa, parada(12), parada(34)));
+		assertTrue(mapa.containsKey("34-12"));
+
+		// Reemplazar devuelve el anterior y no cambia el tamaño
+		Tramo otro = tramo(12, 34);
+		assertSame(ida, mapa.put("12-34", otro));
+		assertSame(otro, mapa.get("12-34"));
+		assertEquals(2, mapa.size());
+		assertTrue(mapa.containsKey("12-34"));
+		assertTrue(mapa.containsValue(otro));
+	}
+
+	@Test
+	void testClavesInvalidas() {
+		MapaTramos mapa = new MapaTramos();
+		mapa.agregar(tramo(1, 2));
+
+		assertNull(mapa.get("1"));
+		assertNull(mapa.get("a-b"));
+		assertNull(mapa.get(12));
+		assertNull(mapa.get("2-1"));
+		assertFalse(mapa.containsKey("1-2-3"));
+		assertNull(mapa.remove("x"));
+		assertThrows(IllegalArgumentException.class, () -> mapa.put("uno-dos", tramo(1, 2)));
+		assertThrows(IllegalArgumentException.class, () -> mapa.put("1-2", null));
+		assertEquals(1, mapa.size());
+	}
+
+	@Test
+	void testColisionesYCrecimiento() {
+		// Empieza con 16 posiciones: con cientos de tramos hay colisiones y la tabla crece varias veces
+		MapaTramos mapa = new MapaTramos();
+		Map<String, Tramo> esperado = new HashMap<>();
+		for (Tramo t : tramos(3000, 1)) {
+			String clave = Util.claveTramo(t.getInicio(), t.getFin());
+			assertNull(mapa.put(clave, t));
+			esperado.put(clave, t);
+			assertSame(t, mapa.get(clave));
+		}
+
+		assertEquals(esperado.size(), mapa.size());
+		for (Map.Entry<String, Tramo> e : esperado.entrySet()) {
+			assertSame(e.getValue(), mapa.get(e.getKey()));
+		}
+		// La vista Map tiene las mismas entradas, con las claves "inicio-fin"
+		assertEquals(esperado, new HashMap<>(mapa));
+		assertEquals(esperado, mapa);
+	}
+
+	@Test
+	void testRemove() {
+		MapaTramos mapa = new MapaTramos();
+		List<Tramo> tramos = tramos(2000, 2);
+		for (Tramo t : tramos) mapa.agregar(t);
+
+		for (int i = 0; i < tramos.size(); i += 3) {
+			Tramo t = tramos.get(i);
+			assertSame(t, mapa.remove(Util.claveTramo(t.getInicio(), t.getFin())));
+		}
+		assertNull(mapa.remove(Util.claveTramo(tramos.get(0).getInicio(), tramos.get(0).getFin())));
+
+		// Los que quedan se siguen encontrando aunque estuvieran en el mismo grupo que un borrado
+		for (int i = 0; i < tramos.size(); i++) {
+			Tramo t = tramos.get(i);
+			if (i % 3 == 0) assertNull(mapa.get(t.getInicio(), t.getFin()));
+			else assertSame(t, mapa.get(t.getInicio(), t.getFin()));
+		}
+		assertEquals(tramos.size() - (tramos.size() + 2) / 3, mapa.size());
+
+		// Se puede volver a agregar lo borrado
+		mapa.agregar(tramos.get(0));
+		assertSame(tramos.get(0), mapa.get(tramos.get(0).getInicio(), tramos.get(0).getFin()));
+	}
+
+	@Test
+	void testBorrarDesdeLasVistas() {
+		MapaTramos mapa = new MapaTramos();
+		List<Tramo> tramos = tramos(500, 3);
+		for (Tramo t : tramos) mapa.agregar(t);
+
+		Tramo primero = tramos.get(0);
+		assertTrue(mapa.keySet().remove(Util.claveTramo(primero.getInicio(), primero.getFin())));
+		assertFalse(mapa.containsKey(Util.claveTramo(primero.getInicio(), primero.getFin())));
+
+		assertTrue(mapa.values().removeIf(t -> t.getInicio().getCodigo() < 250));
+		for (Tramo t : tramos) {
+			boolean queda = t != primero && t.getInicio().getCodigo() >= 250;
+			assertEquals(queda, mapa.get(t.getInicio(), t.getFin()) == t);
+		}
+		assertEquals(tramos.stream().filter(t -> t != primero && t.getInicio().getCodigo() >= 250).count(),
+				mapa.size());
+
+		mapa.clear();
+		assertTrue(mapa.isEmpty());
+		assertFalse(mapa.entrySet().iterator().hasNext());
+		assertNull(mapa.get(tramos.get(1).getInicio(), tramos.get(1).getFin()));
+	}
+
+	@Test
+	void testIteratorRemoveRecorreCadaTramoUnaVez() {
+		// Tablas chicas y llenas: los grupos dan la vuelta a la tabla y los borrados corren tramos
+		// hacia posiciones que el iterador ya pasó o que todavía no recorrió
+		for (int cantidad = 1; cantidad <= 200; cantidad++) {
+			MapaTramos mapa = new MapaTramos();
+			for (Tramo t : tramos(cantidad, cantidad)) mapa.agregar(t);
+
+			Set<String> vistas = new HashSet<>();
+			int borradas = 0;
+			Iterator<Map.Entry<String, Tramo>> it = mapa.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, Tramo> e = it.next();
+				assertTrue(vistas.add(e.getKey()), "Tramo repetido: " + e.getKey());
+				if (e.getValue().getFin().getCodigo() % 2 == 0) {
+					it.remove();
+					borradas++;
+				}
+			}
+
+			assertEquals(cantidad, vistas.size());
+			assertEquals(cantidad - borradas, mapa.size());
+			for (String clave : vistas) {
+				Tramo t = mapa.get(clave);
+				if (t != null) assertEquals(1, t.getFin().getCodigo() % 2);
+			}
+			assertEquals(cantidad - borradas, mapa.entrySet().stream().count());
+		}
+	}
+
+	@Test
+	void testIteratorRemoveSinNext() {
+		MapaTramos mapa = new MapaTramos();
+		mapa.agregar(tramo(1, 2));
+		Iterator<String> it = mapa.keySet().iterator();
+
+		assertThrows(IllegalStateException.class, it::remove);
+		it.next();
+		it.remove();
+		assertThrows(IllegalStateException.class, it::remove);
+		assertTrue(mapa.isEmpty());
+	}
+}
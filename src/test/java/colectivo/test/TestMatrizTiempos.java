@@ -0,0 +1,101 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.CalculoCSA;
+import colectivo.negocio.MatrizTiempos;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestMatrizTiempos {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime hora;
+
+	private RedCompilada red;
+	private CalculoCSA csa;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		hora = LocalTime.of(10, 35);
+
+		red = new RedCompilada(lineas, paradas, tramos);
+		csa = new CalculoCSA(red);
+	}
+
+	@Test
+	void testIgualEnParaleloQueEnUnHilo() {
+		MatrizTiempos paralela = MatrizTiempos.calcular(red, csa, diaSemana, hora);
+		MatrizTiempos secuencial = MatrizTiempos.calcular(red, csa, diaSemana, hora, new ForkJoinPool(1));
+
+		for (Parada o : paradas.values()) {
+			assertEquals(0, paralela.tiempo(o, o));
+			for (Parada d : paradas.values()) {
+				assertEquals(secuencial.tiempo(o, d), paralela.tiempo(o, d));
+				assertEquals(secuencial.trasbordos(o, d), paralela.trasbordos(o, d));
+			}
+		}
+
+		// 31 -> 66: llega 11:12; CSA devuelve el viaje de tres colectivos
+		assertEquals(37 * 60, paralela.tiempo(paradas.get(31), paradas.get(66)));
+		assertEquals(2, paralela.trasbordos(paradas.get(31), paradas.get(66)));
+	}
+
+	@Test
+	void testArchivos() throws Exception {
+		MatrizTiempos matriz = MatrizTiempos.calcular(red, csa, diaSemana, hora);
+		int n = red.cantidadParadas();
+
+		Path csv = Files.createTempFile("matriz", ".csv");
+		Path bin = Files.createTempFile("matriz", ".bin");
+		try {
+			matriz.escribirCsv(csv);
+			List<String> filas = Files.readAllLines(csv);
+			assertEquals("origen,destino,segundos,trasbordos", filas.get(0));
+			assertTrue(filas.contains("31,66," + 37 * 60 + ",2"));
+
+			matriz.escribirBinario(bin);
+			try (DataInputStream in = new DataInputStream(Files.newInputStream(bin))) {
+				assertEquals(MatrizTiempos.FORMATO_BINARIO, in.readInt());
+				assertEquals(n, in.readInt());
+				assertEquals(diaSemana, in.readInt());
+				assertEquals(hora.toSecondOfDay(), in.readInt());
+			}
+			assertEquals(16 + 4L * n + 5L * n * n, Files.size(bin));
+		} finally {
+			Files.deleteIfExists(csv);
+			Files.deleteIfExists(bin);
+		}
+	}
+}
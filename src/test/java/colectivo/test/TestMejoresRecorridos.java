@@ -0,0 +1,108 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.negocio.MejoresRecorridos;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+
+class TestMejoresRecorridos {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private Calculo calculo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		calculo = new Calculo(Map.of(Constantes.LINEA, lineas));
+	}
+
+	private static int llegada(List<Recorrido> viaje) {
+		Recorrido ultimo = viaje.get(viaje.size() - 1);
+		return ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion();
+	}
+
+	private static List<Recorrido> viaje(Linea linea, LocalTime salida, int duracion) {
+		return List.of(new Recorrido(linea, List.of(), salida, duracion));
+	}
+
+	@Test
+	void testPrimeroElQueLlegaAntes() {
+		List<List<Recorrido>> todos = calculo.calcularRecorrido(paradas.get(1), paradas.get(5), diaSemana,
+				horaLlegaParada, tramos);
+		List<List<Recorrido>> mejores = calculo.calcularMejoresRecorridos(paradas.get(1), paradas.get(5), diaSemana,
+				horaLlegaParada, tramos, 2, Constantes.RANKING_LLEGADA);
+
+		assertTrue(todos.size() > 2);
+		assertEquals(2, mejores.size());
+		int primera = todos.stream().mapToInt(TestMejoresRecorridos::llegada).min().getAsInt();
+		assertEquals(primera, llegada(mejores.get(0)));
+		assertTrue(llegada(mejores.get(0)) <= llegada(mejores.get(1)));
+	}
+
+	@Test
+	void testAcotadoYOrdenado() {
+		Linea linea = lineas.values().iterator().next();
+		MejoresRecorridos mejores = new MejoresRecorridos(2, Constantes.RANKING_DURACION, horaLlegaParada.toSecondOfDay());
+
+		List<Recorrido> largo = viaje(linea, LocalTime.of(10, 40), 1800);
+		List<Recorrido> corto = viaje(linea, LocalTime.of(11, 0), 600);
+		List<Recorrido> medio = viaje(linea, LocalTime.of(10, 50), 1200);
+		assertTrue(mejores.agregar(largo));
+		assertTrue(mejores.agregar(corto));
+		assertTrue(mejores.agregar(medio));
+		assertFalse(mejores.agregar(viaje(linea, LocalTime.of(10, 45), 2400)));
+
+		assertEquals(2, mejores.tamanio());
+		assertSame(corto, mejores.getMejores().get(0));
+		assertSame(medio, mejores.getMejores().get(1));
+	}
+
+	@Test
+	void testDescartable() {
+		Linea linea = lineas.values().iterator().next();
+		MejoresRecorridos mejores = new MejoresRecorridos(1, Constantes.RANKING_LLEGADA, horaLlegaParada.toSecondOfDay());
+		int once = LocalTime.of(11, 0).toSecondOfDay();
+
+		// Mientras no está completo no se descarta nada
+		assertFalse(mejores.descartable(once, 0, 0));
+		mejores.agregar(viaje(linea, LocalTime.of(10, 50), 600));
+
+		assertTrue(mejores.descartable(once + 1, 0, 0));
+		assertFalse(mejores.descartable(once, 0, 0));
+		assertFalse(mejores.descartable(once - 60, 0, 3));
+	}
+}
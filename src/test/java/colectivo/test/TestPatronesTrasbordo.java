@@ -0,0 +1,246 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.configuracion.Factory;
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.CalculoPatrones;
+import colectivo.negocio.CalculoTripBased;
+import colectivo.negocio.PatronesTrasbordo;
+import colectivo.negocio.RedCompilada;
+import colectivo.persistencia.dao.LineaDAO;
+import colectivo.persistencia.dao.ParadaDAO;
+import colectivo.persistencia.dao.TramoDAO;
+import colectivo.util.Util;
+
+class TestPatronesTrasbordo {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private int diaSemana;
+	private LocalTime horaLlegaParada;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		paradas = ((ParadaDAO) Factory.getInstancia(Constantes.PARADA)).buscarTodos();
+
+		tramos = ((TramoDAO) Factory.getInstancia(Constantes.TRAMO)).buscarTodos();
+
+		lineas = ((LineaDAO) Factory.getInstancia(Constantes.LINEA)).buscarTodos();
+
+		diaSemana = 1; // lunes
+		horaLlegaParada = LocalTime.of(10, 35);
+
+		red = new RedCompilada(lineas, paradas, tramos);
+	}
+
+	/** Cantidad de colectivos y hora de llegada de cada viaje. */
+	private static String resumen(List<List<Recorrido>> viajes) {
+		StringBuilder sb = new StringBuilder();
+		for (List<Recorrido> viaje : viajes) {
+			Recorrido ultimo = viaje.get(viaje.size() - 1);
+			long colectivos = viaje.stream().filter(r -> r.getLinea() != null).count();
+			sb.append(colectivos).append('@')
+					.append(ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion()).append(' ');
+		}
+		return sb.toString();
+	}
+
+	@Test
+	void testMismosViajesQueTripBased() {
+		CalculoPatrones patrones = new CalculoPatrones(PatronesTrasbordo.calcular(red));
+		CalculoTripBased tripBased = new CalculoTripBased(red);
+
+		int[][] pares = { { 31, 66 }, { 66, 31 }, { 88, 13 }, { 44, 47 }, { 1, 5 } };
+		for (int[] par : pares) {
+			List<List<Recorrido>> esperado = tripBased.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]),
+					diaSemana, horaLlegaParada, tramos);
+			List<List<Recorrido>> recorridos = patrones.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]),
+					diaSemana, horaLlegaParada, tramos);
+
+			assertTrue(!recorridos.isEmpty());
+			assertEquals(resumen(esperado), resumen(recorridos));
+		}
+	}
+
+	@Test
+	void testGuardarYCargar() throws Exception {
+		Path archivo = Files.createTempFile("patrones", ".bin");
+		Files.delete(archivo);
+		try {
+			PatronesTrasbordo calculados = PatronesTrasbordo.generar(red, archivo);
+			PatronesTrasbordo cargados = PatronesTrasbordo.cargarOCalcular(red, archivo);
+
+			assertEquals(calculados.cantidadHorarios(), calculados.getHorariosCalculados());
+			assertEquals(0, cargados.getHorariosCalculados());
+			assertEquals(cargados.cantidadHorarios(), cargados.getHorariosReutilizados());
+			assertEquals(calculados.cantidadPatrones(), cargados.cantidadPatrones());
+
+			List<List<Recorrido>> antes = new CalculoPatrones(calculados).calcularRecorrido(paradas.get(31),
+					paradas.get(66), diaSemana, horaLlegaParada, tramos);
+			List<List<Recorrido>> despues = new CalculoPatrones(cargados).calcularRecorrido(paradas.get(31),
+					paradas.get(66), diaSemana, horaLlegaParada, tramos);
+			assertEquals(resumen(antes), resumen(despues));
+		} finally {
+			Files.deleteIfExists(archivo);
+		}
+	}
+
+	/** Red con una salida más el domingo en la línea L1I; las demás líneas no cambian. */
+	private RedCompilada redConCambioElDomingo() {
+		Linea original = lineas.get("L1I");
+		Linea cambiada = new Linea(original.getCodigo(), original.getNombre());
+		cambiada.agregarParadas(original.getParadas());
+		for (int dia = 1; dia <= RedCompilada.DIAS; dia++) {
+			for (LocalTime hora : original.getFrecuencias(dia)) cambiada.agregarFrecuencia(dia, hora);
+		}
+		cambiada.agregarFrecuencia(7, LocalTime.of(23, 59));
+		Map<String, Linea> otras = new HashMap<>(lineas);
+		otras.put(cambiada.getCodigo(), cambiada);
+		return new RedCompilada(otras, paradas, tramos);
+	}
+
+	@Test
+	void testCargarNoEscribeElArchivo() throws Exception {
+		Path archivo = Files.createTempFile("patrones", ".bin");
+		Files.delete(archivo);
+		try {
+			PatronesTrasbordo patrones = PatronesTrasbordo.cargarOCalcular(red, archivo);
+
+			assertEquals(patrones.cantidadHorarios(), patrones.getHorariosCalculados());
+			assertFalse(Files.exists(archivo));
+
+			PatronesTrasbordo.generar(red, archivo);
+			long modificado = Files.getLastModifiedTime(archivo).toMillis();
+			PatronesTrasbordo.cargarOCalcular(redConCambioElDomingo(), archivo);
+
+			assertEquals(modificado, Files.getLastModifiedTime(archivo).toMillis());
+		} finally {
+			Files.deleteIfExists(archivo);
+		}
+	}
+
+	@Test
+	void testGenerarConservaHorariosDeOtraRed() throws Exception {
+		Path archivo = Files.createTempFile("patrones", ".bin");
+		Files.delete(archivo);
+		try {
+			PatronesTrasbordo.generar(red, archivo);
+			PatronesTrasbordo cambiados = PatronesTrasbordo.generar(redConCambioElDomingo(), archivo);
+			assertEquals(1, cambiados.getHorariosCalculados());
+
+			// El domingo original sigue en el archivo junto al nuevo
+			PatronesTrasbordo originales = PatronesTrasbordo.cargarOCalcular(red, archivo);
+			PatronesTrasbordo otraVez = PatronesTrasbordo.cargarOCalcular(redConCambioElDomingo(), archivo);
+
+			assertEquals(0, originales.getHorariosCalculados());
+			assertEquals(0, otraVez.getHorariosCalculados());
+
+			List<List<Recorrido>> esperado = new CalculoPatrones(PatronesTrasbordo.calcular(red)).calcularRecorrido(
+					paradas.get(31), paradas.get(66), 7, horaLlegaParada, tramos);
+			List<List<Recorrido>> recorridos = new CalculoPatrones(originales).calcularRecorrido(paradas.get(31),
+					paradas.get(66), 7, horaLlegaParada, tramos);
+			assertEquals(resumen(esperado), resumen(recorridos));
+		} finally {
+			Files.deleteIfExists(archivo);
+		}
+	}
+
+	@Test
+	void testCambioDeHorarioDeUnaLinea() throws Exception {
+		Path archivo = Files.createTempFile("patrones", ".bin");
+		Files.delete(archivo);
+		try {
+			PatronesTrasbordo.generar(red, archivo);
+
+			PatronesTrasbordo patrones = PatronesTrasbordo.cargarOCalcular(redConCambioElDomingo(), archivo);
+
+			// Solo se recalcula el horario del domingo
+			assertEquals(1, patrones.getHorariosCalculados());
+			assertEquals(patrones.cantidadHorarios() - 1, patrones.getHorariosReutilizados());
+		} finally {
+			Files.deleteIfExists(archivo);
+		}
+	}
+
+	/** Red con dos líneas sin paradas en común: X (1 - 2 - 3) e Y (11 - 12 - 13). */
+	private static RedCompilada redSeparada(Map<Integer, Parada> separadas, Map<String, Tramo> suyos,
+			LocalTime... domingoY) {
+		Map<String, Linea> dosLineas = new HashMap<>();
+		for (int[] recorrido : new int[][] { { 1, 2, 3 }, { 11, 12, 13 } }) {
+			String codigo = recorrido[0] == 1 ? "X" : "Y";
+			Linea linea = new Linea(codigo, "Línea " + codigo);
+			for (int i = 0; i < recorrido.length; i++) {
+				Parada parada = separadas.get(recorrido[i]);
+				linea.agregarParada(parada);
+				if (i > 0) {
+					Parada anterior = separadas.get(recorrido[i - 1]);
+					suyos.put(Util.claveTramo(anterior, parada), new Tramo(anterior, parada, 120, Constantes.COLECTIVO));
+				}
+			}
+			for (int dia = 1; dia <= RedCompilada.DIAS; dia++) {
+				linea.agregarFrecuencia(dia, LocalTime.of(10, 0));
+				linea.agregarFrecuencia(dia, LocalTime.of(11, 0));
+			}
+			dosLineas.put(codigo, linea);
+		}
+		for (LocalTime hora : domingoY) dosLineas.get("Y").agregarFrecuencia(7, hora);
+		return new RedCompilada(dosLineas, separadas, suyos);
+	}
+
+	@Test
+	void testCambioDeHorarioSoloRecalculaLosOrigenesQueAlcanzanLaLinea() throws Exception {
+		Path archivo = Files.createTempFile("patrones", ".bin");
+		Files.delete(archivo);
+		Map<Integer, Parada> separadas = new HashMap<>();
+		for (int codigo : new int[] { 1, 2, 3, 11, 12, 13 }) {
+			separadas.put(codigo, new Parada(codigo, "Parada " + codigo, -42.77 - codigo / 100.0, -65.04));
+		}
+		Map<String, Tramo> suyos = new HashMap<>();
+		try {
+			PatronesTrasbordo.generar(redSeparada(separadas, suyos), archivo);
+			RedCompilada cambiada = redSeparada(separadas, suyos, LocalTime.of(10, 30));
+
+			PatronesTrasbordo patrones = PatronesTrasbordo.cargarOCalcular(cambiada, archivo);
+
+			// Desde las paradas de la X no se llega a la Y: sus patrones del domingo se copian
+			assertEquals(1, patrones.getHorariosCalculados());
+			assertEquals(3, patrones.getOrigenesCalculados());
+
+			CalculoPatrones esperado = new CalculoPatrones(PatronesTrasbordo.calcular(cambiada));
+			CalculoPatrones incremental = new CalculoPatrones(patrones);
+			for (int[] par : new int[][] { { 11, 13 }, { 12, 13 }, { 1, 3 }, { 2, 3 } }) {
+				Parada origen = separadas.get(par[0]);
+				Parada destino = separadas.get(par[1]);
+				List<List<Recorrido>> recorridos = incremental.calcularRecorrido(origen, destino, 7,
+						LocalTime.of(10, 20), suyos);
+				assertFalse(recorridos.isEmpty());
+				assertEquals(resumen(esperado.calcularRecorrido(origen, destino, 7, LocalTime.of(10, 20), suyos)),
+						resumen(recorridos));
+			}
+		} finally {
+			Files.deleteIfExists(archivo);
+		}
+	}
+}
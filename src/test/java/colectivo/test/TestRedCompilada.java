@@ -0,0 +1,73 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.RedCompilada;
+import colectivo.util.Util;
+
+class TestRedCompilada {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Tramo> tramos;
+
+	@BeforeEach
+	void setUp() {
+		paradas = new HashMap<>();
+		for (int i = 1; i <= 5; i++) {
+			paradas.put(i, new Parada(i, "Parada " + i, -42.77, -65.04));
+		}
+
+		// Caminatas 1-2-3-4 en cadena, con un atajo largo 1-3, y 5 aislada
+		tramos = new HashMap<>();
+		caminando(1, 2, 120);
+		caminando(2, 3, 180);
+		caminando(3, 4, 400);
+		caminando(1, 3, 900);
+	}
+
+	private void caminando(int a, int b, int tiempo) {
+		tramos.put(Util.claveTramo(paradas.get(a), paradas.get(b)),
+				new Tramo(paradas.get(a), paradas.get(b), tiempo, Constantes.CAMINANDO));
+	}
+
+	private static int caminata(RedCompilada red, Parada desde, Parada hasta) {
+		int p = red.indice(desde);
+		for (int e = red.inicioCaminando(p); e < red.finCaminando(p); e++) {
+			if (red.vecinoCaminando(e) == red.indice(hasta)) return red.tiempoCaminando(e);
+		}
+		return -1;
+	}
+
+	@Test
+	void testCierreTransitivo() {
+		RedCompilada red = new RedCompilada(Map.of(), paradas, tramos, 600);
+
+		// 1 -> 3 por 2 es más corto que el tramo directo
+		assertEquals(300, caminata(red, paradas.get(1), paradas.get(3)));
+		assertEquals(300, caminata(red, paradas.get(3), paradas.get(1)));
+		// 2 -> 4 dura 580, dentro del máximo; 1 -> 4 dura 700 y no se incluye
+		assertEquals(580, caminata(red, paradas.get(2), paradas.get(4)));
+		assertEquals(-1, caminata(red, paradas.get(1), paradas.get(4)));
+		assertEquals(0, red.finCaminando(red.indice(paradas.get(5))) - red.inicioCaminando(red.indice(paradas.get(5))));
+	}
+
+	@Test
+	void testTramosDirectosSiempre() {
+		RedCompilada red = new RedCompilada(Map.of(), paradas, tramos, 0);
+
+		// Sin caminatas encadenadas quedan solo los tramos directos, aunque superen el máximo
+		assertEquals(120, caminata(red, paradas.get(1), paradas.get(2)));
+		assertEquals(400, caminata(red, paradas.get(4), paradas.get(3)));
+		assertEquals(900, caminata(red, paradas.get(1), paradas.get(3)));
+		assertEquals(-1, caminata(red, paradas.get(2), paradas.get(4)));
+	}
+}
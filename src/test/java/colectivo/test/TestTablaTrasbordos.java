@@ -0,0 +1,115 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.TablaTrasbordos;
+import colectivo.negocio.TablaTrasbordos.Trasbordo;
+
+class TestTablaTrasbordos {
+
+	private Parada p1, p2, p3, p4, p5;
+
+	/** Línea circular 1 - 2 - 3 - 1. */
+	private Linea circular;
+	/** Línea 4 - 1 - 5, que comparte la parada 1 con la circular. */
+	private Linea cruce;
+
+	private TablaTrasbordos tabla;
+
+	@BeforeEach
+	void setUp() {
+		p1 = new Parada(1, "Uno", -42.770, -65.040);
+		p2 = new Parada(2, "Dos", -42.771, -65.041);
+		p3 = new Parada(3, "Tres", -42.772, -65.042);
+		p4 = new Parada(4, "Cuatro", -42.7721, -65.0421);
+		p5 = new Parada(5, "Cinco", -42.773, -65.043);
+
+		circular = new Linea("C", "Circular");
+		circular.agregarParadas(List.of(p1, p2, p3, p1));
+		cruce = new Linea("X", "Cruce");
+		cruce.agregarParadas(List.of(p4, p1, p5));
+
+		// Se camina entre la 3 (circular) y la 4 (cruce)
+		new Tramo(p3, p4, 60, Constantes.CAMINANDO);
+
+		tabla = new TablaTrasbordos();
+	}
+
+	@Test
+	void testDirectosEnLineaCircular() {
+		Trasbordo[] directos = tabla.directos(circular);
+
+		// La circular pasa dos veces por la parada 1: hay un trasbordo en cada pasada
+		assertEquals(2, directos.length);
+		assertEquals(0, directos[0].getPosicion());
+		assertEquals(3, directos[1].getPosicion());
+		for (Trasbordo t : directos) {
+			assertSame(p1, t.getParada());
+			assertSame(cruce, t.getLinea());
+			assertEquals(1, t.getPosicionLinea());
+			assertEquals(-1, t.getVecina());
+		}
+
+		// Desde el cruce se sube a la circular en su primera pasada por la parada 1
+		Trasbordo[] desdeCruce = tabla.directos(cruce);
+		assertEquals(1, desdeCruce.length);
+		assertEquals(1, desdeCruce[0].getPosicion());
+		assertSame(circular, desdeCruce[0].getLinea());
+		assertEquals(0, desdeCruce[0].getPosicionLinea());
+	}
+
+	@Test
+	void testCaminando() {
+		Trasbordo[] caminando = tabla.caminando(circular);
+
+		assertEquals(1, caminando.length);
+		assertEquals(2, caminando[0].getPosicion());
+		assertSame(p4, caminando[0].getParada());
+		assertSame(cruce, caminando[0].getLinea());
+		assertEquals(0, caminando[0].getPosicionLinea());
+		assertSame(p4, p3.getParadaCaminando().get(caminando[0].getVecina()));
+
+		// El tramo caminando vale en los dos sentidos
+		Trasbordo[] desdeCruce = tabla.caminando(cruce);
+		assertEquals(1, desdeCruce.length);
+		assertEquals(0, desdeCruce[0].getPosicion());
+		assertSame(p3, desdeCruce[0].getParada());
+		assertSame(circular, desdeCruce[0].getLinea());
+		assertEquals(2, desdeCruce[0].getPosicionLinea());
+	}
+
+	@Test
+	void testPrimeroDespues() {
+		Trasbordo[] directos = tabla.directos(circular);
+
+		assertEquals(0, TablaTrasbordos.primeroDespues(directos, -1));
+		assertEquals(1, TablaTrasbordos.primeroDespues(directos, 0));
+		assertEquals(1, TablaTrasbordos.primeroDespues(directos, 2));
+		assertEquals(2, TablaTrasbordos.primeroDespues(directos, 3));
+		assertEquals(0, TablaTrasbordos.primeroDespues(new Trasbordo[0], 5));
+	}
+
+	@Test
+	void testPrecalcular() {
+		tabla.precalcular(List.of(circular, cruce));
+
+		Trasbordo[] directos = tabla.directos(circular);
+		Trasbordo[] caminando = tabla.caminando(cruce);
+
+		// Se devuelven los mismos arreglos, sin calcularlos de nuevo
+		assertSame(directos, tabla.directos(circular));
+		assertSame(caminando, tabla.caminando(cruce));
+		assertEquals(2, directos.length);
+		assertEquals(1, caminando.length);
+	}
+}
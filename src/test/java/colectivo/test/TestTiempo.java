@@ -0,0 +1,97 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import colectivo.constantes.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Recorrido;
+import colectivo.modelo.Tramo;
+import colectivo.negocio.Calculo;
+import colectivo.util.Tiempo;
+import colectivo.util.Util;
+
+class TestTiempo {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	@BeforeEach
+	void setUp() {
+		paradas = new HashMap<>();
+		for (int i = 1; i <= 4; i++) {
+			paradas.put(i, new Parada(i, "Parada " + i, -42.77, -65.04));
+		}
+		tramos = new HashMap<>();
+		lineas = new HashMap<>();
+
+		// La línea A sale a las 23:50 y llega a la parada 2 a las 00:05
+		Linea a = new Linea("A", "Línea A");
+		a.agregarParada(paradas.get(1));
+		a.agregarParada(paradas.get(2));
+		a.agregarFrecuencia(1, LocalTime.of(23, 50));
+		colectivo(1, 2, 900);
+
+		// La línea B sale a las 23:55 y pasa por la parada 2 a las 00:05
+		Linea b = new Linea("B", "Línea B");
+		b.agregarParada(paradas.get(4));
+		b.agregarParada(paradas.get(2));
+		b.agregarParada(paradas.get(3));
+		b.agregarFrecuencia(1, LocalTime.of(23, 55));
+		colectivo(4, 2, 600);
+		colectivo(2, 3, 300);
+
+		lineas.put(a.getCodigo(), a);
+		lineas.put(b.getCodigo(), b);
+	}
+
+	private void colectivo(int a, int b, int tiempo) {
+		tramos.put(Util.claveTramo(paradas.get(a), paradas.get(b)),
+				new Tramo(paradas.get(a), paradas.get(b), tiempo, Constantes.COLECTIVO));
+	}
+
+	@Test
+	void testAHora() {
+		assertEquals(LocalTime.of(23, 0), Tiempo.aHora(82800));
+		assertEquals(LocalTime.of(1, 0), Tiempo.aHora(90000));
+		assertEquals(87000, Tiempo.segundosDesde(LocalTime.of(0, 10), 85800));
+		assertEquals(85800, Tiempo.segundosDesde(LocalTime.of(23, 50), 85800));
+	}
+
+	@Test
+	void testPasoDespuesDeMedianoche() {
+		Calculo calculo = new Calculo(Map.of(Constantes.LINEA, lineas));
+
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(2), paradas.get(3), 1,
+				LocalTime.of(23, 58), tramos);
+
+		assertEquals(1, recorridos.size());
+		assertEquals(LocalTime.of(0, 5), recorridos.get(0).get(0).getHoraSalida());
+		assertEquals(LocalTime.of(0, 12),
+				Tiempo.calcularDuracionTotalViaje(recorridos.get(0).get(0), LocalTime.of(23, 58)));
+	}
+
+	@Test
+	void testConexionDespuesDeMedianoche() {
+		Calculo calculo = new Calculo(Map.of(Constantes.LINEA, lineas));
+
+		List<List<Recorrido>> recorridos = calculo.calcularRecorrido(paradas.get(1), paradas.get(3), 1,
+				LocalTime.of(23, 45), tramos);
+
+		assertEquals(1, recorridos.size());
+		List<Recorrido> viaje = recorridos.get(0);
+		assertEquals(2, viaje.size());
+		assertEquals(LocalTime.of(23, 50), viaje.get(0).getHoraSalida());
+		assertEquals(LocalTime.of(0, 5), viaje.get(1).getHoraSalida());
+		assertEquals(300, viaje.get(1).getDuracion());
+	}
+}